@@ -0,0 +1,286 @@
+package com.taller.publicaciones.carga;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.StringJoiner;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BiFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Workload de lazo cerrado: cada usuario virtual elige una operación según los pesos de la mezcla, espera
+// la respuesta y sigue con la próxima. Sólo se registra lo que termina después del calentamiento.
+final class Carga {
+
+    // Operación del workload; ruta es la plantilla con que aparece en el reporte
+    record Operacion(String nombre, String metodo, String ruta, BiFunction<Usuario, SplittableRandom, HttpRequest> request) {}
+
+    private static final Pattern NEXT_CURSOR = Pattern.compile("\"nextCursor\":\"([^\"]+)\"");
+    private static final String[] BUSQUEDAS = {
+            "bicicleta", "camara", "mesa", "lampara", "libro", "guitarra", "notebook", "zapatillas", "consola", "reloj"
+    };
+
+    private final String baseUrl;
+    private final GeneradorDeDatos datos;
+    private final Zipf productos;
+    private final Zipf autores;
+    private final int publicaciones;
+    private final HttpClient cliente;
+    private final byte[] foto;
+    private final Map<String, Operacion> operaciones = new LinkedHashMap<>();
+
+    Carga(String baseUrl, GeneradorDeDatos datos, Zipf productos, Zipf autores) throws IOException {
+        this.baseUrl = baseUrl;
+        this.datos = datos;
+        this.productos = productos;
+        this.autores = autores;
+        this.publicaciones = productos.n();
+        this.cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.foto = foto();
+        definirOperaciones();
+    }
+
+    // Un usuario virtual: su id, su token y la posición en la que quedó recorriendo el listado
+    final class Usuario {
+        final long id;
+        final String token;
+        String cursor;
+
+        Usuario(long id, String token) {
+            this.id = id;
+            this.token = token;
+        }
+    }
+
+    Usuario usuario(long id, String token) {
+        return new Usuario(id, token);
+    }
+
+    private void definirOperaciones() {
+        agregar("publicaciones.ver", "GET", "/api/publicaciones/{id}",
+                (u, r) -> get(u, "/api/publicaciones/" + productos.siguiente(r)));
+        agregar("publicaciones.listar", "GET", "/api/publicaciones/cursor",
+                (u, r) -> get(u, "/api/publicaciones/cursor?size=20" + (u.cursor != null ? "&cursor=" + u.cursor : "")));
+        agregar("publicaciones.buscar", "GET", "/api/publicaciones/search", (u, r) -> {
+            String q = URLEncoder.encode(BUSQUEDAS[r.nextInt(BUSQUEDAS.length)], StandardCharsets.UTF_8);
+            return get(u, "/api/publicaciones/search?titulo=" + q + "&descripcion=" + q + "&size=20");
+        });
+        agregar("publicaciones.autor", "GET", "/api/publicaciones/autor/{idAutor}/cursor",
+                (u, r) -> get(u, "/api/publicaciones/autor/" + autores.siguiente(r) + "/cursor?size=20"));
+        agregar("publicaciones.batch", "GET", "/api/publicaciones/batch", (u, r) -> {
+            StringJoiner ids = new StringJoiner(",");
+            for (int i = 0; i < 20; i++) {
+                ids.add(String.valueOf(productos.siguiente(r)));
+            }
+            return get(u, "/api/publicaciones/batch?ids=" + ids);
+        });
+        agregar("publicaciones.crear", "POST", "/api/publicaciones", this::crearPublicacion);
+        agregar("publicaciones.actualizar", "PUT", "/api/publicaciones/{id}", (u, r) ->
+                request(u, "/api/publicaciones/" + productos.siguiente(r))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString("{\"precio\":" + 1000 * (1 + r.nextInt(500)) + "}"))
+                        .build());
+        agregar("comentarios.listar", "GET", "/api/comentarios/publicacion/{id}/cursor",
+                (u, r) -> get(u, "/api/comentarios/publicacion/" + productos.siguiente(r) + "/cursor?size=20"));
+        agregar("comentarios.resumen", "GET", "/api/comentarios/publicacion/{id}/resumen",
+                (u, r) -> get(u, "/api/comentarios/publicacion/" + productos.siguiente(r) + "/resumen"));
+        agregar("comentarios.crear", "POST", "/api/comentarios", (u, r) ->
+                request(u, "/api/comentarios")
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"texto\":\"¿Sigue disponible?\",\"idAutor\":" + u.id
+                                + ",\"idPublicacion\":" + productos.siguiente(r) + ",\"valoracion\":" + (1 + r.nextInt(5)) + "}"))
+                        .build());
+        agregar("intercambios.recibidas", "GET", "/api/intercambios/ofertas-recibidas/{userId}/cursor",
+                (u, r) -> get(u, "/api/intercambios/ofertas-recibidas/" + autores.siguiente(r) + "/cursor?size=20"));
+        agregar("intercambios.enviadas", "GET", "/api/intercambios/ofertas-enviadas/{userId}/cursor",
+                (u, r) -> get(u, "/api/intercambios/ofertas-enviadas/" + autores.siguiente(r) + "/cursor?size=20"));
+        agregar("intercambios.crear", "POST", "/api/intercambios/crear", this::crearIntercambio);
+    }
+
+    private void agregar(String nombre, String metodo, String ruta, BiFunction<Usuario, SplittableRandom, HttpRequest> request) {
+        operaciones.put(nombre, new Operacion(nombre, metodo, ruta, request));
+    }
+
+    Map<String, Operacion> operaciones() {
+        return operaciones;
+    }
+
+    // Corre la mezcla con un hilo por usuario; devuelve las latencias por operación, ya sumadas
+    Map<String, Latencias> correr(List<Usuario> usuarios, Map<String, Integer> mezcla, long semilla,
+                                 long calentamientoNanos, long duracionNanos) throws InterruptedException {
+        List<Operacion> elegibles = new ArrayList<>();
+        List<Integer> acumulado = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<String, Integer> peso : mezcla.entrySet()) {
+            Operacion operacion = operaciones.get(peso.getKey());
+            if (operacion == null) {
+                throw new IllegalArgumentException("Operación desconocida en la mezcla: " + peso.getKey()
+                        + " (disponibles: " + operaciones.keySet() + ")");
+            }
+            if (peso.getValue() > 0) {
+                total += peso.getValue();
+                elegibles.add(operacion);
+                acumulado.add(total);
+            }
+        }
+        int pesoTotal = total;
+
+        long inicio = System.nanoTime();
+        long desde = inicio + calentamientoNanos;
+        long hasta = desde + duracionNanos;
+        List<Map<String, Latencias>> porUsuario = new ArrayList<>();
+        CountDownLatch terminados = new CountDownLatch(usuarios.size());
+        for (int i = 0; i < usuarios.size(); i++) {
+            Usuario usuario = usuarios.get(i);
+            Map<String, Latencias> propias = new LinkedHashMap<>();
+            porUsuario.add(propias);
+            SplittableRandom random = new SplittableRandom(semilla + i);
+            Thread thread = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < hasta) {
+                        int sorteo = random.nextInt(pesoTotal);
+                        int j = 0;
+                        while (acumulado.get(j) <= sorteo) {
+                            j++;
+                        }
+                        Operacion operacion = elegibles.get(j);
+                        long t0 = System.nanoTime();
+                        int estado = ejecutar(operacion, usuario, random);
+                        long t1 = System.nanoTime();
+                        if (t1 >= desde && t1 < hasta) {
+                            propias.computeIfAbsent(operacion.nombre(), n -> new Latencias()).registrar(t1 - t0, estado);
+                        }
+                    }
+                } finally {
+                    terminados.countDown();
+                }
+            }, "carga-" + i);
+            thread.start();
+        }
+        terminados.await();
+
+        Map<String, Latencias> resultado = new LinkedHashMap<>();
+        for (Operacion operacion : elegibles) {
+            Latencias suma = new Latencias();
+            porUsuario.forEach(propias -> {
+                Latencias latencias = propias.get(operacion.nombre());
+                if (latencias != null) {
+                    suma.sumar(latencias);
+                }
+            });
+            resultado.put(operacion.nombre(), suma);
+        }
+        return resultado;
+    }
+
+    private int ejecutar(Operacion operacion, Usuario usuario, SplittableRandom random) {
+        try {
+            HttpResponse<String> response = cliente.send(operacion.request().apply(usuario, random),
+                    HttpResponse.BodyHandlers.ofString());
+            if (operacion.nombre().equals("publicaciones.listar")) {
+                // Tres de cada cuatro veces el usuario sigue a la página siguiente
+                Matcher next = NEXT_CURSOR.matcher(response.body());
+                usuario.cursor = next.find() && random.nextInt(4) != 0 ? next.group(1) : null;
+            }
+            return response.statusCode();
+        } catch (IOException e) {
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    // Publicación nueva con foto: bytes al azar después del fin del JPEG para que cada una tenga otro SHA-256
+    private HttpRequest crearPublicacion(Usuario usuario, SplittableRandom random) {
+        String boundary = "carga" + Long.toHexString(random.nextLong());
+        ByteArrayOutputStream body = new ByteArrayOutputStream(foto.length + 1024);
+        campo(body, boundary, "titulo", "Bicicleta de prueba");
+        campo(body, boundary, "descripcion", "Creada por la prueba de carga");
+        campo(body, boundary, "precio", String.valueOf(1000 * (1 + random.nextInt(500))));
+        campo(body, boundary, "idAutor", String.valueOf(usuario.id));
+        campo(body, boundary, "estadoId", "1");
+        escribir(body, "--" + boundary + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"foto.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n");
+        body.writeBytes(foto);
+        byte[] relleno = new byte[16];
+        random.nextBytes(relleno);
+        body.writeBytes(relleno);
+        escribir(body, "\r\n--" + boundary + "--\r\n");
+        return request(usuario, "/api/publicaciones")
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    // Oferta por un producto caliente a cambio de un producto de otro dueño; el solicitante es el dueño del ofrecido
+    private HttpRequest crearIntercambio(Usuario usuario, SplittableRandom random) {
+        long solicitado;
+        long ofrecido;
+        do {
+            solicitado = productos.siguiente(random);
+            ofrecido = 1 + random.nextInt(publicaciones);
+        } while (datos.autorDe(solicitado) == datos.autorDe(ofrecido));
+        String json = "{\"idProductoSolicitado\":" + solicitado + ",\"idProductoOfrecido\":" + ofrecido
+                + ",\"idUsuarioSolicitante\":" + datos.autorDe(ofrecido)
+                + ",\"idUsuarioPropietario\":" + datos.autorDe(solicitado) + "}";
+        return request(usuario, "/api/intercambios/crear")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest get(Usuario usuario, String ruta) {
+        return request(usuario, ruta).GET().build();
+    }
+
+    private HttpRequest.Builder request(Usuario usuario, String ruta) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + ruta))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + usuario.token);
+    }
+
+    private static void campo(ByteArrayOutputStream body, String boundary, String nombre, String valor) {
+        escribir(body, "--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + nombre + "\"\r\n\r\n" + valor + "\r\n");
+    }
+
+    private static void escribir(ByteArrayOutputStream body, String texto) {
+        body.writeBytes(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Foto de 1600x1200 con degradado y ruido, del tamaño de una foto de celular comprimida
+    private static byte[] foto() throws IOException {
+        BufferedImage image = new BufferedImage(1600, 1200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(30, 90, 160), 1600, 1200, new Color(220, 180, 60)));
+        g.fillRect(0, 0, 1600, 1200);
+        g.dispose();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 200_000; i++) {
+            image.setRGB(random.nextInt(1600), random.nextInt(1200), random.nextInt(0xFFFFFF));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+}
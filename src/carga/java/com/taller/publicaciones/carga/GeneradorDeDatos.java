@@ -0,0 +1,176 @@
+package com.taller.publicaciones.carga;
+
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.model.Intercambio;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Llena la base directamente por JDBC en lotes (millones de filas en segundos, sin pasar por JPA).
+// Autores y productos siguen una Zipf: pocos autores publican mucho y pocos productos se llevan
+// la mayoría de los comentarios y ofertas. Los ids quedan 1..n porque la base parte vacía.
+final class GeneradorDeDatos {
+
+    private static final int LOTE = 5_000;
+
+    private static final String[] OBJETOS = {
+            "Bicicleta", "Cámara", "Mesa", "Lámpara", "Polera", "Libro", "Guitarra", "Silla", "Notebook",
+            "Zapatillas", "Chaqueta", "Consola", "Audífonos", "Mochila", "Patines", "Reloj", "Sofá", "Celular"
+    };
+    private static final String[] ADJETIVOS = {
+            "usada", "nueva", "de montaña", "plegable", "antigua", "poco uso", "con detalles", "de colección",
+            "como nueva", "para repuestos", "vintage", "original"
+    };
+    private static final String[] DESCRIPCIONES = {
+            "Se entrega en la comuna de Santiago, conversable.",
+            "Funciona perfecto, incluye cargador y caja original.",
+            "Tiene algunos rayones pero nada que afecte su uso.",
+            "Ideal para regalo, la cambio por algo de similar valor.",
+            "Retiro en metro, no hago envíos.",
+            "Poco uso, la vendo porque me cambio de casa."
+    };
+    private static final String[] COMENTARIOS = {
+            "¿Sigue disponible?", "Me interesa, ¿aceptas cambio?", "Excelente vendedor, todo impecable.",
+            "¿Cuál es el precio final?", "Llegó tal cual la foto.", "No respondió los mensajes."
+    };
+
+    private final JdbcTemplate jdbc;
+    private final SplittableRandom random;
+    private final LocalDateTime ahora = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+    // Autor de cada publicación (índice = id), para armar ofertas entre dueños distintos
+    private long[] autorDePublicacion;
+
+    GeneradorDeDatos(JdbcTemplate jdbc, long semilla) {
+        this.jdbc = jdbc;
+        this.random = new SplittableRandom(semilla);
+    }
+
+    void publicaciones(int cantidad, Zipf autores, String urlBaseFotos) {
+        autorDePublicacion = new long[cantidad + 1];
+        List<Object[]> filas = new ArrayList<>(LOTE);
+        for (int id = 1; id <= cantidad; id++) {
+            long autor = autores.siguiente(random);
+            autorDePublicacion[id] = autor;
+            // Las más nuevas tienen id más alto, repartidas en el último año
+            Timestamp fecha = Timestamp.valueOf(ahora.minusSeconds((long) (cantidad - id) * 31_536_000L / cantidad));
+            boolean conFoto = random.nextInt(10) < 6;
+            filas.add(new Object[]{
+                    id,
+                    OBJETOS[random.nextInt(OBJETOS.length)] + " " + ADJETIVOS[random.nextInt(ADJETIVOS.length)],
+                    DESCRIPCIONES[random.nextInt(DESCRIPCIONES.length)],
+                    1000 * (1 + random.nextInt(500)),
+                    conFoto ? urlBaseFotos + Long.toHexString(random.nextLong()) + ".jpg" : null,
+                    conFoto ? "1024,480,160" : null,
+                    autor,
+                    estadoPublicacion(),
+                    fecha,
+                    fecha
+            });
+            if (filas.size() == LOTE) {
+                insertarPublicaciones(filas);
+            }
+        }
+        insertarPublicaciones(filas);
+    }
+
+    void comentarios(int cantidad, Zipf productos, Zipf autores) {
+        List<Object[]> filas = new ArrayList<>(LOTE);
+        for (int i = 0; i < cantidad; i++) {
+            Timestamp fecha = Timestamp.valueOf(ahora.minusSeconds(random.nextLong(31_536_000L)));
+            filas.add(new Object[]{
+                    COMENTARIOS[random.nextInt(COMENTARIOS.length)],
+                    autores.siguiente(random),
+                    productos.siguiente(random),
+                    // Sesgadas hacia arriba, como casi todas las valoraciones reales
+                    Math.min(5, 3 + random.nextInt(3) + (random.nextInt(4) == 0 ? -2 : 0)),
+                    fecha,
+                    fecha
+            });
+            if (filas.size() == LOTE) {
+                insertar("INSERT INTO comentarios (texto, id_autor, id_publicacion, valoracion, fecha_creacion, "
+                        + "fecha_modificacion) VALUES (?, ?, ?, ?, ?, ?)", filas);
+            }
+        }
+        insertar("INSERT INTO comentarios (texto, id_autor, id_publicacion, valoracion, fecha_creacion, "
+                + "fecha_modificacion) VALUES (?, ?, ?, ?, ?, ?)", filas);
+    }
+
+    // Ofertas sobre productos calientes, a cambio de cualquier otro producto de otro dueño
+    int intercambios(int cantidad, Zipf productos) {
+        String sql = "INSERT INTO intercambios (id_producto_solicitado, id_producto_ofrecido, id_usuario_solicitante, "
+                + "id_usuario_propietario, estado_intercambio, confirmacion_solicitante, confirmacion_propietario, "
+                + "fecha_creacion, fecha_respuesta, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+        int n = autorDePublicacion.length - 1;
+        int creados = 0;
+        List<Object[]> filas = new ArrayList<>(LOTE);
+        while (creados < cantidad) {
+            int solicitado = (int) productos.siguiente(random);
+            int ofrecido = 1 + random.nextInt(n);
+            if (autorDePublicacion[solicitado] == autorDePublicacion[ofrecido]) {
+                continue;
+            }
+            LocalDateTime fecha = ahora.minusSeconds(random.nextLong(31_536_000L));
+            Intercambio.EstadoIntercambio estado = estadoIntercambio();
+            boolean respondido = estado != Intercambio.EstadoIntercambio.PENDIENTE;
+            filas.add(new Object[]{
+                    solicitado,
+                    ofrecido,
+                    autorDePublicacion[ofrecido],
+                    autorDePublicacion[solicitado],
+                    estado.name(),
+                    Intercambio.ConfirmacionEstado.PENDIENTE.name(),
+                    Intercambio.ConfirmacionEstado.PENDIENTE.name(),
+                    Timestamp.valueOf(fecha),
+                    respondido ? Timestamp.valueOf(fecha.plusHours(1 + random.nextInt(72))) : null
+            });
+            creados++;
+            if (filas.size() == LOTE) {
+                insertar(sql, filas);
+            }
+        }
+        insertar(sql, filas);
+        return creados;
+    }
+
+    long autorDe(long idPublicacion) {
+        return autorDePublicacion[(int) idPublicacion];
+    }
+
+    private int estadoPublicacion() {
+        int r = random.nextInt(100);
+        if (r < 85) {
+            return Estado.Tipo.PUBLICADO.getId();
+        }
+        return r < 93 ? Estado.Tipo.BORRADOR.getId() : Estado.Tipo.PROCESO.getId();
+    }
+
+    private Intercambio.EstadoIntercambio estadoIntercambio() {
+        int r = random.nextInt(100);
+        if (r < 60) {
+            return Intercambio.EstadoIntercambio.PENDIENTE;
+        }
+        if (r < 80) {
+            return Intercambio.EstadoIntercambio.RECHAZADO;
+        }
+        return r < 95 ? Intercambio.EstadoIntercambio.ACEPTADO : Intercambio.EstadoIntercambio.CANCELADO;
+    }
+
+    private void insertarPublicaciones(List<Object[]> filas) {
+        // Con id explícito: la tabla usa la secuencia de Hibernate, que se alinea después de generar
+        insertar("INSERT INTO publicaciones (id, titulo, descripcion, precio, url_foto, rendiciones_foto, id_autor, "
+                + "id_estado, fecha_creacion, fecha_modificacion, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", filas);
+    }
+
+    private void insertar(String sql, List<Object[]> filas) {
+        if (!filas.isEmpty()) {
+            jdbc.batchUpdate(sql, filas);
+            filas.clear();
+        }
+    }
+}
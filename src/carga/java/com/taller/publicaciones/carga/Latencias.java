@@ -0,0 +1,66 @@
+package com.taller.publicaciones.carga;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Latencias y códigos HTTP de una operación. Cada worker tiene las suyas (sin contención) y se juntan al final.
+final class Latencias {
+
+    private long[] nanos = new long[1024];
+    private int cantidad;
+    private final Map<Integer, Long> estados = new TreeMap<>();
+    private long errores;
+
+    void registrar(long duracion, int estado) {
+        if (cantidad == nanos.length) {
+            nanos = Arrays.copyOf(nanos, cantidad * 2);
+        }
+        nanos[cantidad++] = duracion;
+        estados.merge(estado, 1L, Long::sum);
+        // 0 = no hubo respuesta (error de conexión o timeout)
+        if (estado == 0 || estado >= 400) {
+            errores++;
+        }
+    }
+
+    void sumar(Latencias otra) {
+        if (cantidad + otra.cantidad > nanos.length) {
+            nanos = Arrays.copyOf(nanos, cantidad + otra.cantidad);
+        }
+        System.arraycopy(otra.nanos, 0, nanos, cantidad, otra.cantidad);
+        cantidad += otra.cantidad;
+        otra.estados.forEach((estado, n) -> estados.merge(estado, n, Long::sum));
+        errores += otra.errores;
+    }
+
+    int cantidad() {
+        return cantidad;
+    }
+
+    long errores() {
+        return errores;
+    }
+
+    Map<Integer, Long> estados() {
+        return estados;
+    }
+
+    // Percentil en milisegundos (ordena en el lugar: llamar sólo al terminar)
+    double percentilMs(double p) {
+        if (cantidad == 0) {
+            return 0;
+        }
+        Arrays.sort(nanos, 0, cantidad);
+        int indice = (int) Math.min(cantidad - 1, Math.ceil(p * cantidad) - 1);
+        return nanos[Math.max(0, indice)] / 1e6;
+    }
+
+    double mediaMs() {
+        long suma = 0;
+        for (int i = 0; i < cantidad; i++) {
+            suma += nanos[i];
+        }
+        return cantidad == 0 ? 0 : suma / 1e6 / cantidad;
+    }
+}
@@ -0,0 +1,213 @@
+package com.taller.publicaciones.carga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.taller.publicaciones.PublicacionesApplication;
+import com.taller.publicaciones.config.VirtualThreads;
+import com.taller.publicaciones.model.CacheRegionDTO;
+import com.taller.publicaciones.search.PublicacionSearchIndex;
+import com.taller.publicaciones.service.CacheEstadisticasService;
+import com.taller.publicaciones.service.ComentarioService;
+import com.taller.publicaciones.service.PublicacionSecuencia;
+import com.taller.publicaciones.service.PublicadosFeed;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Prueba de carga de punta a punta: levanta la aplicación completa sobre H2 en memoria, con un S3 y un
+// emisor de JWT locales, genera el dataset por JDBC y recorre los endpoints REST con la mezcla configurada.
+// Escribe un reporte JSON con throughput y p50/p95/p99 por endpoint. Se configura con propiedades -Dcarga.*:
+//   mvn -Pcarga -DskipTests test-compile exec:exec -Dcarga.publicaciones=1000000 -Dcarga.usuarios=64
+// Con -Dcarga.hilos-virtuales=true la aplicación atiende en hilos virtuales (requiere JDK 21): para comparar
+// los dos modos se corre dos veces con la misma semilla y se comparan los reportes.
+public class PruebaDeCarga {
+
+    private static final String MEZCLA_POR_DEFECTO = "publicaciones.ver=25,publicaciones.listar=10,publicaciones.buscar=10,"
+            + "publicaciones.autor=8,publicaciones.batch=3,publicaciones.crear=1,publicaciones.actualizar=2,"
+            + "comentarios.listar=15,comentarios.resumen=8,comentarios.crear=5,"
+            + "intercambios.recibidas=6,intercambios.enviadas=4,intercambios.crear=3";
+
+    public static void main(String[] args) throws Exception {
+        int publicaciones = Integer.getInteger("carga.publicaciones", 1_000_000);
+        int comentarios = Integer.getInteger("carga.comentarios", 3_000_000);
+        int intercambios = Integer.getInteger("carga.intercambios", 300_000);
+        int autores = Integer.getInteger("carga.autores", 100_000);
+        double sesgo = Double.parseDouble(System.getProperty("carga.sesgo", "1.1"));
+        int usuarios = Integer.getInteger("carga.usuarios", 32);
+        int calentamiento = Integer.getInteger("carga.calentamiento-s", 15);
+        int duracion = Integer.getInteger("carga.duracion-s", 60);
+        long semilla = Long.getLong("carga.semilla", 42L);
+        Map<String, Integer> mezcla = mezcla(System.getProperty("carga.mezcla", MEZCLA_POR_DEFECTO));
+        Path reporte = Paths.get(System.getProperty("carga.reporte", "target/carga/reporte.json"));
+        boolean hilosVirtuales = Boolean.getBoolean("carga.hilos-virtuales");
+        // Sin esto, en un JDK anterior la aplicación caería en silencio a hilos de plataforma
+        if (hilosVirtuales && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("carga.hilos-virtuales requiere JDK 21 o posterior, corriendo en " + Runtime.version());
+        }
+
+        try (ServidorLocal servidor = new ServidorLocal()) {
+            // devtools está en el classpath de test: sin esto la aplicación corre en su classloader de reinicio
+            System.setProperty("spring.devtools.restart.enabled", "false");
+            // Como argumentos y no como propiedades por defecto: tienen que ganarle a application.properties
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(PublicacionesApplication.class).run(
+                    "--server.port=0",
+                    "--spring.main.banner-mode=off",
+                    "--spring.datasource.url=jdbc:h2:mem:carga;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                    "--spring.jpa.hibernate.ddl-auto=create-drop",
+                    "--logging.level.root=" + System.getProperty("carga.log-level", "WARN"),
+                    "--azure.ad.b2c.jwk-set-uri=" + servidor.url() + "/jwks",
+                    "--aws.s3.endpoint=" + servidor.url(),
+                    "--aws.s3.bucket=carga",
+                    "--fotos.spool-dir=target/carga/spool",
+                    "--spring.threads.virtual.enabled=" + hilosVirtuales);
+            try {
+                int puerto = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+                System.out.printf("Generating %d publications, %d comments, %d exchanges (%d authors, skew %.2f)%n",
+                        publicaciones, comentarios, intercambios, autores, sesgo);
+                long inicioGeneracion = System.nanoTime();
+                Zipf zipfAutores = new Zipf(autores, sesgo);
+                Zipf zipfProductos = new Zipf(publicaciones, sesgo);
+                GeneradorDeDatos datos = new GeneradorDeDatos(context.getBean(JdbcTemplate.class), semilla);
+                datos.publicaciones(publicaciones, zipfAutores, servidor.url() + "/carga/");
+                datos.comentarios(comentarios, zipfProductos, zipfAutores);
+                datos.intercambios(intercambios, zipfProductos);
+                // Lo que la aplicación arma al arrancar se arma de nuevo, ahora con los datos
+                context.getBean(PublicacionSecuencia.class).alinear();
+                context.getBean(ComentarioService.class).rebuildResumenes();
+                context.getBean(PublicacionSearchIndex.class).rebuild();
+                context.getBean(PublicadosFeed.class).rebuild();
+                double segundosGeneracion = (System.nanoTime() - inicioGeneracion) / 1e9;
+                System.out.printf("Dataset ready in %.1f s%n", segundosGeneracion);
+
+                Carga carga = new Carga("http://localhost:" + puerto, datos, zipfProductos, zipfAutores);
+                Instant expira = Instant.now().plus(calentamiento + duracion + 3600L, ChronoUnit.SECONDS);
+                List<Carga.Usuario> virtuales = new ArrayList<>();
+                SplittableRandom random = new SplittableRandom(semilla);
+                for (int i = 0; i < usuarios; i++) {
+                    long id = zipfAutores.siguiente(random);
+                    virtuales.add(carga.usuario(id, servidor.token(id, expira)));
+                }
+
+                System.out.printf("Running %d users for %d s (+%d s warm-up) on %s threads%n", usuarios, duracion,
+                        calentamiento, hilosVirtuales ? "virtual" : "platform");
+                // La tasa de aciertos de la caché de segundo nivel se mide sobre la carga, no sobre la generación
+                Statistics estadisticas = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+                estadisticas.clear();
+                Map<String, Latencias> resultados = carga.correr(virtuales, mezcla, semilla,
+                        TimeUnit.SECONDS.toNanos(calentamiento), TimeUnit.SECONDS.toNanos(duracion));
+
+                Map<String, Object> json = new LinkedHashMap<>();
+                json.put("fecha", Instant.now().toString());
+                json.put("configuracion", ordenado(
+                        "usuarios", usuarios, "calentamientoSegundos", calentamiento, "duracionSegundos", duracion,
+                        "semilla", semilla, "mezcla", mezcla, "javaVersion", Runtime.version().toString(),
+                        "hilosVirtuales", context.getBean(VirtualThreads.class).isActive(),
+                        "procesadores", Runtime.getRuntime().availableProcessors()));
+                json.put("datos", ordenado(
+                        "publicaciones", publicaciones, "comentarios", comentarios, "intercambios", intercambios,
+                        "autores", autores, "sesgo", sesgo, "segundosGeneracion", redondear(segundosGeneracion)));
+                json.put("almacenamiento", ordenado(
+                        "objetosSubidos", servidor.objetos(), "bytesSubidos", servidor.bytesSubidos()));
+                json.put("endpoints", endpoints(carga, resultados, duracion));
+                List<CacheRegionDTO> cache = context.getBean(CacheEstadisticasService.class).getEstadisticas();
+                json.put("cacheL2", cache);
+
+                Files.createDirectories(reporte.toAbsolutePath().getParent());
+                new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reporte.toFile(), json);
+                imprimir(resultados, carga, duracion);
+                cache.forEach(region -> System.out.printf("L2 %-60s hits %10d  misses %10d  ratio %.3f%n",
+                        region.getRegion(), region.getHits(), region.getMisses(), region.getHitRatio()));
+                System.out.printf("%nReport written to %s%n", reporte.toAbsolutePath());
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static List<Map<String, Object>> endpoints(Carga carga, Map<String, Latencias> resultados, int duracion) {
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        Latencias total = new Latencias();
+        resultados.forEach((nombre, latencias) -> {
+            Carga.Operacion operacion = carga.operaciones().get(nombre);
+            Map<String, Object> endpoint = new LinkedHashMap<>();
+            endpoint.put("operacion", nombre);
+            endpoint.put("metodo", operacion.metodo());
+            endpoint.put("ruta", operacion.ruta());
+            resumen(endpoint, latencias, duracion);
+            endpoint.put("estados", latencias.estados());
+            endpoints.add(endpoint);
+            total.sumar(latencias);
+        });
+        Map<String, Object> todos = new LinkedHashMap<>();
+        todos.put("operacion", "total");
+        resumen(todos, total, duracion);
+        endpoints.add(todos);
+        return endpoints;
+    }
+
+    private static void resumen(Map<String, Object> endpoint, Latencias latencias, int duracion) {
+        endpoint.put("requests", latencias.cantidad());
+        endpoint.put("errores", latencias.errores());
+        endpoint.put("throughput", redondear((double) latencias.cantidad() / duracion));
+        endpoint.put("mediaMs", redondear(latencias.mediaMs()));
+        endpoint.put("p50Ms", redondear(latencias.percentilMs(0.50)));
+        endpoint.put("p95Ms", redondear(latencias.percentilMs(0.95)));
+        endpoint.put("p99Ms", redondear(latencias.percentilMs(0.99)));
+        endpoint.put("maxMs", redondear(latencias.percentilMs(1.0)));
+    }
+
+    private static void imprimir(Map<String, Latencias> resultados, Carga carga, int duracion) {
+        System.out.printf("%n%-26s %-6s %-52s %9s %8s %7s %9s %9s %9s%n",
+                "Operation", "Method", "Path", "Requests", "Req/s", "Errors", "p50 ms", "p95 ms", "p99 ms");
+        resultados.forEach((nombre, latencias) -> {
+            Carga.Operacion operacion = carga.operaciones().get(nombre);
+            System.out.printf("%-26s %-6s %-52s %9d %8.1f %7d %9.2f %9.2f %9.2f%n",
+                    nombre, operacion.metodo(), operacion.ruta(), latencias.cantidad(),
+                    (double) latencias.cantidad() / duracion, latencias.errores(),
+                    latencias.percentilMs(0.50), latencias.percentilMs(0.95), latencias.percentilMs(0.99));
+        });
+    }
+
+    // "a=3,b=1" -> {a=3, b=1}, en el orden dado
+    private static Map<String, Integer> mezcla(String texto) {
+        Map<String, Integer> mezcla = new LinkedHashMap<>();
+        for (String par : texto.split(",")) {
+            String[] partes = par.trim().split("=");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Mezcla inválida, se espera operacion=peso: " + par);
+            }
+            mezcla.put(partes[0].trim(), Integer.valueOf(partes[1].trim()));
+        }
+        return mezcla;
+    }
+
+    // Como Map.of, pero conserva el orden en el reporte
+    private static Map<String, Object> ordenado(Object... clavesYValores) {
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        for (int i = 0; i < clavesYValores.length; i += 2) {
+            mapa.put((String) clavesYValores[i], clavesYValores[i + 1]);
+        }
+        return mapa;
+    }
+
+    private static double redondear(double valor) {
+        return Math.round(valor * 100) / 100.0;
+    }
+}
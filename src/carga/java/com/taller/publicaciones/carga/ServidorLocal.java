@@ -0,0 +1,119 @@
+package com.taller.publicaciones.carga;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Reemplazos locales de los servicios externos durante la prueba de carga:
+//  - /jwks: las claves públicas con que la aplicación valida los JWT (en vez de Azure AD B2C)
+//  - /<bucket>/<clave>: un S3 mínimo en memoria (PUT guarda el tamaño, HEAD responde si existe)
+final class ServidorLocal implements AutoCloseable {
+
+    private final HttpServer servidor;
+    private final RSAKey clave;
+    private final Map<String, Long> objetos = new ConcurrentHashMap<>();
+    private final AtomicLong bytesSubidos = new AtomicLong();
+
+    ServidorLocal() throws Exception {
+        clave = new RSAKeyGenerator(2048).keyID("carga").generate();
+        byte[] jwks = new JWKSet(clave.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+
+        servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        servidor.setExecutor(Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "servidor-local");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        servidor.createContext("/jwks", exchange -> responder(exchange, 200, jwks));
+        servidor.createContext("/", this::s3);
+        servidor.start();
+    }
+
+    String url() {
+        return "http://localhost:" + servidor.getAddress().getPort();
+    }
+
+    // Token firmado con la clave publicada en /jwks; el sujeto es el id del usuario
+    String token(long idUsuario, Instant expira) throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject(String.valueOf(idUsuario))
+                .issuer(url())
+                .issueTime(new Date())
+                .expirationTime(Date.from(expira))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(clave.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(clave));
+        return jwt.serialize();
+    }
+
+    int objetos() {
+        return objetos.size();
+    }
+
+    long bytesSubidos() {
+        return bytesSubidos.get();
+    }
+
+    private void s3(HttpExchange exchange) throws IOException {
+        String objeto = exchange.getRequestURI().getPath();
+        switch (exchange.getRequestMethod()) {
+            case "PUT" -> {
+                long bytes;
+                try (InputStream body = exchange.getRequestBody()) {
+                    bytes = body.transferTo(OutputStream.nullOutputStream());
+                }
+                objetos.put(objeto, bytes);
+                bytesSubidos.addAndGet(bytes);
+                responder(exchange, 200, null);
+            }
+            case "HEAD" -> {
+                Long bytes = objetos.get(objeto);
+                if (bytes == null) {
+                    responder(exchange, 404, null);
+                } else {
+                    exchange.getResponseHeaders().add("Content-Length", String.valueOf(bytes));
+                    exchange.sendResponseHeaders(200, -1);
+                    exchange.close();
+                }
+            }
+            default -> responder(exchange, 501, null);
+        }
+    }
+
+    private static void responder(HttpExchange exchange, int estado, byte[] cuerpo) throws IOException {
+        exchange.getRequestBody().close();
+        if (cuerpo == null) {
+            exchange.sendResponseHeaders(estado, -1);
+        } else {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(estado, cuerpo.length);
+            exchange.getResponseBody().write(cuerpo);
+        }
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        servidor.stop(0);
+    }
+}
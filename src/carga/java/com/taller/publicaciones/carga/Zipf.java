@@ -0,0 +1,41 @@
+package com.taller.publicaciones.carga;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+// Elige un id entre 1 y n con distribución de Zipf: unos pocos autores y productos concentran la mayor
+// parte de la actividad. El rango se mezcla con una permutación fija, para que los "calientes" no sean
+// justo los ids más bajos (que además serían los más antiguos).
+final class Zipf {
+
+    // Primo mayor que cualquier n razonable: i -> (i * PASO) mod n es una permutación de 0..n-1
+    private static final long PASO = 2_147_483_647L;
+
+    private final int n;
+    private final double[] acumulada;
+
+    Zipf(int n, double exponente) {
+        this.n = n;
+        this.acumulada = new double[n];
+        double suma = 0;
+        for (int i = 0; i < n; i++) {
+            suma += 1.0 / Math.pow(i + 1, exponente);
+            acumulada[i] = suma;
+        }
+        for (int i = 0; i < n; i++) {
+            acumulada[i] /= suma;
+        }
+    }
+
+    long siguiente(RandomGenerator random) {
+        int rango = Arrays.binarySearch(acumulada, random.nextDouble());
+        if (rango < 0) {
+            rango = Math.min(-rango - 1, n - 1);
+        }
+        return rango * PASO % n + 1;
+    }
+
+    int n() {
+        return n;
+    }
+}
@@ -0,0 +1,96 @@
+package com.taller.publicaciones.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+
+// Control de regresiones antes de cada despliegue: corre los benchmarks y compara cada puntaje con la
+// línea base guardada (benchmark=puntaje). Falla (exit 1) si alguno empeora más que la tolerancia.
+// Si la línea base no existe, la crea con esta ejecución; para renovarla basta con borrar el archivo.
+// Las líneas base dependen de la máquina: comparar siempre en el mismo tipo de host.
+public class BenchmarkGate {
+
+    public static void main(String[] args) throws Exception {
+        Path baseline = Paths.get(args.length > 0 ? args[0] : "benchmarks-baseline.properties");
+        double tolerancia = args.length > 1 ? Double.parseDouble(args[1]) : 0.10;
+        String incluir = args.length > 2 ? args[2] : ".*";
+
+        Options options = new OptionsBuilder()
+                .include(incluir)
+                .build();
+        Collection<RunResult> resultados = new Runner(options).run();
+
+        TreeMap<String, Double> puntajes = new TreeMap<>();
+        TreeMap<String, Boolean> mayorEsMejor = new TreeMap<>();
+        for (RunResult resultado : resultados) {
+            Result<?> primario = resultado.getPrimaryResult();
+            String nombre = resultado.getParams().getBenchmark() + parametros(resultado);
+            puntajes.put(nombre, primario.getScore());
+            mayorEsMejor.put(nombre, resultado.getParams().getMode() == Mode.Throughput);
+        }
+
+        if (!Files.exists(baseline)) {
+            guardar(baseline, puntajes);
+            System.out.printf("No baseline found, wrote %d scores to %s%n", puntajes.size(), baseline);
+            return;
+        }
+
+        Properties base = new Properties();
+        try (InputStream in = Files.newInputStream(baseline)) {
+            base.load(in);
+        }
+        List<String> regresiones = new ArrayList<>();
+        System.out.printf("%n%-90s %14s %14s %8s%n", "Benchmark", "Baseline", "Current", "Change");
+        puntajes.forEach((nombre, puntaje) -> {
+            String anterior = base.getProperty(nombre);
+            if (anterior == null) {
+                System.out.printf("%-90s %14s %14.3f %8s%n", nombre, "-", puntaje, "new");
+                return;
+            }
+            double referencia = Double.parseDouble(anterior);
+            double cambio = (puntaje - referencia) / referencia;
+            // En throughput peor es menos; en los modos de tiempo, peor es más
+            double empeora = mayorEsMejor.get(nombre) ? -cambio : cambio;
+            System.out.printf("%-90s %14.3f %14.3f %+7.1f%%%n", nombre, referencia, puntaje, cambio * 100);
+            if (empeora > tolerancia) {
+                regresiones.add(nombre);
+            }
+        });
+
+        if (!regresiones.isEmpty()) {
+            System.out.printf("%nRegressions beyond %.0f%%: %s%n", tolerancia * 100, regresiones);
+            System.exit(1);
+        }
+        System.out.printf("%nNo regressions beyond %.0f%%%n", tolerancia * 100);
+    }
+
+    private static String parametros(RunResult resultado) {
+        StringBuilder sb = new StringBuilder();
+        for (String clave : resultado.getParams().getParamsKeys()) {
+            sb.append(sb.length() == 0 ? "[" : ",").append(clave).append('=').append(resultado.getParams().getParam(clave));
+        }
+        return sb.length() == 0 ? "" : sb.append(']').toString();
+    }
+
+    private static void guardar(Path baseline, TreeMap<String, Double> puntajes) throws Exception {
+        Properties properties = new Properties();
+        puntajes.forEach((nombre, puntaje) -> properties.setProperty(nombre, String.valueOf(puntaje)));
+        try (OutputStream out = Files.newOutputStream(baseline)) {
+            properties.store(out, "JMH baseline");
+        }
+    }
+}
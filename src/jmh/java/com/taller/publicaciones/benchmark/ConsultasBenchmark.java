@@ -0,0 +1,112 @@
+package com.taller.publicaciones.benchmark;
+
+import com.taller.publicaciones.PublicacionesApplication;
+import com.taller.publicaciones.model.KeysetCursor;
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.repository.PublicacionRepository;
+import com.taller.publicaciones.search.PublicacionSearchIndex;
+import com.taller.publicaciones.service.PublicacionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Búsqueda y paginación de publicaciones contra H2 en memoria, a través del contexto completo de Spring
+// (repositorios, transacciones, caché de segundo nivel e índice de búsqueda).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsultasBenchmark {
+
+    private static final int TAMANO_PAGINA = 20;
+
+    @Param({"5000"})
+    private int publicaciones;
+
+    private ConfigurableApplicationContext context;
+    private PublicacionService publicacionService;
+    private PublicacionRepository publicacionRepository;
+    private Pageable primeraPagina;
+    private Pageable paginaProfunda;
+    private KeysetCursor cursorProfundo;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(PublicacionesApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmarks;DB_CLOSE_DELAY=-1",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "fotos.storage=filesystem")
+                .run();
+        publicacionService = context.getBean(PublicacionService.class);
+        publicacionRepository = context.getBean(PublicacionRepository.class);
+
+        Random random = new Random(42);
+        List<Publicacion> lote = new ArrayList<>();
+        for (int i = 0; i < publicaciones; i++) {
+            lote.add(Datos.publicacion(random));
+            if (lote.size() == 500) {
+                publicacionRepository.saveAll(lote);
+                lote.clear();
+            }
+        }
+        publicacionRepository.saveAll(lote);
+        context.getBean(PublicacionSearchIndex.class).rebuild();
+
+        primeraPagina = PageRequest.of(0, TAMANO_PAGINA);
+        paginaProfunda = PageRequest.of(publicaciones / TAMANO_PAGINA / 2, TAMANO_PAGINA);
+        List<Publicacion> mitad = publicacionService.findAll(paginaProfunda).getContent();
+        Publicacion anterior = mitad.get(mitad.size() - 1);
+        cursorProfundo = new KeysetCursor(anterior.getFechaCreacion(), anterior.getId());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Publicacion> buscarConIndice() {
+        return publicacionService.findByTituloOrDescripcionContaining("Bicicleta", "Bicicleta", primeraPagina);
+    }
+
+    @Benchmark
+    public Page<Publicacion> buscarConLike() {
+        return publicacionRepository.findByTituloOrDescripcionContaining("Bicicleta", "Bicicleta", primeraPagina);
+    }
+
+    @Benchmark
+    public Page<Publicacion> paginaPorOffset() {
+        return publicacionService.findAll(paginaProfunda);
+    }
+
+    @Benchmark
+    public Slice<Publicacion> paginaPorCursor() {
+        return publicacionService.findAllAfter(cursorProfundo, TAMANO_PAGINA);
+    }
+}
@@ -0,0 +1,66 @@
+package com.taller.publicaciones.benchmark;
+
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.model.Intercambio;
+import com.taller.publicaciones.model.Publicacion;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+// Datos sintéticos con una forma parecida a los reales, iguales en cada ejecución (semilla fija)
+public final class Datos {
+
+    private static final String[] OBJETOS = {
+            "Bicicleta", "Cámara", "Mesa", "Lámpara", "Polera", "Libro", "Guitarra", "Silla", "Notebook", "Zapatillas"
+    };
+    private static final String[] ADJETIVOS = {
+            "usada", "nueva", "de montaña", "plegable", "antigua", "poco uso", "con detalles", "de colección"
+    };
+    private static final String[] DESCRIPCIONES = {
+            "Se entrega en la comuna de Santiago, conversable.",
+            "Funciona perfecto, incluye cargador y caja original.",
+            "Tiene algunos rayones pero nada que afecte su uso.",
+            "Ideal para regalo, la cambio por algo de similar valor."
+    };
+
+    private Datos() {
+    }
+
+    // Sin id: lista para guardarse
+    public static Publicacion publicacion(Random random) {
+        Publicacion publicacion = new Publicacion();
+        publicacion.setTitulo(OBJETOS[random.nextInt(OBJETOS.length)] + " " + ADJETIVOS[random.nextInt(ADJETIVOS.length)]);
+        publicacion.setDescripcion(DESCRIPCIONES[random.nextInt(DESCRIPCIONES.length)]);
+        publicacion.setPrecio(1000 * (1 + random.nextInt(500)));
+        publicacion.setIdAutor(1L + random.nextInt(200));
+        publicacion.setEstado(new Estado(Estado.Tipo.PUBLICADO.getId(), Estado.Tipo.PUBLICADO.getNombre()));
+        return publicacion;
+    }
+
+    // Como si viniera de la base: con id, fechas, versión y foto
+    public static Publicacion publicacionGuardada(Random random, long id) {
+        Publicacion publicacion = publicacion(random);
+        LocalDateTime fecha = LocalDateTime.of(2025, 1, 1, 12, 0).plusMinutes(id);
+        publicacion.setId(id);
+        publicacion.setFechaCreacion(fecha);
+        publicacion.setFechaModificacion(fecha);
+        publicacion.setVersion(0L);
+        publicacion.setUrlFoto("https://publicaciones.s3.amazonaws.com/" + Long.toHexString(random.nextLong()) + ".jpg");
+        publicacion.setRendicionesFoto("1024,480,160");
+        return publicacion;
+    }
+
+    public static Intercambio intercambio(Random random, long id) {
+        Publicacion solicitado = publicacionGuardada(random, 2 * id);
+        Publicacion ofrecido = publicacionGuardada(random, 2 * id + 1);
+        Intercambio intercambio = new Intercambio();
+        intercambio.setId(id);
+        intercambio.setProductoSolicitado(solicitado);
+        intercambio.setProductoOfrecido(ofrecido);
+        intercambio.setIdUsuarioPropietario(solicitado.getIdAutor());
+        intercambio.setIdUsuarioSolicitante(ofrecido.getIdAutor());
+        intercambio.setFechaCreacion(solicitado.getFechaCreacion());
+        intercambio.setVersion(0L);
+        return intercambio;
+    }
+}
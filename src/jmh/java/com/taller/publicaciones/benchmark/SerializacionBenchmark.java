@@ -0,0 +1,80 @@
+package com.taller.publicaciones.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taller.publicaciones.model.Intercambio;
+import com.taller.publicaciones.model.IntercambioResponseDTO;
+import com.taller.publicaciones.model.Publicacion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+// Serialización JSON de las respuestas más frecuentes, con la misma configuración base de Jackson que la aplicación
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializacionBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Publicacion publicacion;
+    private Page<Publicacion> pagina;
+    private IntercambioResponseDTO intercambio;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        publicacion = Datos.publicacionGuardada(random, 1);
+        List<Publicacion> contenido = LongStream.rangeClosed(1, 20)
+                .mapToObj(id -> Datos.publicacionGuardada(random, id))
+                .toList();
+        pagina = new PageImpl<>(contenido, PageRequest.of(0, 20), 5000);
+
+        Intercambio origen = Datos.intercambio(random, 1);
+        intercambio = new IntercambioResponseDTO();
+        intercambio.setId(origen.getId());
+        intercambio.setProductoSolicitado(origen.getProductoSolicitado());
+        intercambio.setProductoOfrecido(origen.getProductoOfrecido());
+        intercambio.setIdUsuarioSolicitante(origen.getIdUsuarioSolicitante());
+        intercambio.setIdUsuarioPropietario(origen.getIdUsuarioPropietario());
+        intercambio.setNombreUsuarioSolicitante("Usuario " + origen.getIdUsuarioSolicitante());
+        intercambio.setNombreUsuarioPropietario("Usuario " + origen.getIdUsuarioPropietario());
+        intercambio.setEstadoIntercambio(origen.getEstadoIntercambio());
+        intercambio.setFechaCreacion(origen.getFechaCreacion());
+        intercambio.setConfirmacionSolicitante(origen.getConfirmacionSolicitante());
+        intercambio.setConfirmacionPropietario(origen.getConfirmacionPropietario());
+    }
+
+    @Benchmark
+    public byte[] publicacion() throws Exception {
+        return objectMapper.writeValueAsBytes(publicacion);
+    }
+
+    @Benchmark
+    public byte[] paginaDePublicaciones() throws Exception {
+        return objectMapper.writeValueAsBytes(pagina);
+    }
+
+    @Benchmark
+    public byte[] intercambio() throws Exception {
+        return objectMapper.writeValueAsBytes(intercambio);
+    }
+}
@@ -0,0 +1,64 @@
+package com.taller.publicaciones.grafo;
+
+import com.taller.publicaciones.model.CicloIntercambioDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Búsqueda de ciclos para un usuario al azar sobre un grafo sintético del tamaño que se espera en producción.
+// No necesita base ni Spring: el grafo se llena con agregar() como lo hace IntercambioService. Una parte de
+// las ofertas apunta a unos pocos productos muy pedidos, que es donde la búsqueda se abre más.
+// SampleTime para ver también los percentiles altos.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class GrafoIntercambiosBenchmark {
+
+    private static final int PRODUCTOS_POR_USUARIO = 3;
+
+    @Param({"1000000"})
+    private int productos;
+
+    @Param({"3000000"})
+    private int ofertas;
+
+    private GrafoIntercambios grafo;
+    private Random random;
+    private int usuarios;
+
+    @Setup
+    public void setup() {
+        usuarios = productos / PRODUCTOS_POR_USUARIO;
+        random = new Random(42);
+        grafo = new GrafoIntercambios(null, 200_000, 60);
+        for (int oferta = 1; oferta <= ofertas; oferta++) {
+            long ofrecido = random.nextInt(productos);
+            // Un 20% de las ofertas piden alguno de los 1000 productos más codiciados
+            long solicitado = random.nextInt(5) == 0 ? random.nextInt(1000) : random.nextInt(productos);
+            if (ofrecido / PRODUCTOS_POR_USUARIO != solicitado / PRODUCTOS_POR_USUARIO) {
+                grafo.agregar(oferta, ofrecido, ofrecido / PRODUCTOS_POR_USUARIO,
+                        solicitado, solicitado / PRODUCTOS_POR_USUARIO);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<CicloIntercambioDTO> ciclosDeUsuario() {
+        return grafo.ciclosDeUsuario(random.nextInt(usuarios), 10);
+    }
+}
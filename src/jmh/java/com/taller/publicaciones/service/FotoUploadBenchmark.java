@@ -0,0 +1,124 @@
+package com.taller.publicaciones.service;
+
+import com.sun.net.httpserver.HttpServer;
+import com.taller.publicaciones.config.VirtualThreads;
+import com.taller.publicaciones.repository.PublicacionRepository;
+import com.taller.publicaciones.storage.KnownObjectIndex;
+import com.taller.publicaciones.storage.S3AsyncObjectStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+// El camino que recorre cada foto subida: spool con SHA-256 en la misma pasada y clave por contenido
+// (FotoUploadService.spool y objectKey), y la subida del original por S3AsyncObjectStorage contra un S3 de
+// mentira en localhost que responde 404 al HEAD y consume el cuerpo del PUT. Cada operación cambia los
+// primeros bytes del archivo para que el digest sea nuevo y no lo resuelva el índice de claves conocidas.
+// El servidor local suma un costo fijo por request; sirve para comparar ejecuciones, no como valor absoluto.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FotoUploadBenchmark {
+
+    @Param({"262144"})
+    private int bytes;
+
+    private HttpServer servidor;
+    private Path spoolDir;
+    private S3AsyncObjectStorage storage;
+    private ImageRenditionService renditionService;
+    private FotoUploadService fotoUploadService;
+    private byte[] contenido;
+    private MockMultipartFile archivo;
+    private long secuencia;
+
+    @Setup
+    public void setup() throws Exception {
+        // Fuera de Spring Boot logback queda en DEBUG: el log del SDK se comería la medición
+        LoggingSystem.get(getClass().getClassLoader()).setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.WARN);
+        servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        servidor.createContext("/", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                body.transferTo(OutputStream.nullOutputStream());
+            }
+            exchange.sendResponseHeaders("HEAD".equals(exchange.getRequestMethod()) ? 404 : 200, -1);
+            exchange.close();
+        });
+        servidor.start();
+
+        String endpoint = "http://localhost:" + servidor.getAddress().getPort();
+        storage = new S3AsyncObjectStorage("bench", "bench", "us-east-1", "publicaciones-bench", endpoint,
+                16L * 1024 * 1024, 8L * 1024 * 1024, new SimpleMeterRegistry());
+        spoolDir = Files.createTempDirectory("foto-upload-bench");
+        renditionService = new ImageRenditionService(List.of(), 0, 1);
+        // Ni la base, ni el feed, ni las rendiciones participan de spool y uploadNow
+        fotoUploadService = new FotoUploadService(storage, renditionService,
+                new KnownObjectIndex(), mock(PublicacionRepository.class), mock(PublicadosFeed.class),
+                new VirtualThreads(false), false, spoolDir.toString(), 1, 1, 0);
+        contenido = new byte[bytes];
+        new Random(42).nextBytes(contenido);
+        // MockMultipartFile no copia el arreglo: cambiarlo cambia el archivo
+        archivo = new MockMultipartFile("file", "IMG_20250101_120000.jpg", "image/jpeg", contenido);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fotoUploadService.shutdown();
+        renditionService.shutdown();
+        storage.close();
+        servidor.stop(0);
+        FileSystemUtils.deleteRecursively(spoolDir);
+    }
+
+    @Benchmark
+    public String spool() throws IOException {
+        String spool = fotoUploadService.spool(nuevoContenido());
+        fotoUploadService.discard(spool);
+        return FotoUploadService.objectKey(spool);
+    }
+
+    @Benchmark
+    public String subir() throws IOException {
+        String spool = fotoUploadService.spool(nuevoContenido());
+        try {
+            return fotoUploadService.uploadNow(spool);
+        } finally {
+            fotoUploadService.discard(spool);
+        }
+    }
+
+    private MockMultipartFile nuevoContenido() {
+        ByteBuffer.wrap(contenido).putLong(0, ++secuencia);
+        return archivo;
+    }
+}
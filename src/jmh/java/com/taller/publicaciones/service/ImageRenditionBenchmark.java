@@ -0,0 +1,98 @@
+package com.taller.publicaciones.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Rendiciones por segundo según los hilos del pool, con fotos de cámara (4000x3000) y los anchos por defecto.
+// Cada operación manda un lote de fotos al pool a la vez, como lo haría FotoUploadService con sus workers;
+// el puntaje es por foto. Las rendiciones se sobrescriben en cada operación.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ImageRenditionBenchmark {
+
+    private static final int FOTOS = 16;
+
+    @Param({"1", "4"})
+    private int hilos;
+
+    @Param({"4000"})
+    private int ancho;
+
+    @Param({"3000"})
+    private int alto;
+
+    private Path dir;
+    private List<Path> originales;
+    private ImageRenditionService service;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("rendiciones-bench");
+        originales = new ArrayList<>();
+        for (int i = 0; i < FOTOS; i++) {
+            Path original = dir.resolve("foto-" + i + ".jpg");
+            ImageIO.write(sample(ancho, alto, i), "jpg", original.toFile());
+            originales.add(original);
+        }
+        service = new ImageRenditionService(List.of(160, 480, 1024), 0, hilos);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        service.shutdown();
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FOTOS)
+    public int renderizar() {
+        List<CompletableFuture<List<ImageRenditionService.Rendicion>>> futuros = originales.stream()
+                .map(service::render)
+                .toList();
+        return futuros.stream().mapToInt(futuro -> futuro.join().size()).sum();
+    }
+
+    // Degradado con ruido: comprime parecido a una foto real, a diferencia de una imagen lisa
+    private static BufferedImage sample(int width, int height, int seed) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.getHSBColor(seed / 10f, 0.6f, 0.9f), width, height, Color.DARK_GRAY));
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        Random random = new Random(seed);
+        for (int i = 0; i < width * height / 20; i++) {
+            image.setRGB(random.nextInt(width), random.nextInt(height), random.nextInt());
+        }
+        return image;
+    }
+}
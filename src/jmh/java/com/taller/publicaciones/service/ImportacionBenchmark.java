@@ -0,0 +1,115 @@
+package com.taller.publicaciones.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taller.publicaciones.PublicacionesApplication;
+import com.taller.publicaciones.model.ImportacionResultadoDTO;
+import com.taller.publicaciones.search.PublicacionSearchIndex;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Importación de un CSV contra H2 en memoria: una transacción y un INSERT por fila (lo que hacía
+// POST /api/publicaciones en un bucle) contra lotes JDBC con flush/clear. En H2 no hay COPY; el camino de
+// PostgreSQL se mide contra una base real. Cada operación importa el archivo completo.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImportacionBenchmark {
+
+    // Los autores de las filas importadas, para borrarlas entre operaciones
+    private static final int PRIMER_AUTOR = 900_000;
+
+    @Param({"10000"})
+    private int filas;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private ImportacionService porFila;
+    private ImportacionService enLotes;
+    private byte[] csv;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(PublicacionesApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:importacion;DB_CLOSE_DELAY=-1",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "fotos.storage=filesystem")
+                .run();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        porFila = servicio(1, 1);
+        enLotes = servicio(1000, 100);
+        csv = csv(filas);
+    }
+
+    @Setup(Level.Invocation)
+    public void borrarImportadas() {
+        jdbcTemplate.update("DELETE FROM publicaciones WHERE id_autor >= ?", PRIMER_AUTOR);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ImportacionResultadoDTO porFila() throws Exception {
+        return porFila.importar(new ByteArrayInputStream(csv), ImportacionService.Formato.CSV);
+    }
+
+    @Benchmark
+    public ImportacionResultadoDTO enLotes() throws Exception {
+        return enLotes.importar(new ByteArrayInputStream(csv), ImportacionService.Formato.CSV);
+    }
+
+    private ImportacionService servicio(int lote, int flushCada) {
+        ImportacionService servicio = new ImportacionService(context.getBean(PlatformTransactionManager.class),
+                jdbcTemplate, context.getBean(EstadoRegistry.class), context.getBean(PublicacionSecuencia.class),
+                context.getBean(PublicacionSearchIndex.class), context.getBean(PublicadosFeed.class),
+                context.getBean(Validator.class), context.getBean(ObjectMapper.class), lote, flushCada, false, 1000);
+        // Inyecta el EntityManager compartido, como en el bean
+        context.getAutowireCapableBeanFactory().autowireBean(servicio);
+        return servicio;
+    }
+
+    private static byte[] csv(int filas) {
+        Random random = new Random(42);
+        StringBuilder csv = new StringBuilder("titulo,descripcion,precio,idAutor,estadoId,urlFoto\n");
+        for (int i = 0; i < filas; i++) {
+            csv.append("\"Producto ").append(i).append(", usado\",")
+                    .append("\"Descripción de prueba número ").append(i).append("\",")
+                    .append(1000 * (1 + random.nextInt(500))).append(',')
+                    .append(PRIMER_AUTOR + random.nextInt(1000)).append(',')
+                    .append(1 + random.nextInt(3)).append(',')
+                    .append(random.nextBoolean() ? "https://fotos/" + Long.toHexString(random.nextLong()) + ".jpg" : "")
+                    .append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,50 @@
+package com.taller.publicaciones.service;
+
+import com.taller.publicaciones.benchmark.Datos;
+import com.taller.publicaciones.model.Intercambio;
+import com.taller.publicaciones.model.IntercambioResponseDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+// Conversión de una bandeja de 50 ofertas a IntercambioResponseDTO, como en getOfertasRecibidas/Enviadas.
+// En el paquete del servicio porque convertToResponseDTO no es público.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntercambioConversionBenchmark {
+
+    private IntercambioService intercambioService;
+    private List<Intercambio> intercambios;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        intercambioService = new IntercambioService();
+        intercambios = LongStream.rangeClosed(1, 50)
+                .mapToObj(id -> Datos.intercambio(random, id))
+                .toList();
+    }
+
+    @Benchmark
+    public List<IntercambioResponseDTO> convertToResponseDTO() {
+        return intercambios.stream()
+                .map(intercambioService::convertToResponseDTO)
+                .toList();
+    }
+}
@@ -0,0 +1,80 @@
+package com.taller.publicaciones.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.taller.publicaciones.model.Comentario;
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.model.Publicacion;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Caché de segundo nivel de Hibernate (JCache sobre Caffeine) para Publicacion, Comentario y Estado.
+// Hibernate invalida solo: cada escritura por la sesión actualiza la entrada de esa entidad. Un UPDATE
+// masivo (JPQL) vacía la región entera, por eso las escrituras frecuentes sobre publicaciones son
+// actualizaciones de entidad (PublicacionEscrituraRepository).
+// La caché de consultas es opt-in (cache.l2.consultas): cualquier escritura a una tabla invalida todas las
+// consultas cacheadas sobre ella, y publicaciones y comentarios se escriben todo el tiempo (fotos que
+// terminan de subirse, intercambios, comentarios nuevos). Activarla sólo si la tasa de aciertos de la
+// región "consultas" (GET /api/cache/estadisticas o hibernate_cache_query_* en Prometheus) lo justifica.
+@Configuration
+@ConditionalOnProperty(name = "cache.l2.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class CacheConfig {
+
+    public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    public static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${cache.l2.max-entradas:10000}") long maxEntradas,
+            @Value("${cache.l2.max-consultas:2000}") long maxConsultas,
+            @Value("${cache.l2.ttl-segundos:600}") long ttlSegundos) {
+        // URI propia: cada contexto de Spring tiene su CacheManager y no comparte entradas con otro
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("publicaciones-l2-" + UUID.randomUUID()), getClass().getClassLoader(), new Properties());
+        for (Class<?> entidad : new Class<?>[]{Publicacion.class, Comentario.class, Estado.class}) {
+            cacheManager.createCache(entidad.getName(), region(maxEntradas, ttlSegundos));
+        }
+        cacheManager.createCache(QUERY_RESULTS_REGION, region(maxConsultas, ttlSegundos));
+        // Los timestamps no deben expirar ni desalojarse: son los que invalidan la caché de consultas
+        cacheManager.createCache(TIMESTAMPS_REGION, new CaffeineConfiguration<>());
+        log.info("Second-level cache enabled: {} entries per entity region, {} query results, TTL {} s",
+                maxEntradas, maxConsultas, ttlSegundos);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(
+            CacheManager hibernateCacheManager,
+            @Value("${cache.l2.consultas:false}") boolean consultas) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, consultas);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "create-warn");
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxEntradas, long ttlSegundos) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntradas));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSegundos)));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
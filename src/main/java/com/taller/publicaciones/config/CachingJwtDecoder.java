@@ -0,0 +1,127 @@
+package com.taller.publicaciones.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Recuerda los tokens ya validados: el mismo bearer llega cientos de veces por minuto desde una sesión
+// del SPA y no hace falta repetir la firma ni el parseo de claims. La clave es el SHA-256 del token (no
+// se guardan tokens) y cada entrada vence con el exp del token, o antes si pasa maxTtl. Sólo se guarda
+// lo que el delegado aceptó; un token inválido se vuelve a rechazar completo cada vez.
+// Mide el tiempo de reloj de cada validación completa y reporta, por cada acierto, cuánto se ahorró.
+// Es tiempo de reloj y no de CPU: con hilos virtuales getCurrentThreadCpuTime() devuelve -1.
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final Clock clock;
+    private final Duration maxTtl;
+    private final Cache<String, Jwt> validados;
+    private final Counter aciertos;
+    private final Counter fallos;
+    private final Timer tiempoValidacion;
+    private final Timer tiempoAhorrado;
+
+    // Promedio móvil de una validación completa, en ns: es lo que tardaría un acierto si no hubiera caché
+    private final AtomicLong validacionPromedio = new AtomicLong();
+
+    public CachingJwtDecoder(JwtDecoder delegate, long maxTokens, Duration maxTtl, Clock clock, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.clock = clock;
+        this.maxTtl = maxTtl;
+        this.validados = Caffeine.newBuilder()
+                .maximumSize(maxTokens)
+                .expireAfter(new Expiry<String, Jwt>() {
+                    @Override
+                    public long expireAfterCreate(String digest, Jwt jwt, long currentTime) {
+                        return vigencia(jwt).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String digest, Jwt jwt, long currentTime, long currentDuration) {
+                        return vigencia(jwt).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String digest, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.aciertos = resultado(meterRegistry, "hit");
+        this.fallos = resultado(meterRegistry, "miss");
+        this.tiempoValidacion = Timer.builder("jwt.validacion.duracion")
+                .description("Tiempo de reloj de una validación completa (firma y claims)")
+                .register(meterRegistry);
+        this.tiempoAhorrado = Timer.builder("jwt.cache.tiempo.ahorrado")
+                .description("Tiempo de reloj ahorrado por cada request resuelto desde la caché")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        long inicio = System.nanoTime();
+        String digest = digest(token);
+        Jwt jwt = validados.getIfPresent(digest);
+        if (jwt != null && jwt.getExpiresAt().isAfter(clock.instant())) {
+            aciertos.increment();
+            long ahorrado = validacionPromedio.get() - (System.nanoTime() - inicio);
+            if (ahorrado > 0) {
+                tiempoAhorrado.record(ahorrado, TimeUnit.NANOSECONDS);
+            }
+            return jwt;
+        }
+
+        fallos.increment();
+        jwt = delegate.decode(token);
+        long costo = System.nanoTime() - inicio;
+        tiempoValidacion.record(costo, TimeUnit.NANOSECONDS);
+        validacionPromedio.updateAndGet(promedio -> promedio == 0 ? costo : promedio + (costo - promedio) / 16);
+        if (jwt.getExpiresAt() != null) {
+            validados.put(digest, jwt);
+        }
+        return jwt;
+    }
+
+    public long getValidacionPromedioNanos() {
+        return validacionPromedio.get();
+    }
+
+    private Duration vigencia(Jwt jwt) {
+        Duration restante = Duration.between(clock.instant(), jwt.getExpiresAt());
+        if (restante.isNegative()) {
+            return Duration.ZERO;
+        }
+        return restante.compareTo(maxTtl) < 0 ? restante : maxTtl;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Counter resultado(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("jwt.cache")
+                .description("Tokens resueltos desde la caché de validación")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,72 @@
+package com.taller.publicaciones.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+// Cuenta las sentencias que Hibernate prepara en el hilo actual mientras hay una medición abierta
+// (PresupuestoSqlFilter abre una por request). Las consultas resueltas desde la caché de segundo nivel
+// no llegan a la base y no cuentan; lo que corre por JdbcTemplate tampoco pasa por aquí.
+public class ContadorSentencias implements StatementInspector {
+
+    private static final ThreadLocal<Medicion> ACTUAL = new ThreadLocal<>();
+
+    // "in (?,?,?)" y "in (?)" son la misma forma; sólo cambia cuántos ids llegaron
+    private static final Pattern LISTA_PARAMETROS = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    public static Medicion iniciar() {
+        Medicion medicion = new Medicion();
+        ACTUAL.set(medicion);
+        return medicion;
+    }
+
+    public static void terminar() {
+        ACTUAL.remove();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Medicion medicion = ACTUAL.get();
+        if (medicion != null) {
+            medicion.registrar(sql);
+        }
+        return sql;
+    }
+
+    static String forma(String sql) {
+        String forma = ESPACIOS.matcher(sql.trim()).replaceAll(" ");
+        return LISTA_PARAMETROS.matcher(forma).replaceAll("(?)");
+    }
+
+    public static final class Medicion {
+
+        private int total;
+        private final Map<String, Integer> selectsPorForma = new HashMap<>();
+
+        void registrar(String sql) {
+            total++;
+            // Sólo los SELECT: un lote de INSERT repetidos es lo esperado, un SELECT repetido es un N+1
+            String forma = forma(sql);
+            if (forma.regionMatches(true, 0, "select", 0, 6)) {
+                selectsPorForma.merge(forma, 1, Integer::sum);
+            }
+        }
+
+        public int total() {
+            return total;
+        }
+
+        // El SELECT que más veces se repitió con la misma forma, si hubo alguno
+        public Optional<Map.Entry<String, Integer>> masRepetida() {
+            return selectsPorForma.entrySet().stream().max(Map.Entry.comparingByValue());
+        }
+
+        public int repeticionesMaximas() {
+            return masRepetida().map(Map.Entry::getValue).orElse(0);
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package com.taller.publicaciones.config;
 
 import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.repository.ComentarioRepository;
+import com.taller.publicaciones.repository.ComentarioResumenRepository;
 import com.taller.publicaciones.repository.EstadoRepository;
+import com.taller.publicaciones.repository.IntercambioRepository;
+import com.taller.publicaciones.repository.PublicacionRepository;
+import com.taller.publicaciones.service.ComentarioService;
+import com.taller.publicaciones.service.EstadoRegistry;
+import com.taller.publicaciones.service.PublicacionSecuencia;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -10,15 +17,49 @@ import org.springframework.context.annotation.Configuration;
 public class DataInitializer {
 
     @Bean
-    CommandLineRunner initDatosIniciales(EstadoRepository estadoRepo) {
+    CommandLineRunner initDatosIniciales(EstadoRepository estadoRepo, EstadoRegistry estadoRegistry) {
         return args -> {
             if (estadoRepo.count() == 0) {
-                estadoRepo.save(new Estado(1, "Publicado"));
-                estadoRepo.save(new Estado(2, "Borrador"));
-                estadoRepo.save(new Estado(3, "Rechazado"));
-                estadoRepo.save(new Estado(4, "Aprobado"));
-                estadoRepo.save(new Estado(5, "Proceso"));
+                for (Estado.Tipo tipo : Estado.Tipo.values()) {
+                    estadoRepo.save(new Estado(tipo.getId(), tipo.getNombre()));
+                }
             }
+            estadoRegistry.load();
         };
     }
-} 
\ No newline at end of file
+
+    @Bean
+    CommandLineRunner initVersiones(PublicacionRepository publicacionRepo, IntercambioRepository intercambioRepo,
+                                    ComentarioRepository comentarioRepo) {
+        return args -> {
+            publicacionRepo.initializeMissingVersions();
+            intercambioRepo.initializeMissingVersions();
+            publicacionRepo.initializeMissingFechaModificacion();
+            comentarioRepo.initializeMissingFechaModificacion();
+        };
+    }
+
+    // Las bases de cuando el id era IDENTITY no tienen la secuencia, y sus publicaciones (y las insertadas
+    // por JDBC con id propio) no la avanzaron
+    @Bean
+    CommandLineRunner initSecuenciaPublicaciones(PublicacionSecuencia publicacionSecuencia) {
+        return args -> {
+            publicacionSecuencia.migrar();
+            publicacionSecuencia.alinear();
+        };
+    }
+
+    @Bean
+    CommandLineRunner initResumenComentarios(ComentarioResumenRepository resumenRepo, ComentarioRepository comentarioRepo,
+                                             ComentarioService comentarioService) {
+        return args -> {
+            // La primera vez se calculan todos; luego ComentarioService los mantiene al día y sólo faltan
+            // los de publicaciones insertadas por fuera de la aplicación
+            if (resumenRepo.count() == 0 && comentarioRepo.count() > 0) {
+                comentarioService.rebuildResumenes();
+            } else {
+                comentarioService.crearResumenesFaltantes();
+            }
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package com.taller.publicaciones.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Superficie de métricas en /actuator/prometheus. Además de lo que publica Actuator por su cuenta
+// (http.server.requests, hikaricp.connections.*, hibernate.*, jvm.*), los servicios registran:
+//  - s3.upload / s3.upload.bytes: latencia, tamaño y resultado de cada subida (S3AsyncObjectStorage)
+//  - intercambios.transiciones: una serie por cada cambio de EstadoIntercambio confirmado en la base
+//  - intercambios.conflictos: transiciones que chocaron con otra concurrente y se reintentaron
+//  - http.server.requests.sql / sql.presupuesto.excedido: sentencias por request (ver PresupuestoSqlFilter)
+@Configuration
+@PropertySource("classpath:metricas.properties")
+public class MetricsConfig {
+
+    private static final String SIN_HANDLER = "none";
+
+    // Agrega a http.server.requests el método del controller que atendió el request, p. ej.
+    // handler="PublicacionController.getPublicacionById"; la uri sola no distingue dos métodos con la misma ruta
+    @Bean
+    public ServerRequestObservationConvention handlerObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                return super.getLowCardinalityKeyValues(context).and(handler(context));
+            }
+        };
+    }
+
+    private static KeyValue handler(ServerRequestObservationContext context) {
+        return KeyValue.of("handler", handler(context.getCarrier()));
+    }
+
+    static String handler(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod method) {
+            return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        }
+        return SIN_HANDLER;
+    }
+}
@@ -0,0 +1,33 @@
+package com.taller.publicaciones.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnProperty(name = "sql.presupuesto.habilitado", havingValue = "true", matchIfMissing = true)
+public class PresupuestoSqlConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new ContadorSentencias());
+    }
+
+    // Primero en la cadena, para que la medición cubra todo el request (seguridad, controller y serialización)
+    @Bean
+    public FilterRegistrationBean<PresupuestoSqlFilter> presupuestoSqlFilter(
+            MeterRegistry meterRegistry,
+            @Value("${sql.presupuesto.max-sentencias:20}") int maxSentencias,
+            @Value("${sql.presupuesto.max-repeticiones:5}") int maxRepeticiones) {
+        FilterRegistrationBean<PresupuestoSqlFilter> registration = new FilterRegistrationBean<>(
+                new PresupuestoSqlFilter(meterRegistry, maxSentencias, maxRepeticiones));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,82 @@
+package com.taller.publicaciones.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+// Mide cuántas sentencias SQL corre cada request, incluidas las que dispara Jackson al serializar
+// asociaciones lazy (open-in-view), y avisa cuando un request pasa el presupuesto o repite la misma
+// consulta muchas veces (un N+1). La medición queda en el atributo MEDICION para que los tests la revisen.
+@Slf4j
+public class PresupuestoSqlFilter extends OncePerRequestFilter {
+
+    public static final String MEDICION = PresupuestoSqlFilter.class.getName() + ".MEDICION";
+
+    private static final int LARGO_MAXIMO_SQL = 300;
+
+    private final MeterRegistry meterRegistry;
+    private final int maxSentencias;
+    private final int maxRepeticiones;
+
+    public PresupuestoSqlFilter(MeterRegistry meterRegistry, int maxSentencias, int maxRepeticiones) {
+        this.meterRegistry = meterRegistry;
+        this.maxSentencias = maxSentencias;
+        this.maxRepeticiones = maxRepeticiones;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContadorSentencias.Medicion medicion = ContadorSentencias.iniciar();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ContadorSentencias.terminar();
+            request.setAttribute(MEDICION, medicion);
+            evaluar(request, medicion);
+        }
+    }
+
+    private void evaluar(HttpServletRequest request, ContadorSentencias.Medicion medicion) {
+        String handler = MetricsConfig.handler(request);
+        DistributionSummary.builder("http.server.requests.sql")
+                .description("Sentencias SQL por request")
+                .tag("handler", handler)
+                .register(meterRegistry)
+                .record(medicion.total());
+
+        if (medicion.total() > maxSentencias) {
+            excedido(handler, "total");
+            log.warn("{} {} ({}) ran {} SQL statements, budget is {}",
+                    request.getMethod(), request.getRequestURI(), handler, medicion.total(), maxSentencias);
+        }
+        if (medicion.repeticionesMaximas() > maxRepeticiones) {
+            excedido(handler, "repeticiones");
+            Map.Entry<String, Integer> repetida = medicion.masRepetida().orElseThrow();
+            log.warn("{} {} ({}) ran the same query {} times, likely an N+1: {}",
+                    request.getMethod(), request.getRequestURI(), handler, repetida.getValue(), recortar(repetida.getKey()));
+        }
+    }
+
+    private void excedido(String handler, String motivo) {
+        Counter.builder("sql.presupuesto.excedido")
+                .description("Requests que pasaron el presupuesto de sentencias SQL")
+                .tag("handler", handler)
+                .tag("motivo", motivo)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String recortar(String sql) {
+        return sql.length() <= LARGO_MAXIMO_SQL ? sql : sql.substring(0, LARGO_MAXIMO_SQL) + "...";
+    }
+}
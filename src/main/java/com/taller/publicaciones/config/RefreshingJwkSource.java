@@ -0,0 +1,177 @@
+package com.taller.publicaciones.config;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Claves públicas del proveedor de identidad, refrescadas en segundo plano (stale-while-revalidate):
+//  - un hilo las vuelve a descargar cada refresh; si el proveedor falla o tarda se siguen usando las anteriores
+//  - si un request llega con el juego más viejo que refresh, dispara otro refresco pero no lo espera
+//  - sólo se descarga en el camino del request cuando no hay nada que usar: al inicio, si el juego pasó
+//    maxStale, o si el token trae un kid desconocido (rotación de claves), como mucho una vez cada minRefetch
+@Slf4j
+public class RefreshingJwkSource implements JWKSource<SecurityContext>, AutoCloseable {
+
+    private record Claves(JWKSet jwkSet, long obtenidoEn) {
+    }
+
+    private final URI uri;
+    private final HttpClient httpClient;
+    private final Duration timeout;
+    private final long refreshNanos;
+    private final long maxStaleNanos;
+    private final long minRefetchNanos;
+    private final ScheduledExecutorService refresher;
+    private final AtomicBoolean refrescando = new AtomicBoolean();
+    private final ReentrantLock descarga = new ReentrantLock();
+    private final Counter refrescosOk;
+    private final Counter refrescosFallidos;
+
+    private volatile Claves actual;
+    private volatile long ultimoIntento;
+
+    public RefreshingJwkSource(URI uri, Duration refresh, Duration maxStale, Duration minRefetch, Duration timeout,
+                               MeterRegistry meterRegistry) {
+        this.uri = uri;
+        this.timeout = timeout;
+        this.refreshNanos = refresh.toNanos();
+        this.maxStaleNanos = maxStale.toNanos();
+        this.minRefetchNanos = minRefetch.toNanos();
+        this.ultimoIntento = System.nanoTime() - minRefetchNanos - 1;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "jwks-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.refrescosOk = refrescos(meterRegistry, "ok");
+        this.refrescosFallidos = refrescos(meterRegistry, "error");
+        Gauge.builder("jwt.jwks.edad", this, source -> source.edadNanos() / 1e9)
+                .description("Segundos desde la última descarga exitosa del JWK set")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    // Descarga inicial y refresco periódico, ambos fuera del camino de los requests
+    public void start() {
+        refresher.scheduleWithFixedDelay(this::refrescar, 0, refreshNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException {
+        Claves claves = actual;
+        if (claves == null || edadNanos(claves) > maxStaleNanos) {
+            claves = descargarAhora(claves);
+        } else if (edadNanos(claves) > refreshNanos) {
+            refrescarEnSegundoPlano();
+        }
+        List<JWK> encontradas = jwkSelector.select(claves.jwkSet());
+        if (encontradas.isEmpty() && System.nanoTime() - ultimoIntento > minRefetchNanos) {
+            // Puede ser una clave recién publicada: se vuelve a pedir el juego una vez
+            encontradas = jwkSelector.select(descargarAhora(claves).jwkSet());
+        }
+        return encontradas;
+    }
+
+    private Claves descargarAhora(Claves vistas) throws KeySourceException {
+        descarga.lock();
+        try {
+            // Otro hilo pudo haberlas descargado mientras éste esperaba
+            if (actual != vistas && actual != null) {
+                return actual;
+            }
+            return descargar();
+        } catch (Exception e) {
+            if (vistas != null) {
+                log.warn("Could not refresh JWK set from {}, keeping the previous one: {}", uri, e.getMessage());
+                return vistas;
+            }
+            throw new KeySourceException("Could not retrieve JWK set from " + uri, e);
+        } finally {
+            descarga.unlock();
+        }
+    }
+
+    private void refrescarEnSegundoPlano() {
+        if (refrescando.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                try {
+                    refrescar();
+                } finally {
+                    refrescando.set(false);
+                }
+            });
+        }
+    }
+
+    private void refrescar() {
+        descarga.lock();
+        try {
+            descargar();
+        } catch (Exception e) {
+            log.warn("Could not refresh JWK set from {}: {}", uri, e.getMessage());
+        } finally {
+            descarga.unlock();
+        }
+    }
+
+    private Claves descargar() throws Exception {
+        ultimoIntento = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(
+                    HttpRequest.newBuilder(uri).timeout(timeout).header("Accept", "application/json").GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("HTTP " + response.statusCode());
+            }
+            Claves claves = new Claves(JWKSet.parse(response.body()), System.nanoTime());
+            actual = claves;
+            refrescosOk.increment();
+            log.debug("JWK set refreshed from {}: {} keys", uri, claves.jwkSet().getKeys().size());
+            return claves;
+        } catch (Exception e) {
+            refrescosFallidos.increment();
+            throw e;
+        }
+    }
+
+    private long edadNanos() {
+        Claves claves = actual;
+        return claves == null ? 0 : edadNanos(claves);
+    }
+
+    private static long edadNanos(Claves claves) {
+        return System.nanoTime() - claves.obtenidoEn();
+    }
+
+    private static Counter refrescos(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("jwt.jwks.refrescos")
+                .description("Descargas del JWK set")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+}
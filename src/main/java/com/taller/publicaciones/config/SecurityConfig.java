@@ -6,6 +6,10 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -13,8 +17,15 @@ import org.springframework.security.oauth2.server.resource.authentication.JwtAut
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.beans.factory.annotation.Value;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import io.micrometer.core.instrument.MeterRegistry;
 
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 @EnableWebSecurity
@@ -23,6 +34,10 @@ public class SecurityConfig {
     @Value("${azure.ad.b2c.jwk-set-uri}")
     private String jwkSetUri;
 
+    // Ver metricas.properties; detrás de un proxy requiere server.forward-headers-strategy para ver la IP real
+    @Value("${metricas.prometheus.redes-permitidas:127.0.0.1/32,::1/128}")
+    private List<String> redesPrometheus;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -32,6 +47,9 @@ public class SecurityConfig {
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/").permitAll()
                 .requestMatchers("/health").permitAll()
+                // Scraping de Prometheus sin token, sólo desde las redes permitidas; el resto de /actuator pide autenticación
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/prometheus").access(desdeRedes(redesPrometheus))
                 .requestMatchers("/api/comentarios/**").permitAll()
                 .requestMatchers("/api/estados/**").permitAll()
                 .requestMatchers("/api/publicaciones/test").permitAll()
@@ -46,9 +64,38 @@ public class SecurityConfig {
         return http.build();
     }
 
+    private static AuthorizationManager<RequestAuthorizationContext> desdeRedes(List<String> redes) {
+        List<IpAddressMatcher> matchers = redes.stream().map(String::trim).map(IpAddressMatcher::new).toList();
+        return (authentication, context) -> new AuthorizationDecision(
+                matchers.stream().anyMatch(matcher -> matcher.matches(context.getRequest())));
+    }
+
+    // Claves del proveedor refrescadas en segundo plano; un proveedor lento no queda en el camino del request
+    @Bean(destroyMethod = "close")
+    public RefreshingJwkSource jwkSource(
+            MeterRegistry meterRegistry,
+            @Value("${jwt.jwks.refresh-segundos:300}") long refreshSegundos,
+            @Value("${jwt.jwks.max-stale-segundos:86400}") long maxStaleSegundos,
+            @Value("${jwt.jwks.min-refetch-segundos:30}") long minRefetchSegundos,
+            @Value("${jwt.jwks.timeout-ms:2000}") long timeoutMs) {
+        RefreshingJwkSource jwkSource = new RefreshingJwkSource(URI.create(jwkSetUri),
+                Duration.ofSeconds(refreshSegundos), Duration.ofSeconds(maxStaleSegundos),
+                Duration.ofSeconds(minRefetchSegundos), Duration.ofMillis(timeoutMs), meterRegistry);
+        jwkSource.start();
+        return jwkSource;
+    }
+
     @Bean
-    public JwtDecoder jwtDecoder() {
-        return NimbusJwtDecoder.withJwkSetUri(jwkSetUri).build();
+    public JwtDecoder jwtDecoder(
+            RefreshingJwkSource jwkSource,
+            MeterRegistry meterRegistry,
+            @Value("${jwt.cache.max-tokens:10000}") long maxTokens,
+            @Value("${jwt.cache.max-ttl-segundos:600}") long maxTtlSegundos) {
+        NimbusJwtDecoder nimbus = NimbusJwtDecoder.withJwkSetUri(jwkSetUri)
+                .jwtProcessorCustomizer(processor -> processor.setJWSKeySelector(
+                        new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource)))
+                .build();
+        return new CachingJwtDecoder(nimbus, maxTokens, Duration.ofSeconds(maxTtlSegundos), Clock.systemUTC(), meterRegistry);
     }
 
     @Bean
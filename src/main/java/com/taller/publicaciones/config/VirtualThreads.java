@@ -0,0 +1,56 @@
+package com.taller.publicaciones.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Modo de hilos virtuales, opt-in con spring.threads.virtual.enabled=true y sólo en JDK 21 o posterior.
+// Con el modo activo Spring Boot atiende los requests de Tomcat en hilos virtuales, y los pools propios
+// que pasan el tiempo bloqueados (las subidas al almacenamiento) toman sus hilos de threadFactory().
+// Los pools de CPU (rendiciones) siguen con hilos de plataforma: ahí los hilos virtuales no aportan.
+// En un JDK anterior la propiedad no tiene efecto y se avisa al arrancar.
+@Component
+@Slf4j
+public class VirtualThreads {
+
+    private final boolean requested;
+    private final boolean active;
+
+    public VirtualThreads(@Value("${spring.threads.virtual.enabled:false}") boolean requested) {
+        this.requested = requested;
+        this.active = requested && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE);
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public ThreadFactory threadFactory(String prefix) {
+        if (active) {
+            return new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory();
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void logMode() {
+        if (active) {
+            log.info("Virtual threads enabled for request handling and photo uploads");
+        } else if (requested) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads, using platform threads",
+                    JavaVersion.getJavaVersion());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.taller.publicaciones.controller;
+
+import com.taller.publicaciones.model.CacheRegionDTO;
+import com.taller.publicaciones.service.CacheEstadisticasService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final CacheEstadisticasService cacheEstadisticasService;
+
+    @GetMapping("/estadisticas")
+    public ResponseEntity<List<CacheRegionDTO>> getEstadisticas() {
+        return ResponseEntity.ok(cacheEstadisticasService.getEstadisticas());
+    }
+}
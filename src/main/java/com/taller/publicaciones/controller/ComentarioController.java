@@ -1,17 +1,28 @@
 package com.taller.publicaciones.controller;
 
 import com.taller.publicaciones.model.Comentario;
+import com.taller.publicaciones.model.ComentarioResumen;
+import com.taller.publicaciones.model.CursorPageDTO;
+import com.taller.publicaciones.model.IngestaComentarioDTO;
+import com.taller.publicaciones.model.KeysetCursor;
+import com.taller.publicaciones.model.VersionRecurso;
+import com.taller.publicaciones.service.ComentarioIngestaService;
 import com.taller.publicaciones.service.ComentarioService;
+import com.taller.publicaciones.service.NdjsonWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +34,7 @@ import java.util.Optional;
 public class ComentarioController {
 
     private final ComentarioService comentarioService;
+    private final ComentarioIngestaService comentarioIngestaService;
 
     @GetMapping
     public ResponseEntity<List<Comentario>> getAllComentarios() {
@@ -31,17 +43,37 @@ public class ComentarioController {
         return ResponseEntity.ok(comentarios);
     }
 
+    @GetMapping(value = "/export", produces = NdjsonWriter.MEDIA_TYPE)
+    public void exportComentarios(HttpServletResponse response) throws IOException {
+        log.info("Exporting all comments as NDJSON");
+        response.setContentType(NdjsonWriter.MEDIA_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        long count = comentarioService.exportNdjson(response.getOutputStream());
+        log.info("Exported {} comments", count);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Comentario> getComentarioById(@PathVariable Long id) {
+    public ResponseEntity<Comentario> getComentarioById(@PathVariable Long id, ServletWebRequest request) {
         log.info("Getting comment with ID: {}", id);
+        Optional<VersionRecurso> version = comentarioService.findVersion(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (RespuestaCondicional.noModificado(request, version.get())) {
+            return null;
+        }
         Optional<Comentario> comentario = comentarioService.findById(id);
         return comentario.map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/publicacion/{idPublicacion}")
-    public ResponseEntity<List<Comentario>> getComentariosByPublicacion(@PathVariable Long idPublicacion) {
+    public ResponseEntity<List<Comentario>> getComentariosByPublicacion(@PathVariable Long idPublicacion,
+                                                                        ServletWebRequest request) {
         log.info("Getting comments for publication: {}", idPublicacion);
+        if (RespuestaCondicional.noModificado(request, comentarioService.findVersionByIdPublicacion(idPublicacion))) {
+            return null;
+        }
         List<Comentario> comentarios = comentarioService.findByIdPublicacion(idPublicacion);
         return ResponseEntity.ok(comentarios);
     }
@@ -57,6 +89,21 @@ public class ComentarioController {
         return ResponseEntity.ok(comentarios);
     }
 
+    @GetMapping("/publicacion/{idPublicacion}/cursor")
+    public ResponseEntity<CursorPageDTO<Comentario>> getComentariosByPublicacionByCursor(
+            @PathVariable Long idPublicacion,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        log.info("Getting comments for publication: {}, after cursor: {}, size: {}", idPublicacion, cursor, size);
+        try {
+            KeysetCursor after = cursor != null ? KeysetCursor.decode(cursor) : null;
+            return ResponseEntity.ok(CursorPageDTO.of(comentarioService.findByIdPublicacionAfter(idPublicacion, after, size), ComentarioController::keyOf));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid cursor: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/autor/{idAutor}")
     public ResponseEntity<List<Comentario>> getComentariosByAutor(@PathVariable Long idAutor) {
         log.info("Getting comments by author: {}", idAutor);
@@ -75,6 +122,21 @@ public class ComentarioController {
         return ResponseEntity.ok(comentarios);
     }
 
+    @GetMapping("/autor/{idAutor}/cursor")
+    public ResponseEntity<CursorPageDTO<Comentario>> getComentariosByAutorByCursor(
+            @PathVariable Long idAutor,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        log.info("Getting comments by author: {}, after cursor: {}, size: {}", idAutor, cursor, size);
+        try {
+            KeysetCursor after = cursor != null ? KeysetCursor.decode(cursor) : null;
+            return ResponseEntity.ok(CursorPageDTO.of(comentarioService.findByIdAutorAfter(idAutor, after, size), ComentarioController::keyOf));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid cursor: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/publicacion/{idPublicacion}/count")
     public ResponseEntity<Long> getComentariosCountByPublicacion(@PathVariable Long idPublicacion) {
         log.info("Getting comment count for publication: {}", idPublicacion);
@@ -82,6 +144,12 @@ public class ComentarioController {
         return ResponseEntity.ok(count);
     }
 
+    @GetMapping("/publicacion/{idPublicacion}/resumen")
+    public ResponseEntity<ComentarioResumen> getResumenByPublicacion(@PathVariable Long idPublicacion) {
+        log.info("Getting rating summary for publication: {}", idPublicacion);
+        return ResponseEntity.ok(comentarioService.getResumen(idPublicacion));
+    }
+
     @PostMapping
     public ResponseEntity<Comentario> createComentario(@Valid @RequestBody Comentario comentario) {
         log.info("Creating new comment for publication: {}", comentario.getIdPublicacion());
@@ -94,6 +162,26 @@ public class ComentarioController {
         }
     }
 
+    // Para ráfagas: encola el comentario y responde 202 con un ticket; se guarda en el próximo lote
+    @PostMapping("/ingesta")
+    public ResponseEntity<IngestaComentarioDTO> ingestComentario(@Valid @RequestBody Comentario comentario) {
+        return comentarioIngestaService.aceptar(comentario)
+                .map(ticket -> ResponseEntity.accepted()
+                        .header(HttpHeaders.LOCATION, "/api/comentarios/ingesta/" + ticket)
+                        .body(new IngestaComentarioDTO(ticket, IngestaComentarioDTO.EstadoIngesta.PENDIENTE, null, null)))
+                .orElseGet(() -> {
+                    log.warn("Comment ingestion queue full, rejecting comment for publication: {}", comentario.getIdPublicacion());
+                    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build();
+                });
+    }
+
+    @GetMapping("/ingesta/{ticket}")
+    public ResponseEntity<IngestaComentarioDTO> getIngesta(@PathVariable String ticket) {
+        return comentarioIngestaService.consultar(ticket)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Comentario> updateComentario(
             @PathVariable Long id,
@@ -119,4 +207,8 @@ public class ComentarioController {
             return ResponseEntity.notFound().build();
         }
     }
-} 
\ No newline at end of file
+
+    private static KeysetCursor keyOf(Comentario comentario) {
+        return new KeysetCursor(comentario.getFechaCreacion(), comentario.getId());
+    }
+}
@@ -1,7 +1,7 @@
 package com.taller.publicaciones.controller;
 
 import com.taller.publicaciones.model.Estado;
-import com.taller.publicaciones.repository.EstadoRepository;
+import com.taller.publicaciones.service.EstadoRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,16 +14,16 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class EstadoController {
 
-    private final EstadoRepository estadoRepository;
+    private final EstadoRegistry estadoRegistry;
 
     @GetMapping
     public ResponseEntity<List<Estado>> getAllEstados() {
-        return ResponseEntity.ok(estadoRepository.findAll());
+        return ResponseEntity.ok(estadoRegistry.findAll());
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Estado> getEstadoById(@PathVariable Integer id) {
-        Optional<Estado> estado = estadoRepository.findById(id);
+        Optional<Estado> estado = estadoRegistry.findById(id);
         return estado.map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -1,8 +1,11 @@
 package com.taller.publicaciones.controller;
 
+import com.taller.publicaciones.grafo.GrafoIntercambios;
 import com.taller.publicaciones.model.*;
+import com.taller.publicaciones.service.ConflictoConcurrenciaException;
 import com.taller.publicaciones.service.IntercambioService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import lombok.extern.slf4j.Slf4j;
@@ -15,9 +18,14 @@ import java.util.List;
 @Slf4j
 public class IntercambioController {
 
+    private static final int MAX_CICLOS = 50;
+
     @Autowired
     private IntercambioService intercambioService;
 
+    @Autowired
+    private GrafoIntercambios grafoIntercambios;
+
     @GetMapping("/test")
     public ResponseEntity<String> test() {
         log.info("Endpoint de prueba de intercambios llamado");
@@ -44,6 +52,9 @@ public class IntercambioController {
             Intercambio intercambio = intercambioService.aceptarOferta(id);
             log.info("Oferta aceptada exitosamente: {}", intercambio.getId());
             return ResponseEntity.ok(intercambio);
+        } catch (ConflictoConcurrenciaException e) {
+            log.warn("Conflicto de concurrencia en intercambio {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (RuntimeException e) {
             log.error("Error al aceptar oferta con ID {}: {}", id, e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -55,6 +66,9 @@ public class IntercambioController {
         try {
             Intercambio intercambio = intercambioService.rechazarOferta(id);
             return ResponseEntity.ok(intercambio);
+        } catch (ConflictoConcurrenciaException e) {
+            log.warn("Conflicto de concurrencia en intercambio {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -65,6 +79,9 @@ public class IntercambioController {
         try {
             Intercambio intercambio = intercambioService.confirmarIntercambio(id, userId);
             return ResponseEntity.ok(intercambio);
+        } catch (ConflictoConcurrenciaException e) {
+            log.warn("Conflicto de concurrencia en intercambio {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -75,6 +92,9 @@ public class IntercambioController {
         try {
             Intercambio intercambio = intercambioService.revertirIntercambio(id, userId);
             return ResponseEntity.ok(intercambio);
+        } catch (ConflictoConcurrenciaException e) {
+            log.warn("Conflicto de concurrencia en intercambio {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -91,4 +111,50 @@ public class IntercambioController {
         List<IntercambioResponseDTO> ofertas = intercambioService.getOfertasEnviadas(userId);
         return ResponseEntity.ok(ofertas);
     }
+
+    // Intercambios entre 3 a 5 usuarios que cerrarían con las ofertas pendientes actuales
+    @GetMapping("/ciclos/usuario/{userId}")
+    public ResponseEntity<List<CicloIntercambioDTO>> getCiclosSugeridos(@PathVariable Long userId,
+                                                                        @RequestParam(defaultValue = "10") int limite) {
+        if (limite < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Hasta la primera carga del grafo, una lista vacía sería engañosa
+        if (!grafoIntercambios.isListo()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(grafoIntercambios.ciclosDeUsuario(userId, Math.min(limite, MAX_CICLOS)));
+    }
+
+    @GetMapping("/ofertas-recibidas/{userId}/cursor")
+    public ResponseEntity<CursorPageDTO<IntercambioResumenDTO>> getOfertasRecibidasByCursor(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            KeysetCursor after = cursor != null ? KeysetCursor.decode(cursor) : null;
+            return ResponseEntity.ok(CursorPageDTO.of(intercambioService.getOfertasRecibidas(userId, after, size), IntercambioController::keyOf));
+        } catch (IllegalArgumentException e) {
+            log.error("Cursor inválido: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/ofertas-enviadas/{userId}/cursor")
+    public ResponseEntity<CursorPageDTO<IntercambioResumenDTO>> getOfertasEnviadasByCursor(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            KeysetCursor after = cursor != null ? KeysetCursor.decode(cursor) : null;
+            return ResponseEntity.ok(CursorPageDTO.of(intercambioService.getOfertasEnviadas(userId, after, size), IntercambioController::keyOf));
+        } catch (IllegalArgumentException e) {
+            log.error("Cursor inválido: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private static KeysetCursor keyOf(IntercambioResumenDTO intercambio) {
+        return new KeysetCursor(intercambio.getFechaCreacion(), intercambio.getId());
+    }
 } 
\ No newline at end of file
@@ -1,22 +1,44 @@
 package com.taller.publicaciones.controller;
 
+import com.taller.publicaciones.model.CampoPublicacion;
+import com.taller.publicaciones.model.CursorPageDTO;
+import com.taller.publicaciones.model.ImportacionResultadoDTO;
+import com.taller.publicaciones.model.KeysetCursor;
 import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.model.PublicacionBatchDTO;
 import com.taller.publicaciones.model.PublicacionUpdateDTO;
+import com.taller.publicaciones.model.VersionRecurso;
+import com.taller.publicaciones.repository.PublicacionColumnasRepository;
+import com.taller.publicaciones.repository.PublicacionColumnasRepository.Filtro;
+import com.taller.publicaciones.service.ConflictoConcurrenciaException;
+import com.taller.publicaciones.service.ImportacionService;
+import com.taller.publicaciones.service.NdjsonWriter;
+import com.taller.publicaciones.service.PublicacionCamposService;
 import com.taller.publicaciones.service.PublicacionService;
+import com.taller.publicaciones.service.PublicadosFeed;
+import com.taller.publicaciones.service.RecursoNoEncontradoException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/api/publicaciones")
@@ -26,6 +48,9 @@ import jakarta.servlet.http.HttpServletRequest;
 public class PublicacionController {
 
     private final PublicacionService publicacionService;
+    private final PublicadosFeed publicadosFeed;
+    private final PublicacionCamposService publicacionCamposService;
+    private final ImportacionService importacionService;
 
     @GetMapping("/test")
     public ResponseEntity<String> test() {
@@ -34,75 +59,174 @@ public class PublicacionController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Publicacion>> getAllPublicaciones() {
+    public ResponseEntity<?> getAllPublicaciones(@RequestParam(required = false) String fields) {
         log.info("Getting all publications");
+        if (fields != null) {
+            return conCampos(fields, campos -> publicacionCamposService.listar(campos, Filtro.todas()));
+        }
         List<Publicacion> publicaciones = publicacionService.findAll();
         return ResponseEntity.ok(publicaciones);
     }
 
+    @GetMapping(value = "/export", produces = NdjsonWriter.MEDIA_TYPE)
+    public void exportPublicaciones(HttpServletResponse response) throws IOException {
+        log.info("Exporting all publications as NDJSON");
+        response.setContentType(NdjsonWriter.MEDIA_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        long count = publicacionService.exportNdjson(response.getOutputStream());
+        log.info("Exported {} publications", count);
+    }
+
     @GetMapping("/page")
-    public ResponseEntity<Page<Publicacion>> getAllPublicacionesPaginated(
+    public ResponseEntity<?> getAllPublicacionesPaginated(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields) {
         log.info("Getting publications page: {}, size: {}", page, size);
         Pageable pageable = PageRequest.of(page, size);
+        if (fields != null) {
+            return conCampos(fields, campos -> publicacionCamposService.pagina(campos, Filtro.todas(),
+                    PageRequest.of(page, size, PublicacionColumnasRepository.ORDEN_RECIENTES)));
+        }
         Page<Publicacion> publicaciones = publicacionService.findAll(pageable);
         return ResponseEntity.ok(publicaciones);
     }
 
+    @GetMapping("/cursor")
+    public ResponseEntity<?> getAllPublicacionesByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields) {
+        log.info("Getting publications after cursor: {}, size: {}", cursor, size);
+        try {
+            KeysetCursor after = cursor != null ? KeysetCursor.decode(cursor) : null;
+            if (fields != null) {
+                return conCampos(fields, campos -> publicacionCamposService.despuesDe(campos, Filtro.todas(), after, size));
+            }
+            return ResponseEntity.ok(CursorPageDTO.of(publicacionService.findAllAfter(after, size), PublicacionController::keyOf));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid cursor: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/batch")
+    public ResponseEntity<Map<Long, PublicacionBatchDTO>> getPublicacionesBatch(@RequestParam List<Long> ids) {
+        log.info("Getting {} publications in batch", ids.size());
+        try {
+            return ResponseEntity.ok(publicacionService.findBatch(ids));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid batch request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Publicacion> getPublicacionById(@PathVariable Long id) {
+    public ResponseEntity<Publicacion> getPublicacionById(@PathVariable Long id, ServletWebRequest request) {
         log.info("Getting publication with ID: {}", id);
+        Optional<VersionRecurso> version = publicacionService.findVersion(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (RespuestaCondicional.noModificado(request, version.get())) {
+            return null;
+        }
         Optional<Publicacion> publicacion = publicacionService.findById(id);
         return publicacion.map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/autor/{idAutor}")
-    public ResponseEntity<List<Publicacion>> getPublicacionesByAutor(@PathVariable Long idAutor) {
+    public ResponseEntity<?> getPublicacionesByAutor(@PathVariable Long idAutor,
+                                                     @RequestParam(required = false) String fields) {
         log.info("Getting publications by author: {}", idAutor);
+        if (fields != null) {
+            return conCampos(fields, campos -> publicacionCamposService.listar(campos, Filtro.porAutor(idAutor)));
+        }
         List<Publicacion> publicaciones = publicacionService.findByIdAutor(idAutor);
         return ResponseEntity.ok(publicaciones);
     }
 
     @GetMapping("/usuario/{userId}")
-    public ResponseEntity<List<Publicacion>> getPublicacionesByUsuario(@PathVariable Long userId) {
+    public ResponseEntity<?> getPublicacionesByUsuario(@PathVariable Long userId,
+                                                       @RequestParam(required = false) String fields) {
         log.info("Getting publications by user: {}", userId);
+        if (fields != null) {
+            return conCampos(fields, campos -> publicacionCamposService.listar(campos, Filtro.porAutor(userId)));
+        }
         List<Publicacion> publicaciones = publicacionService.findByIdAutor(userId);
         return ResponseEntity.ok(publicaciones);
     }
 
     @GetMapping("/autor/{idAutor}/page")
-    public ResponseEntity<Page<Publicacion>> getPublicacionesByAutorPaginated(
+    public ResponseEntity<?> getPublicacionesByAutorPaginated(
             @PathVariable Long idAutor,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields) {
         log.info("Getting publications by author: {}, page: {}, size: {}", idAutor, page, size);
         Pageable pageable = PageRequest.of(page, size);
+        if (fields != null) {
+            return conCampos(fields, campos -> publicacionCamposService.pagina(campos, Filtro.porAutor(idAutor), pageable));
+        }
         Page<Publicacion> publicaciones = publicacionService.findByIdAutor(idAutor, pageable);
         return ResponseEntity.ok(publicaciones);
     }
 
+    @GetMapping("/autor/{idAutor}/cursor")
+    public ResponseEntity<?> getPublicacionesByAutorByCursor(
+            @PathVariable Long idAutor,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields) {
+        log.info("Getting publications by author: {}, after cursor: {}, size: {}", idAutor, cursor, size);
+        try {
+            KeysetCursor after = cursor != null ? KeysetCursor.decode(cursor) : null;
+            if (fields != null) {
+                return conCampos(fields, campos -> publicacionCamposService.despuesDe(campos, Filtro.porAutor(idAutor), after, size));
+            }
+            return ResponseEntity.ok(CursorPageDTO.of(publicacionService.findByIdAutorAfter(idAutor, after, size), PublicacionController::keyOf));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid cursor: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/search")
-    public ResponseEntity<Page<Publicacion>> searchPublicaciones(
+    public ResponseEntity<?> searchPublicaciones(
             @RequestParam String titulo,
             @RequestParam String descripcion,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields) {
         log.info("Searching publications with title: {}, description: {}", titulo, descripcion);
         Pageable pageable = PageRequest.of(page, size);
+        if (fields != null) {
+            return conCampos(fields, campos -> publicacionCamposService.buscar(campos, titulo, descripcion, pageable));
+        }
         Page<Publicacion> publicaciones = publicacionService.findByTituloOrDescripcionContaining(titulo, descripcion, pageable);
         return ResponseEntity.ok(publicaciones);
     }
 
-    @GetMapping("/publicados")
-    public ResponseEntity<List<Publicacion>> getPublicacionesPublicadas() {
-        List<Publicacion> publicaciones = publicacionService.findByEstadoPublicado();
-        return ResponseEntity.ok(publicaciones);
+    @GetMapping(value = "/publicados", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getPublicacionesPublicadas(ServletWebRequest request) {
+        PublicadosFeed.Snapshot snapshot = publicadosFeed.snapshot();
+        if (snapshot == null) {
+            // El feed todavía se está construyendo al arrancar
+            return ResponseEntity.ok(publicacionService.findByEstadoPublicado());
+        }
+        if (RespuestaCondicional.noModificado(request, VersionRecurso.debil(snapshot.etag()))) {
+            return null;
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(snapshot.json());
     }
 
     @GetMapping("/autor/{idAutor}/estado/{idEstado}")
-    public ResponseEntity<List<Publicacion>> getPublicacionesByAutorAndEstado(@PathVariable Long idAutor, @PathVariable Integer idEstado) {
+    public ResponseEntity<?> getPublicacionesByAutorAndEstado(@PathVariable Long idAutor, @PathVariable Integer idEstado,
+                                                              @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return conCampos(fields, campos -> publicacionCamposService.listar(campos, Filtro.porAutor(idAutor).conEstado(idEstado)));
+        }
         List<Publicacion> publicaciones = publicacionService.findByIdAutorAndEstado(idAutor, idEstado);
         return ResponseEntity.ok(publicaciones);
     }
@@ -123,12 +247,10 @@ public class PublicacionController {
             publicacion.setIdAutor(idAutor);
             // Buscar y asignar el estado
             publicacion.setEstado(publicacionService.getEstadoById(estadoId));
-            // Si hay foto, subirla y asignar la URL
-            if (file != null && !file.isEmpty()) {
-                String urlFoto = publicacionService.uploadFotoArchivo(file);
-                publicacion.setUrlFoto(urlFoto);
-            }
-            Publicacion savedPublicacion = publicacionService.save(publicacion);
+            // Si hay foto, se sube (o se deja pendiente en modo asíncrono) junto con la publicación
+            Publicacion savedPublicacion = file != null && !file.isEmpty()
+                    ? publicacionService.saveConFoto(publicacion, file)
+                    : publicacionService.save(publicacion);
             return ResponseEntity.status(HttpStatus.CREATED).body(savedPublicacion);
         } catch (Exception e) {
             log.error("Error creating publication with photo: {}", e.getMessage());
@@ -136,6 +258,22 @@ public class PublicacionController {
         }
     }
 
+    // El cuerpo se lee en streaming; la respuesta informa cuántas filas entraron y el error de cada rechazada
+    @PostMapping(value = "/import", consumes = {"text/csv", NdjsonWriter.MEDIA_TYPE})
+    public ResponseEntity<ImportacionResultadoDTO> importPublicaciones(HttpServletRequest request) throws IOException {
+        ImportacionService.Formato formato = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType(NdjsonWriter.MEDIA_TYPE))
+                ? ImportacionService.Formato.NDJSON
+                : ImportacionService.Formato.CSV;
+        log.info("Importing publications from {}", formato);
+        try {
+            return ResponseEntity.ok(importacionService.importar(request.getInputStream(), formato));
+        } catch (IllegalArgumentException e) {
+            log.error("Error importing publications: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PostMapping("/debug-content-type")
     public ResponseEntity<String> debugContentType(HttpServletRequest request) {
         return ResponseEntity.ok("Content-Type recibido: " + request.getContentType());
@@ -149,9 +287,16 @@ public class PublicacionController {
         try {
             Publicacion updatedPublicacion = publicacionService.update(id, publicacionDetails);
             return ResponseEntity.ok(updatedPublicacion);
-        } catch (RuntimeException e) {
+        } catch (RecursoNoEncontradoException e) {
             log.error("Error updating publication: {}", e.getMessage());
             return ResponseEntity.notFound().build();
+        } catch (ConflictoConcurrenciaException | OptimisticLockingFailureException e) {
+            // Otra escritura (por ejemplo, la subida de la foto en segundo plano) cambió la versión entre medio
+            log.warn("Concurrent update on publication {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (RuntimeException e) {
+            log.error("Error updating publication: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         }
     }
 
@@ -177,4 +322,20 @@ public class PublicacionController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    // ?fields=id,titulo,estado (o fields=tarjeta): sólo esos campos, leídos sin cargar las entidades
+    private ResponseEntity<?> conCampos(String fields, Function<Set<CampoPublicacion>, Object> consulta) {
+        Set<CampoPublicacion> campos;
+        try {
+            campos = CampoPublicacion.parse(fields);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid fields: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(consulta.apply(campos));
+    }
+
+    private static KeysetCursor keyOf(Publicacion publicacion) {
+        return new KeysetCursor(publicacion.getFechaCreacion(), publicacion.getId());
+    }
 } 
\ No newline at end of file
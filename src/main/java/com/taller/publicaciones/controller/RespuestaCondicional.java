@@ -0,0 +1,23 @@
+package com.taller.publicaciones.controller;
+
+import com.taller.publicaciones.model.VersionRecurso;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+// GET condicional: agrega ETag / Last-Modified y responde 304 cuando el cliente ya tiene esa versión
+final class RespuestaCondicional {
+
+    private RespuestaCondicional() {
+    }
+
+    // true = ya se respondió 304 y el controlador no debe cargar ni devolver el cuerpo
+    static boolean noModificado(ServletWebRequest request, VersionRecurso version) {
+        // no-cache (revalidar siempre) en vez del no-store que agrega Spring Security por defecto;
+        // sin esto el navegador no guarda la respuesta y nunca manda If-None-Match
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        }
+        return request.checkNotModified(version.getEtag(), version.getLastModified());
+    }
+}
@@ -0,0 +1,595 @@
+package com.taller.publicaciones.grafo;
+
+import com.taller.publicaciones.model.CicloIntercambioDTO;
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.model.Intercambio;
+import com.taller.publicaciones.model.OfertaPendienteDTO;
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.repository.IntercambioRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Grafo en memoria de las ofertas pendientes entre productos publicados, para sugerir intercambios entre
+// varios usuarios (A da a B, B da a C, C da a A) que las ofertas 1:1 no resuelven. Cada producto es un
+// nodo y cada oferta una arista ofrecido -> solicitado: el dueño del ofrecido lo daría por el solicitado.
+// Un ciclo de 3 a 5 productos de dueños distintos es un intercambio en el que todos reciben lo que pidieron.
+//
+// Los productos se numeran en forma densa y las aristas se guardan en arreglos primitivos por nodo (salida
+// y entrada), así millones de ofertas no son millones de objetos. IntercambioService lo actualiza al
+// confirmar cada oferta, aceptación, rechazo o reversión; una reconstrucción periódica recoge lo demás
+// (cambios de estado de las publicaciones). La reconstrucción carga un grafo aparte y lo reemplaza al final,
+// así las consultas nunca ven uno a medio cargar.
+//
+// Los callbacks de after-commit de transacciones concurrentes pueden llegar en cualquier orden: una oferta
+// creada antes de que se aceptara otra sobre el mismo producto puede confirmarse después. Por eso el grafo
+// recuerda los productos retirados e ignora las ofertas que los tocan hasta que una reversión los repone.
+//
+// La búsqueda parte de los productos del usuario: primero marca los nodos que llegan al origen en 1 o 2
+// pasos y después recorre hacia adelante descartando cada rama que ya no puede cerrar el ciclo a tiempo.
+// Un tope de aristas visitadas por consulta la mantiene en milisegundos aunque haya productos muy
+// codiciados; con el tope se pueden perder ciclos, pero los que devuelve son siempre válidos.
+@Component
+@Slf4j
+public class GrafoIntercambios {
+
+    public static final int MIN_LARGO = 3;
+    public static final int MAX_LARGO = 5;
+    private static final int LOTE_RECONSTRUCCION = 10_000;
+    // Más allá de 2 pasos hacia atrás la distancia se toma como "3 o más"
+    private static final int LEJOS = 3;
+
+    private final IntercambioRepository intercambioRepository;
+    private final int maxVisitas;
+    private final long reconstruirCadaMinutos;
+    private final ScheduledExecutorService reconstructor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "grafo-intercambios");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Estructura actual = new Estructura();
+
+    // Cambios aplicados mientras se carga el grafo nuevo, en orden, para repetirlos sobre él antes del cambio
+    private final List<Consumer<Estructura>> cambiosDuranteReconstruccion = new ArrayList<>();
+    private boolean reconstruyendo;
+    private volatile boolean listo;
+
+    public GrafoIntercambios(IntercambioRepository intercambioRepository,
+                             @Value("${intercambios.ciclos.max-visitas:200000}") int maxVisitas,
+                             @Value("${intercambios.ciclos.reconstruir-minutos:60}") long reconstruirCadaMinutos) {
+        this.intercambioRepository = intercambioRepository;
+        this.maxVisitas = maxVisitas;
+        this.reconstruirCadaMinutos = reconstruirCadaMinutos;
+    }
+
+    // La primera carga es al arrancar, como el índice de búsqueda; después se repite en segundo plano
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        reconstruir();
+        reconstructor.scheduleWithFixedDelay(this::reconstruirSinFallar,
+                reconstruirCadaMinutos, reconstruirCadaMinutos, TimeUnit.MINUTES);
+    }
+
+    private void reconstruirSinFallar() {
+        try {
+            reconstruir();
+        } catch (RuntimeException e) {
+            log.error("No se pudo reconstruir el grafo de intercambios: {}", e.getMessage(), e);
+        }
+    }
+
+    // Una reconstrucción a la vez; mientras tanto se sigue consultando y actualizando el grafo anterior
+    public synchronized void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            cambiosDuranteReconstruccion.clear();
+            reconstruyendo = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Estructura nueva = new Estructura();
+        try {
+            Integer publicado = Estado.Tipo.PUBLICADO.getId();
+            long despuesDe = 0;
+            List<OfertaPendienteDTO> lote;
+            do {
+                lote = intercambioRepository.findOfertasPendientesParaGrafo(publicado, despuesDe,
+                        PageRequest.of(0, LOTE_RECONSTRUCCION));
+                for (OfertaPendienteDTO oferta : lote) {
+                    nueva.agregar(oferta.getId(), oferta.getIdProductoOfrecido(), oferta.getIdUsuarioSolicitante(),
+                            oferta.getIdProductoSolicitado(), oferta.getIdUsuarioPropietario());
+                }
+                if (!lote.isEmpty()) {
+                    despuesDe = lote.get(lote.size() - 1).getId();
+                }
+            } while (lote.size() == LOTE_RECONSTRUCCION);
+
+            lock.writeLock().lock();
+            try {
+                cambiosDuranteReconstruccion.forEach(cambio -> cambio.accept(nueva));
+                actual = nueva;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                reconstruyendo = false;
+                cambiosDuranteReconstruccion.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        listo = true;
+        log.info("Grafo de intercambios reconstruido: {} productos, {} ofertas pendientes en {} ms",
+                getProductos(), getOfertas(), System.currentTimeMillis() - inicio);
+    }
+
+    // Falso hasta que termina la primera carga
+    public boolean isListo() {
+        return listo;
+    }
+
+    public int getProductos() {
+        lock.readLock().lock();
+        try {
+            return actual.nodos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getOfertas() {
+        lock.readLock().lock();
+        try {
+            return actual.aristas;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Una oferta nueva: el dueño de productoOfrecido lo da por productoSolicitado. Repetirla no la duplica
+    public void agregar(long oferta, long productoOfrecido, long duenoOfrecido, long productoSolicitado, long duenoSolicitado) {
+        lock.writeLock().lock();
+        try {
+            aplicar(estructura -> estructura.agregar(oferta, productoOfrecido, duenoOfrecido, productoSolicitado, duenoSolicitado));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void quitar(long oferta, long productoOfrecido, long productoSolicitado) {
+        lock.writeLock().lock();
+        try {
+            aplicar(estructura -> estructura.quitar(oferta, productoOfrecido, productoSolicitado));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Productos que dejaron de estar disponibles (por ejemplo, tomados por un intercambio aceptado): se van
+    // todas sus ofertas, las que los ofrecen y las que los piden
+    public void retirar(Collection<Long> productosRetirados) {
+        lock.writeLock().lock();
+        try {
+            List<Long> productos = List.copyOf(productosRetirados);
+            aplicar(estructura -> productos.forEach(estructura::retirar));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Un intercambio revertido: los productos vuelven a estar disponibles y se recargan de la base sus
+    // ofertas que siguen pendientes (retirar las había sacado del grafo)
+    public void reponer(Collection<Long> productosRepuestos) {
+        List<Long> productos = List.copyOf(productosRepuestos);
+        desretirar(productos);
+        recargar(productos);
+    }
+
+    private void desretirar(List<Long> productos) {
+        lock.writeLock().lock();
+        try {
+            aplicar(estructura -> productos.forEach(estructura::reponer));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void recargar(List<Long> productos) {
+        Integer publicado = Estado.Tipo.PUBLICADO.getId();
+        long despuesDe = 0;
+        List<OfertaPendienteDTO> lote;
+        do {
+            lote = intercambioRepository.findOfertasPendientesParaGrafoDeProductos(publicado, productos, despuesDe,
+                    PageRequest.of(0, LOTE_RECONSTRUCCION));
+            for (OfertaPendienteDTO oferta : lote) {
+                agregar(oferta.getId(), oferta.getIdProductoOfrecido(), oferta.getIdUsuarioSolicitante(),
+                        oferta.getIdProductoSolicitado(), oferta.getIdUsuarioPropietario());
+            }
+            if (!lote.isEmpty()) {
+                despuesDe = lote.get(lote.size() - 1).getId();
+            }
+        } while (lote.size() == LOTE_RECONSTRUCCION);
+    }
+
+    // Con el write lock tomado
+    private void aplicar(Consumer<Estructura> cambio) {
+        cambio.accept(actual);
+        if (reconstruyendo) {
+            cambiosDuranteReconstruccion.add(cambio);
+        }
+    }
+
+    public void agregarAlConfirmar(Intercambio intercambio) {
+        Publicacion ofrecido = intercambio.getProductoOfrecido();
+        Publicacion solicitado = intercambio.getProductoSolicitado();
+        long oferta = intercambio.getId();
+        long duenoOfrecido = ofrecido.getIdAutor();
+        long duenoSolicitado = solicitado.getIdAutor();
+        long idOfrecido = ofrecido.getId();
+        long idSolicitado = solicitado.getId();
+        alConfirmar(() -> agregar(oferta, idOfrecido, duenoOfrecido, idSolicitado, duenoSolicitado));
+    }
+
+    public void quitarAlConfirmar(Intercambio intercambio) {
+        long oferta = intercambio.getId();
+        long idOfrecido = intercambio.getProductoOfrecido().getId();
+        long idSolicitado = intercambio.getProductoSolicitado().getId();
+        alConfirmar(() -> quitar(oferta, idOfrecido, idSolicitado));
+    }
+
+    public void retirarAlConfirmar(Collection<Long> productosRetirados) {
+        alConfirmar(() -> retirar(productosRetirados));
+    }
+
+    // Los productos se liberan en el callback, así una oferta nueva sobre ellos ya entra; la recarga desde
+    // la base va al hilo del grafo para no alargar el request
+    public void reponerAlConfirmar(Collection<Long> productosRepuestos) {
+        List<Long> productos = List.copyOf(productosRepuestos);
+        alConfirmar(() -> {
+            desretirar(productos);
+            reconstructor.execute(() -> {
+                try {
+                    recargar(productos);
+                } catch (RuntimeException e) {
+                    log.error("No se pudieron recargar las ofertas de los productos {}: {}", productos, e.getMessage(), e);
+                }
+            });
+        });
+    }
+
+    // Ciclos en los que participa el usuario con alguno de sus productos, los más cortos primero
+    public List<CicloIntercambioDTO> ciclosDeUsuario(long usuario, int limite) {
+        lock.readLock().lock();
+        try {
+            Enteros suyos = actual.productosPorDueno.get(usuario);
+            if (suyos == null) {
+                return List.of();
+            }
+            return buscar(actual, Arrays.copyOf(suyos.valores, suyos.tamano), limite);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<CicloIntercambioDTO> ciclosDeProducto(long producto, int limite) {
+        lock.readLock().lock();
+        try {
+            int nodo = actual.indice.get(producto, -1);
+            return nodo < 0 ? List.of() : buscar(actual, new int[]{nodo}, limite);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Como el usuario no se repite dentro de un ciclo, cada ciclo pasa por uno solo de sus productos y no
+    // hace falta deduplicar
+    private List<CicloIntercambioDTO> buscar(Estructura grafo, int[] origenes, int limite) {
+        Busqueda busqueda = new Busqueda(grafo, limite);
+        MapaLongInt[] atras = new MapaLongInt[origenes.length];
+        for (int i = 0; i < origenes.length; i++) {
+            atras[i] = busqueda.distanciasHaciaAtras(origenes[i]);
+        }
+        for (int largo = MIN_LARGO; largo <= MAX_LARGO; largo++) {
+            for (int i = 0; i < origenes.length && !busqueda.terminada(); i++) {
+                busqueda.recorrer(origenes[i], atras[i], largo);
+            }
+        }
+        busqueda.encontrados.sort(Comparator.comparingInt(ciclo -> ciclo.getProductos().size()));
+        return busqueda.encontrados;
+    }
+
+    private final class Busqueda {
+
+        private final Estructura grafo;
+        private final int limite;
+        private final List<CicloIntercambioDTO> encontrados = new ArrayList<>();
+        private final int[] camino = new int[MAX_LARGO];
+        private final long[] ofertas = new long[MAX_LARGO];
+        private int visitas;
+        private int origen;
+        private MapaLongInt atras;
+        private int largo;
+
+        Busqueda(Estructura grafo, int limite) {
+            this.grafo = grafo;
+            this.limite = limite;
+        }
+
+        boolean terminada() {
+            return encontrados.size() >= limite || visitas >= maxVisitas;
+        }
+
+        // Nodos que llegan al origen en 1 o 2 pasos, con su distancia
+        MapaLongInt distanciasHaciaAtras(int origen) {
+            MapaLongInt distancias = new MapaLongInt(64);
+            distancias.put(origen, 0);
+            Aristas previos = grafo.entrada[origen];
+            if (previos == null) {
+                return distancias;
+            }
+            for (int i = 0; i < previos.tamano; i++) {
+                distancias.putSiFalta(previos.nodos[i], 1);
+            }
+            for (int i = 0; i < previos.tamano && visitas < maxVisitas; i++) {
+                Aristas segundos = grafo.entrada[previos.nodos[i]];
+                for (int j = 0; segundos != null && j < segundos.tamano && visitas < maxVisitas; j++, visitas++) {
+                    distancias.putSiFalta(segundos.nodos[j], 2);
+                }
+            }
+            return distancias;
+        }
+
+        void recorrer(int origen, MapaLongInt atras, int largo) {
+            this.origen = origen;
+            this.atras = atras;
+            this.largo = largo;
+            camino[0] = origen;
+            extender(origen, 0);
+        }
+
+        // camino[0..paso] ya está armado y termina en nodo
+        private void extender(int nodo, int paso) {
+            Aristas siguientes = grafo.salida[nodo];
+            if (siguientes == null) {
+                return;
+            }
+            for (int i = 0; i < siguientes.tamano; i++) {
+                if (terminada()) {
+                    return;
+                }
+                visitas++;
+                int siguiente = siguientes.nodos[i];
+                if (paso + 1 == largo) {
+                    if (siguiente == origen) {
+                        ofertas[paso] = siguientes.ofertas[i];
+                        registrar();
+                    }
+                    continue;
+                }
+                // Desde aquí todavía tiene que poder volver al origen sin pasarse del largo
+                if (paso + 1 + atras.get(siguiente, LEJOS) > largo || repetido(siguiente, paso)) {
+                    continue;
+                }
+                camino[paso + 1] = siguiente;
+                ofertas[paso] = siguientes.ofertas[i];
+                extender(siguiente, paso + 1);
+            }
+        }
+
+        // Ni el producto ni su dueño pueden aparecer dos veces en el ciclo
+        private boolean repetido(int nodo, int paso) {
+            for (int i = 0; i <= paso; i++) {
+                if (camino[i] == nodo || grafo.duenos[camino[i]] == grafo.duenos[nodo]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void registrar() {
+            List<Long> idsProductos = new ArrayList<>(largo);
+            List<Long> usuarios = new ArrayList<>(largo);
+            List<Long> idsOfertas = new ArrayList<>(largo);
+            for (int i = 0; i < largo; i++) {
+                idsProductos.add(grafo.productos[camino[i]]);
+                usuarios.add(grafo.duenos[camino[i]]);
+                idsOfertas.add(ofertas[i]);
+            }
+            encontrados.add(new CicloIntercambioDTO(idsProductos, usuarios, idsOfertas));
+        }
+    }
+
+    private static void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reconstructor.shutdownNow();
+    }
+
+    // Los nodos y aristas de un grafo completo; la reconstrucción llena uno nuevo sin tocar el que se consulta
+    private static final class Estructura {
+
+        private final MapaLongInt indice = new MapaLongInt(1024);
+        private long[] productos = new long[1024];
+        private long[] duenos = new long[1024];
+        private Aristas[] salida = new Aristas[1024];
+        private Aristas[] entrada = new Aristas[1024];
+        private int nodos;
+        private long aristas;
+        private final Map<Long, Enteros> productosPorDueno = new HashMap<>();
+        // Producto -> 1 si está retirado; MapaLongInt no borra, reponer lo deja en 0
+        private final MapaLongInt retirados = new MapaLongInt(64);
+
+        void agregar(long oferta, long productoOfrecido, long duenoOfrecido, long productoSolicitado, long duenoSolicitado) {
+            // Un callback atrasado no puede devolverle ofertas a un producto ya tomado
+            if (retirado(productoOfrecido) || retirado(productoSolicitado)) {
+                return;
+            }
+            int desde = nodo(productoOfrecido, duenoOfrecido);
+            int hacia = nodo(productoSolicitado, duenoSolicitado);
+            if (salida[desde] == null) {
+                salida[desde] = new Aristas();
+            } else if (salida[desde].contiene(oferta)) {
+                return;
+            }
+            if (entrada[hacia] == null) {
+                entrada[hacia] = new Aristas();
+            }
+            salida[desde].agregar(hacia, oferta);
+            entrada[hacia].agregar(desde, oferta);
+            aristas++;
+        }
+
+        void quitar(long oferta, long productoOfrecido, long productoSolicitado) {
+            int desde = indice.get(productoOfrecido, -1);
+            int hacia = indice.get(productoSolicitado, -1);
+            if (desde >= 0 && hacia >= 0 && salida[desde] != null && salida[desde].quitar(oferta) >= 0) {
+                entrada[hacia].quitar(oferta);
+                aristas--;
+            }
+        }
+
+        void retirar(long producto) {
+            retirados.put(producto, 1);
+            int nodo = indice.get(producto, -1);
+            if (nodo >= 0) {
+                quitarAristas(nodo, salida, entrada);
+                quitarAristas(nodo, entrada, salida);
+            }
+        }
+
+        void reponer(long producto) {
+            if (retirado(producto)) {
+                retirados.put(producto, 0);
+            }
+        }
+
+        private boolean retirado(long producto) {
+            return retirados.get(producto, 0) == 1;
+        }
+
+        // Quita todas las aristas de nodo en lado y la contraparte de cada una en el otro lado
+        private void quitarAristas(int nodo, Aristas[] lado, Aristas[] otroLado) {
+            Aristas propias = lado[nodo];
+            if (propias == null) {
+                return;
+            }
+            for (int i = 0; i < propias.tamano; i++) {
+                otroLado[propias.nodos[i]].quitar(propias.ofertas[i]);
+            }
+            aristas -= propias.tamano;
+            lado[nodo] = null;
+        }
+
+        private int nodo(long producto, long dueno) {
+            int nodo = indice.get(producto, -1);
+            if (nodo >= 0) {
+                return nodo;
+            }
+            nodo = nodos++;
+            if (nodo == productos.length) {
+                int capacidad = productos.length * 2;
+                productos = Arrays.copyOf(productos, capacidad);
+                duenos = Arrays.copyOf(duenos, capacidad);
+                salida = Arrays.copyOf(salida, capacidad);
+                entrada = Arrays.copyOf(entrada, capacidad);
+            }
+            productos[nodo] = producto;
+            duenos[nodo] = dueno;
+            indice.put(producto, nodo);
+            productosPorDueno.computeIfAbsent(dueno, d -> new Enteros()).agregar(nodo);
+            return nodo;
+        }
+    }
+
+    // Aristas de un nodo hacia un lado: el otro extremo y la oferta, en arreglos paralelos
+    private static final class Aristas {
+
+        private int[] nodos = new int[2];
+        private long[] ofertas = new long[2];
+        private int tamano;
+
+        void agregar(int nodo, long oferta) {
+            if (tamano == nodos.length) {
+                nodos = Arrays.copyOf(nodos, tamano * 2);
+                ofertas = Arrays.copyOf(ofertas, tamano * 2);
+            }
+            nodos[tamano] = nodo;
+            ofertas[tamano] = oferta;
+            tamano++;
+        }
+
+        boolean contiene(long oferta) {
+            for (int i = 0; i < tamano; i++) {
+                if (ofertas[i] == oferta) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // El otro extremo de la arista quitada, o -1 si no estaba. El orden no importa: se rellena con la última
+        int quitar(long oferta) {
+            for (int i = 0; i < tamano; i++) {
+                if (ofertas[i] == oferta) {
+                    int nodo = nodos[i];
+                    tamano--;
+                    nodos[i] = nodos[tamano];
+                    ofertas[i] = ofertas[tamano];
+                    return nodo;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class Enteros {
+
+        private int[] valores = new int[1];
+        private int tamano;
+
+        void agregar(int valor) {
+            if (tamano == valores.length) {
+                valores = Arrays.copyOf(valores, tamano * 2);
+            }
+            valores[tamano++] = valor;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.taller.publicaciones.grafo;
+
+import java.util.Arrays;
+
+// Mapa long -> int con direccionamiento abierto sobre arreglos primitivos: sin boxing ni una entrada por
+// elemento, que con millones de productos en el grafo es la diferencia entre megas y cientos de megas.
+// No admite borrar; los valores son siempre >= 0.
+final class MapaLongInt {
+
+    private static final int VACIO = -1;
+
+    private long[] claves;
+    private int[] valores;
+    private int tamano;
+    private int mascara;
+
+    MapaLongInt(int capacidadInicial) {
+        int capacidad = Integer.highestOneBit(Math.max(4, capacidadInicial) * 2 - 1);
+        claves = new long[capacidad];
+        valores = new int[capacidad];
+        Arrays.fill(valores, VACIO);
+        mascara = capacidad - 1;
+    }
+
+    int get(long clave, int siFalta) {
+        for (int i = posicion(clave); ; i = (i + 1) & mascara) {
+            if (valores[i] == VACIO) {
+                return siFalta;
+            }
+            if (claves[i] == clave) {
+                return valores[i];
+            }
+        }
+    }
+
+    void put(long clave, int valor) {
+        int i = buscar(clave);
+        if (valores[i] == VACIO) {
+            agregarEn(i, clave, valor);
+        } else {
+            valores[i] = valor;
+        }
+    }
+
+    // Sólo si la clave no estaba: en la búsqueda gana la primera distancia, que es la menor
+    void putSiFalta(long clave, int valor) {
+        int i = buscar(clave);
+        if (valores[i] == VACIO) {
+            agregarEn(i, clave, valor);
+        }
+    }
+
+    int size() {
+        return tamano;
+    }
+
+    private int buscar(long clave) {
+        int i = posicion(clave);
+        while (valores[i] != VACIO && claves[i] != clave) {
+            i = (i + 1) & mascara;
+        }
+        return i;
+    }
+
+    private void agregarEn(int i, long clave, int valor) {
+        claves[i] = clave;
+        valores[i] = valor;
+        if (++tamano * 2 > claves.length) {
+            agrandar();
+        }
+    }
+
+    private void agrandar() {
+        long[] clavesViejas = claves;
+        int[] valoresViejos = valores;
+        claves = new long[clavesViejas.length * 2];
+        valores = new int[clavesViejas.length * 2];
+        Arrays.fill(valores, VACIO);
+        mascara = claves.length - 1;
+        for (int i = 0; i < clavesViejas.length; i++) {
+            if (valoresViejos[i] != VACIO) {
+                int j = buscar(clavesViejas[i]);
+                claves[j] = clavesViejas[i];
+                valores[j] = valoresViejos[i];
+            }
+        }
+    }
+
+    private int posicion(long clave) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+}
@@ -0,0 +1,21 @@
+package com.taller.publicaciones.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+// Aciertos y fallos de una región de la caché de segundo nivel, para dimensionarla
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheRegionDTO {
+    private String region;
+    private long hits;
+    private long misses;
+    private long puts;
+    private double hitRatio;
+
+    public CacheRegionDTO(String region, long hits, long misses, long puts) {
+        this(region, hits, misses, puts, hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+    }
+}
@@ -0,0 +1,64 @@
+package com.taller.publicaciones.model;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Atributos que un cliente puede pedir con ?fields=, con el nombre que tienen en el JSON de Publicacion
+// y las columnas (rutas JPA) que hacen falta para armarlos
+public enum CampoPublicacion {
+    ID("id", "id"),
+    TITULO("titulo", "titulo"),
+    DESCRIPCION("descripcion", "descripcion"),
+    PRECIO("precio", "precio"),
+    URL_FOTO("urlFoto", "urlFoto"),
+    URLS_FOTO("urlsFoto", "urlFoto", "rendicionesFoto"),
+    FOTO_PENDIENTE("fotoPendiente", "fotoPendiente"),
+    ID_AUTOR("idAutor", "idAutor"),
+    // Sólo la FK: el nombre sale de EstadoRegistry, sin join
+    ESTADO("estado", "estado.id"),
+    FECHA_CREACION("fechaCreacion", "fechaCreacion"),
+    FECHA_MODIFICACION("fechaModificacion", "fechaModificacion"),
+    VERSION("version", "version");
+
+    // Lo que muestra una tarjeta de listado: ?fields=tarjeta
+    public static final Set<CampoPublicacion> TARJETA = EnumSet.of(ID, TITULO, PRECIO, URL_FOTO, ESTADO);
+
+    private final String nombre;
+    private final List<String> atributos;
+
+    CampoPublicacion(String nombre, String... atributos) {
+        this.nombre = nombre;
+        this.atributos = List.of(atributos);
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public List<String> getAtributos() {
+        return atributos;
+    }
+
+    // "id,titulo,estado" -> [ID, TITULO, ESTADO], en el orden pedido
+    public static Set<CampoPublicacion> parse(String fields) {
+        Set<CampoPublicacion> campos = new LinkedHashSet<>();
+        for (String nombre : fields.split(",")) {
+            String limpio = nombre.trim();
+            if (limpio.equals("tarjeta")) {
+                campos.addAll(TARJETA);
+                continue;
+            }
+            campos.add(Arrays.stream(values())
+                    .filter(campo -> campo.nombre.equals(limpio))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Campo desconocido: '" + limpio + "'. Campos válidos: "
+                            + Arrays.stream(values()).map(CampoPublicacion::getNombre).collect(Collectors.joining(", "))
+                            + " o tarjeta")));
+        }
+        return campos;
+    }
+}
@@ -0,0 +1,18 @@
+package com.taller.publicaciones.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Intercambio entre varios usuarios armado con ofertas pendientes: usuarios[i] entrega productos[i] y
+// recibe productos[i + 1] (el último recibe el primero), como pidió en la oferta intercambios[i]
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CicloIntercambioDTO {
+    private List<Long> productos;
+    private List<Long> usuarios;
+    private List<Long> intercambios;
+}
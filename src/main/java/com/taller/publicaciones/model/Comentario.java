@@ -2,6 +2,8 @@ package com.taller.publicaciones.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Min;
@@ -11,10 +13,17 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
-@Table(name = "comentarios")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "comentarios", indexes = {
+        // Soportan la paginación por cursor (fechaCreacion, id)
+        @Index(name = "idx_comentarios_publicacion_fecha_id", columnList = "id_publicacion, fecha_creacion, id"),
+        @Index(name = "idx_comentarios_autor_fecha_id", columnList = "id_autor, fecha_creacion, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -45,12 +54,23 @@ public class Comentario {
     @Column(name = "fecha_creacion", nullable = false)
     private LocalDateTime fechaCreacion;
 
+    // Para Last-Modified y los ETag; también la actualizan los UPDATE masivos del repositorio
+    @Column(name = "fecha_modificacion")
+    private LocalDateTime fechaModificacion;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_publicacion", insertable = false, updatable = false)
     private Publicacion publicacion;
 
     @PrePersist
     protected void onCreate() {
-        fechaCreacion = LocalDateTime.now();
+        // Truncado a la precisión de la columna, para que el cursor (fechaCreacion, id) coincida con lo persistido
+        fechaCreacion = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        fechaModificacion = fechaCreacion;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        fechaModificacion = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.taller.publicaciones.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+// Agregado por publicación mantenido por ComentarioService en la misma transacción
+// que cada alta, edición o baja de comentario. La fila se crea, en cero, junto con la publicación
+@Entity
+@Table(name = "comentarios_resumen")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComentarioResumen {
+
+    @Id
+    @Column(name = "id_publicacion")
+    private Long idPublicacion;
+
+    @Column(nullable = false)
+    private long cantidad;
+
+    @Column(name = "suma_valoraciones", nullable = false)
+    private long sumaValoraciones;
+
+    @Column(name = "estrellas_1", nullable = false)
+    private long estrellas1;
+
+    @Column(name = "estrellas_2", nullable = false)
+    private long estrellas2;
+
+    @Column(name = "estrellas_3", nullable = false)
+    private long estrellas3;
+
+    @Column(name = "estrellas_4", nullable = false)
+    private long estrellas4;
+
+    @Column(name = "estrellas_5", nullable = false)
+    private long estrellas5;
+
+    public ComentarioResumen(Long idPublicacion) {
+        this.idPublicacion = idPublicacion;
+    }
+
+    public Double getPromedio() {
+        return cantidad == 0 ? null : (double) sumaValoraciones / cantidad;
+    }
+}
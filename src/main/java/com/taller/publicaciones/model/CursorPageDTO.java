@@ -0,0 +1,28 @@
+package com.taller.publicaciones.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    // Token a enviar como ?cursor= para pedir la siguiente página; null en la última
+    private String nextCursor;
+
+    public static <T> CursorPageDTO<T> of(Slice<T> slice, Function<T, KeysetCursor> keyOf) {
+        List<T> content = slice.getContent();
+        String nextCursor = slice.hasNext() && !content.isEmpty()
+                ? keyOf.apply(content.get(content.size() - 1)).encode()
+                : null;
+        return new CursorPageDTO<>(content, content.size(), slice.hasNext(), nextCursor);
+    }
+}
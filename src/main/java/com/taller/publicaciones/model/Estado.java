@@ -2,6 +2,9 @@ package com.taller.publicaciones.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -9,6 +12,9 @@ import lombok.AllArgsConstructor;
 
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
+@Immutable
 @Table(name = "estado")
 @Data
 @NoArgsConstructor
@@ -20,4 +26,34 @@ public class Estado {
     @Column(nullable = false, length = 50)
     @NotBlank(message = "El nombre es obligatorio")
     private String nombre;
+
+    // Estados fijos sembrados por DataInitializer
+    public enum Tipo {
+        PUBLICADO(1, "Publicado"),
+        BORRADOR(2, "Borrador"),
+        RECHAZADO(3, "Rechazado"),
+        APROBADO(4, "Aprobado"),
+        PROCESO(5, "Proceso");
+
+        private final int id;
+        private final String nombre;
+
+        Tipo(int id, String nombre) {
+            this.id = id;
+            this.nombre = nombre;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public boolean matches(Estado estado) {
+            // getId() no inicializa el proxy lazy de Hibernate
+            return estado != null && estado.getId() != null && estado.getId() == id;
+        }
+    }
 } 
\ No newline at end of file
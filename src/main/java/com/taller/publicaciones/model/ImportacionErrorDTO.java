@@ -0,0 +1,14 @@
+package com.taller.publicaciones.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Una fila rechazada por la importación: línea del archivo donde empieza y por qué no entró
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacionErrorDTO {
+    private long linea;
+    private String mensaje;
+}
@@ -0,0 +1,23 @@
+package com.taller.publicaciones.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Resumen de una importación masiva. errores trae como mucho importacion.max-errores filas;
+// rechazadas las cuenta todas
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacionResultadoDTO {
+    // "copy" (COPY de PostgreSQL) o "jdbc-batch" (inserts de Hibernate en lotes)
+    private String metodo;
+    private long filasLeidas;
+    private long importadas;
+    private long rechazadas;
+    private List<ImportacionErrorDTO> errores;
+    private double segundos;
+    private double filasPorSegundo;
+}
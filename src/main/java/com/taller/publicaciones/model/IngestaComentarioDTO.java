@@ -0,0 +1,20 @@
+package com.taller.publicaciones.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Estado de un comentario aceptado por la ingesta agrupada. idComentario llega cuando se confirma el lote;
+// error, si la publicación no existe o el lote no se pudo guardar
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestaComentarioDTO {
+
+    public enum EstadoIngesta { PENDIENTE, GUARDADO, RECHAZADO }
+
+    private String ticket;
+    private EstadoIngesta estado;
+    private Long idComentario;
+    private String error;
+}
@@ -8,10 +8,15 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
-@Table(name = "intercambios")
+@Table(name = "intercambios", indexes = {
+        // Soportan las bandejas de ofertas paginadas por cursor (fechaCreacion, id)
+        @Index(name = "idx_intercambios_propietario_fecha_id", columnList = "id_usuario_propietario, fecha_creacion, id"),
+        @Index(name = "idx_intercambios_solicitante_fecha_id", columnList = "id_usuario_solicitante, fecha_creacion, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -54,12 +59,17 @@ public class Intercambio {
     @Column(name = "fecha_creacion", nullable = false)
     private LocalDateTime fechaCreacion;
 
+    // Control de concurrencia optimista: una actualización con versión vieja falla en vez de pisar a otra
+    @Version
+    private Long version;
+
     @Column(name = "fecha_respuesta")
     private LocalDateTime fechaRespuesta;
 
     @PrePersist
     protected void onCreate() {
-        fechaCreacion = LocalDateTime.now();
+        // Truncado a la precisión de la columna, para que el cursor (fechaCreacion, id) coincida con lo persistido
+        fechaCreacion = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     }
 
     public enum EstadoIntercambio {
@@ -0,0 +1,47 @@
+package com.taller.publicaciones.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IntercambioResumenDTO {
+    private Long id;
+    private ProductoResumenDTO productoSolicitado;
+    private ProductoResumenDTO productoOfrecido;
+    private Long idUsuarioSolicitante;
+    private Long idUsuarioPropietario;
+    private Intercambio.EstadoIntercambio estadoIntercambio;
+    private Intercambio.ConfirmacionEstado confirmacionSolicitante;
+    private Intercambio.ConfirmacionEstado confirmacionPropietario;
+    private LocalDateTime fechaCreacion;
+    private LocalDateTime fechaRespuesta;
+
+    // Constructor plano para las proyecciones JPQL (SELECT new ...), que no admiten objetos anidados
+    public IntercambioResumenDTO(Long id, Long idUsuarioSolicitante, Long idUsuarioPropietario,
+                                 Intercambio.EstadoIntercambio estadoIntercambio,
+                                 Intercambio.ConfirmacionEstado confirmacionSolicitante,
+                                 Intercambio.ConfirmacionEstado confirmacionPropietario,
+                                 LocalDateTime fechaCreacion, LocalDateTime fechaRespuesta,
+                                 Long solicitadoId, String solicitadoTitulo, Integer solicitadoPrecio, String solicitadoUrlFoto,
+                                 Long solicitadoIdAutor, Integer solicitadoEstadoId, String solicitadoEstadoNombre,
+                                 Long ofrecidoId, String ofrecidoTitulo, Integer ofrecidoPrecio, String ofrecidoUrlFoto,
+                                 Long ofrecidoIdAutor, Integer ofrecidoEstadoId, String ofrecidoEstadoNombre) {
+        this.id = id;
+        this.idUsuarioSolicitante = idUsuarioSolicitante;
+        this.idUsuarioPropietario = idUsuarioPropietario;
+        this.estadoIntercambio = estadoIntercambio;
+        this.confirmacionSolicitante = confirmacionSolicitante;
+        this.confirmacionPropietario = confirmacionPropietario;
+        this.fechaCreacion = fechaCreacion;
+        this.fechaRespuesta = fechaRespuesta;
+        this.productoSolicitado = new ProductoResumenDTO(solicitadoId, solicitadoTitulo, solicitadoPrecio, solicitadoUrlFoto,
+                solicitadoIdAutor, solicitadoEstadoId, solicitadoEstadoNombre);
+        this.productoOfrecido = new ProductoResumenDTO(ofrecidoId, ofrecidoTitulo, ofrecidoPrecio, ofrecidoUrlFoto,
+                ofrecidoIdAutor, ofrecidoEstadoId, ofrecidoEstadoNombre);
+    }
+}
@@ -0,0 +1,17 @@
+package com.taller.publicaciones.model;
+
+import java.time.LocalDateTime;
+
+// Proyección liviana para las validaciones condicionales (ETag / Last-Modified): se consulta esto en
+// vez de cargar las entidades. En las colecciones, cantidad y versión son agregados (COUNT, SUM).
+public interface MarcaModificacion {
+
+    Long getCantidad();
+
+    Long getVersion();
+
+    LocalDateTime getFechaModificacion();
+
+    // Sólo en los comentarios, que incluyen su publicación en el JSON: versión y fecha son las de ella
+    LocalDateTime getFechaModificacionPublicacion();
+}
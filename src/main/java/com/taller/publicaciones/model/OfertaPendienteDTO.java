@@ -0,0 +1,18 @@
+package com.taller.publicaciones.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Una oferta pendiente como arista del grafo de intercambios: el dueño de productoOfrecido lo da a cambio
+// de productoSolicitado. Sólo ids, para cargar millones sin entidades
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OfertaPendienteDTO {
+    private Long id;
+    private Long idProductoOfrecido;
+    private Long idUsuarioSolicitante;
+    private Long idProductoSolicitado;
+    private Long idUsuarioPropietario;
+}
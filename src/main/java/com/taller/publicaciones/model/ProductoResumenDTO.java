@@ -0,0 +1,19 @@
+package com.taller.publicaciones.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+// Vista compacta de una publicación para listados de intercambios
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductoResumenDTO {
+    private Long id;
+    private String titulo;
+    private Integer precio;
+    private String urlFoto;
+    private Long idAutor;
+    private Integer estadoId;
+    private String estadoNombre;
+}
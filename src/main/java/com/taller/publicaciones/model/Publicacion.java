@@ -1,7 +1,10 @@
 package com.taller.publicaciones.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
@@ -9,17 +12,32 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.TreeMap;
 
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
-@Table(name = "publicaciones")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "publicaciones", indexes = {
+        // Soportan la paginación por cursor (fechaCreacion, id)
+        @Index(name = "idx_publicaciones_fecha_id", columnList = "fecha_creacion, id"),
+        @Index(name = "idx_publicaciones_autor_fecha_id", columnList = "id_autor, fecha_creacion, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Publicacion {
 
+    // Bloques de ids reservados de la secuencia (optimizador pooled). A diferencia de IDENTITY, Hibernate
+    // conoce el id antes del INSERT y puede agrupar los inserts en lotes JDBC
+    public static final String SECUENCIA = "publicaciones_seq";
+    public static final int BLOQUE_IDS = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SECUENCIA)
+    @SequenceGenerator(name = SECUENCIA, sequenceName = SECUENCIA, allocationSize = BLOQUE_IDS)
     private Long id;
 
     @Column(nullable = false)
@@ -45,6 +63,15 @@ public class Publicacion {
         this.urlFoto = urlFoto;
     }
 
+    // Anchos de las rendiciones disponibles, p. ej. "1024,480,160"; las URLs se derivan de urlFoto
+    @JsonIgnore
+    @Column(name = "rendiciones_foto")
+    private String rendicionesFoto;
+
+    // Nombre en el spool de la foto que se está subiendo en segundo plano; null cuando no hay ninguna pendiente
+    @Column(name = "foto_pendiente")
+    private String fotoPendiente;
+
     @Column(name = "id_autor", nullable = false)
     @NotNull(message = "El ID del autor es obligatorio")
     private Long idAutor;
@@ -57,8 +84,46 @@ public class Publicacion {
     @Column(name = "fecha_creacion", nullable = false)
     private LocalDateTime fechaCreacion;
 
+    // Para Last-Modified y los ETag
+    @Column(name = "fecha_modificacion")
+    private LocalDateTime fechaModificacion;
+
+    // Control de concurrencia optimista: una actualización con versión vieja falla en vez de pisar a otra
+    @Version
+    private Long version;
+
+    public Map<Integer, String> getUrlsFoto() {
+        return urlsFoto(urlFoto, rendicionesFoto);
+    }
+
+    public static Map<Integer, String> urlsFoto(String urlFoto, String rendicionesFoto) {
+        Map<Integer, String> urls = new TreeMap<>();
+        if (urlFoto != null && rendicionesFoto != null && !rendicionesFoto.isEmpty()) {
+            for (String ancho : rendicionesFoto.split(",")) {
+                urls.put(Integer.valueOf(ancho), nombreRendicion(urlFoto, Integer.parseInt(ancho)));
+            }
+        }
+        return urls;
+    }
+
+    // "abc.jpeg" -> "abc-160.jpg"; las rendiciones de PNG se mantienen en PNG, el resto va a JPEG
+    public static String nombreRendicion(String original, int ancho) {
+        int slash = original.lastIndexOf('/');
+        int dot = original.lastIndexOf('.');
+        String base = dot > slash ? original.substring(0, dot) : original;
+        boolean png = original.toLowerCase().endsWith(".png");
+        return base + "-" + ancho + (png ? ".png" : ".jpg");
+    }
+
     @PrePersist
     protected void onCreate() {
-        fechaCreacion = LocalDateTime.now();
+        // Truncado a la precisión de la columna, para que el cursor (fechaCreacion, id) coincida con lo persistido
+        fechaCreacion = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        fechaModificacion = fechaCreacion;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        fechaModificacion = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.taller.publicaciones.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PublicacionBatchDTO {
+    private Publicacion publicacion;
+    private long cantidadComentarios;
+    private Double promedioValoracion;
+}
@@ -0,0 +1,39 @@
+package com.taller.publicaciones.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+// ETag y Last-Modified de un recurso, para WebRequest.checkNotModified
+@Data
+@AllArgsConstructor
+public class VersionRecurso {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final String etag;
+    // Epoch en milisegundos; -1 cuando no se informa Last-Modified
+    private final long lastModified;
+
+    // Recurso individual: la representación cambia si y sólo si cambia el valor
+    public static VersionRecurso fuerte(String valor, LocalDateTime modificado) {
+        return new VersionRecurso("\"" + valor + "\"", toEpochMillis(modificado));
+    }
+
+    // Colección: se resume con agregados. Sin Last-Modified, porque un borrado no adelanta el máximo.
+    public static VersionRecurso debil(String valor) {
+        return new VersionRecurso("W/\"" + valor + "\"", -1);
+    }
+
+    // Fecha compacta para incluir en un ETag (microsegundos, en hexadecimal)
+    public static String marca(LocalDateTime fecha) {
+        return fecha == null ? "0" : Long.toHexString(ChronoUnit.MICROS.between(EPOCH, fecha));
+    }
+
+    private static long toEpochMillis(LocalDateTime fecha) {
+        return fecha == null ? -1 : fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -1,14 +1,24 @@
 package com.taller.publicaciones.repository;
 
 import com.taller.publicaciones.model.Comentario;
+import com.taller.publicaciones.model.MarcaModificacion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.hibernate.jpa.HibernateHints;
+import jakarta.persistence.QueryHint;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ComentarioRepository extends JpaRepository<Comentario, Long> {
@@ -17,6 +27,8 @@ public interface ComentarioRepository extends JpaRepository<Comentario, Long> {
     
     Page<Comentario> findByIdPublicacion(Long idPublicacion, Pageable pageable);
     
+    // En la caché de consultas si está activa (cache.l2.consultas); se invalida con cualquier escritura a comentarios
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Comentario> findByIdAutor(Long idAutor);
     
     Page<Comentario> findByIdAutor(Long idAutor, Pageable pageable);
@@ -24,6 +36,50 @@ public interface ComentarioRepository extends JpaRepository<Comentario, Long> {
     @Query("SELECT c FROM Comentario c WHERE c.idPublicacion = :idPublicacion ORDER BY c.fechaCreacion ASC")
     List<Comentario> findByIdPublicacionOrderByFechaCreacionAsc(@Param("idPublicacion") Long idPublicacion);
     
+    // Recorrido con cursor JDBC para la exportación
+    @Query("SELECT c FROM Comentario c ORDER BY c.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Comentario> streamAll();
+
     @Query("SELECT COUNT(c) FROM Comentario c WHERE c.idPublicacion = :idPublicacion")
     Long countByIdPublicacion(@Param("idPublicacion") Long idPublicacion);
-} 
\ No newline at end of file
+
+    // Paginación por cursor: devuelven Slice para no ejecutar el COUNT(*) de Page
+    @Query("SELECT c FROM Comentario c WHERE c.idPublicacion = :idPublicacion ORDER BY c.fechaCreacion ASC, c.id ASC")
+    Slice<Comentario> findSliceByIdPublicacion(@Param("idPublicacion") Long idPublicacion, Pageable pageable);
+
+    @Query("SELECT c FROM Comentario c WHERE c.idPublicacion = :idPublicacion " +
+           "AND (c.fechaCreacion > :fecha OR (c.fechaCreacion = :fecha AND c.id > :id)) " +
+           "ORDER BY c.fechaCreacion ASC, c.id ASC")
+    Slice<Comentario> findSliceByIdPublicacionAfter(@Param("idPublicacion") Long idPublicacion, @Param("fecha") LocalDateTime fecha,
+                                                    @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT c FROM Comentario c WHERE c.idAutor = :idAutor ORDER BY c.fechaCreacion DESC, c.id DESC")
+    Slice<Comentario> findSliceByIdAutor(@Param("idAutor") Long idAutor, Pageable pageable);
+
+    @Query("SELECT c FROM Comentario c WHERE c.idAutor = :idAutor " +
+           "AND (c.fechaCreacion < :fecha OR (c.fechaCreacion = :fecha AND c.id < :id)) " +
+           "ORDER BY c.fechaCreacion DESC, c.id DESC")
+    Slice<Comentario> findSliceByIdAutorBefore(@Param("idAutor") Long idAutor, @Param("fecha") LocalDateTime fecha,
+                                               @Param("id") Long id, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Comentario c SET c.fechaModificacion = c.fechaCreacion WHERE c.fechaModificacion IS NULL")
+    int initializeMissingFechaModificacion();
+
+    // Validadores para GET condicional, sin cargar las entidades. Incluyen la versión de la publicación,
+    // que va embebida en cada comentario: si se edita, la representación también cambia.
+    @Query("SELECT c.fechaModificacion AS fechaModificacion, p.version AS version, " +
+           "p.fechaModificacion AS fechaModificacionPublicacion " +
+           "FROM Comentario c LEFT JOIN c.publicacion p WHERE c.id = :id")
+    Optional<MarcaModificacion> findMarcaById(@Param("id") Long id);
+
+    @Query("SELECT COUNT(c) AS cantidad, MAX(c.fechaModificacion) AS fechaModificacion, " +
+           "(SELECT p.version FROM Publicacion p WHERE p.id = :idPublicacion) AS version " +
+           "FROM Comentario c WHERE c.idPublicacion = :idPublicacion")
+    MarcaModificacion findMarcaByIdPublicacion(@Param("idPublicacion") Long idPublicacion);
+}
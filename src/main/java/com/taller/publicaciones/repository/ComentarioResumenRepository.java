@@ -0,0 +1,61 @@
+package com.taller.publicaciones.repository;
+
+import com.taller.publicaciones.model.ComentarioResumen;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ComentarioResumenRepository extends JpaRepository<ComentarioResumen, Long> {
+
+    // Incremento atómico en la base de datos, así dos comentarios concurrentes no se pisan
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ComentarioResumen r SET r.cantidad = r.cantidad + :cantidad, " +
+           "r.sumaValoraciones = r.sumaValoraciones + :suma, " +
+           "r.estrellas1 = r.estrellas1 + :e1, r.estrellas2 = r.estrellas2 + :e2, r.estrellas3 = r.estrellas3 + :e3, " +
+           "r.estrellas4 = r.estrellas4 + :e4, r.estrellas5 = r.estrellas5 + :e5 " +
+           "WHERE r.idPublicacion = :idPublicacion")
+    int applyDelta(@Param("idPublicacion") Long idPublicacion,
+                   @Param("cantidad") long cantidad,
+                   @Param("suma") long suma,
+                   @Param("e1") long e1, @Param("e2") long e2, @Param("e3") long e3,
+                   @Param("e4") long e4, @Param("e5") long e5);
+
+    // Crea la fila de una publicación que todavía no tiene, calculada desde sus comentarios (cero si no hay),
+    // incluidos los que la transacción actual ya escribió. Es un INSERT puro: si otra transacción la creó
+    // antes, falla por clave duplicada en vez de pisarla
+    // (HQL y no SQL nativo: un INSERT nativo invalidaría toda la caché de segundo nivel)
+    @Modifying(flushAutomatically = true)
+    @Query("INSERT INTO ComentarioResumen (idPublicacion, cantidad, sumaValoraciones, " +
+           "estrellas1, estrellas2, estrellas3, estrellas4, estrellas5) " +
+           "SELECT :idPublicacion, COUNT(c), COALESCE(SUM(c.valoracion), 0), " +
+           "COALESCE(SUM(CASE WHEN c.valoracion = 1 THEN 1 ELSE 0 END), 0), COALESCE(SUM(CASE WHEN c.valoracion = 2 THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN c.valoracion = 3 THEN 1 ELSE 0 END), 0), COALESCE(SUM(CASE WHEN c.valoracion = 4 THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN c.valoracion = 5 THEN 1 ELSE 0 END), 0) " +
+           "FROM Comentario c WHERE c.idPublicacion = :idPublicacion")
+    int insertFromComentarios(@Param("idPublicacion") Long idPublicacion);
+
+    // Filas en cero para las publicaciones que no tienen (insertadas por JDBC, o sin comentarios al recalcular)
+    @Modifying(flushAutomatically = true)
+    @Query("INSERT INTO ComentarioResumen (idPublicacion, cantidad, sumaValoraciones, " +
+           "estrellas1, estrellas2, estrellas3, estrellas4, estrellas5) " +
+           "SELECT p.id, 0, 0, 0, 0, 0, 0, 0 FROM Publicacion p " +
+           "WHERE NOT EXISTS (SELECT 1 FROM ComentarioResumen r WHERE r.idPublicacion = p.id)")
+    int insertMissing();
+
+    @Modifying
+    @Query("DELETE FROM ComentarioResumen r WHERE r.idPublicacion = :idPublicacion")
+    int deleteByIdPublicacion(@Param("idPublicacion") Long idPublicacion);
+
+    // Recalcula desde comentarios, para la carga inicial
+    @Query("SELECT new com.taller.publicaciones.model.ComentarioResumen(c.idPublicacion, COUNT(c), SUM(c.valoracion), " +
+           "SUM(CASE WHEN c.valoracion = 1 THEN 1 ELSE 0 END), SUM(CASE WHEN c.valoracion = 2 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN c.valoracion = 3 THEN 1 ELSE 0 END), SUM(CASE WHEN c.valoracion = 4 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN c.valoracion = 5 THEN 1 ELSE 0 END)) " +
+           "FROM Comentario c GROUP BY c.idPublicacion")
+    List<ComentarioResumen> computeAllFromComentarios();
+}
@@ -1,28 +1,100 @@
 package com.taller.publicaciones.repository;
 
 import com.taller.publicaciones.model.Intercambio;
+import com.taller.publicaciones.model.IntercambioResumenDTO;
+import com.taller.publicaciones.model.OfertaPendienteDTO;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface IntercambioRepository extends JpaRepository<Intercambio, Long> {
-    
+
+    // Carga ambos productos y sus estados en la misma consulta, para que serializar no dispare consultas por fila
+    String FETCH_PRODUCTOS = "SELECT i FROM Intercambio i " +
+            "JOIN FETCH i.productoSolicitado ps JOIN FETCH ps.estado " +
+            "JOIN FETCH i.productoOfrecido po JOIN FETCH po.estado ";
+
+    // Proyección con sólo las columnas del resumen (ver IntercambioResumenDTO)
+    String SELECT_RESUMEN = "SELECT new com.taller.publicaciones.model.IntercambioResumenDTO(" +
+            "i.id, i.idUsuarioSolicitante, i.idUsuarioPropietario, i.estadoIntercambio, " +
+            "i.confirmacionSolicitante, i.confirmacionPropietario, i.fechaCreacion, i.fechaRespuesta, " +
+            "ps.id, ps.titulo, ps.precio, ps.urlFoto, ps.idAutor, es.id, es.nombre, " +
+            "po.id, po.titulo, po.precio, po.urlFoto, po.idAutor, eo.id, eo.nombre) " +
+            "FROM Intercambio i JOIN i.productoSolicitado ps JOIN ps.estado es " +
+            "JOIN i.productoOfrecido po JOIN po.estado eo ";
+
+    String ACTIVOS = "(i.estadoIntercambio = 'ACEPTADO' OR i.estadoIntercambio = 'PENDIENTE') ";
+    String ANTES_DEL_CURSOR = "AND (i.fechaCreacion < :fecha OR (i.fechaCreacion = :fecha AND i.id < :id)) ";
+    String ORDEN_CURSOR = "ORDER BY i.fechaCreacion DESC, i.id DESC";
+
     // Obtener intercambios donde el usuario es propietario del producto solicitado en estado ACEPTADO o PROCESO
-    @Query("SELECT i FROM Intercambio i WHERE i.idUsuarioPropietario = :userId AND (i.estadoIntercambio = 'ACEPTADO' OR i.estadoIntercambio = 'PROCESO' OR i.estadoIntercambio = 'PENDIENTE')")
+    @Query(FETCH_PRODUCTOS + "WHERE i.idUsuarioPropietario = :userId AND (i.estadoIntercambio = 'ACEPTADO' OR i.estadoIntercambio = 'PROCESO' OR i.estadoIntercambio = 'PENDIENTE')")
     List<Intercambio> findOfertasRecibidas(@Param("userId") Long userId);
     
     // Obtener intercambios donde el usuario es solicitante en estado ACEPTADO o PROCESO
-    @Query("SELECT i FROM Intercambio i WHERE i.idUsuarioSolicitante = :userId AND (i.estadoIntercambio = 'ACEPTADO' OR i.estadoIntercambio = 'PROCESO' OR i.estadoIntercambio = 'PENDIENTE')")
+    @Query(FETCH_PRODUCTOS + "WHERE i.idUsuarioSolicitante = :userId AND (i.estadoIntercambio = 'ACEPTADO' OR i.estadoIntercambio = 'PROCESO' OR i.estadoIntercambio = 'PENDIENTE')")
     List<Intercambio> findOfertasEnviadas(@Param("userId") Long userId);
+
+    // Bandejas paginadas por cursor (fechaCreacion, id), sin COUNT
+    @Query(SELECT_RESUMEN + "WHERE i.idUsuarioPropietario = :userId AND " + ACTIVOS + ORDEN_CURSOR)
+    Slice<IntercambioResumenDTO> findResumenRecibidas(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(SELECT_RESUMEN + "WHERE i.idUsuarioPropietario = :userId AND " + ACTIVOS + ANTES_DEL_CURSOR + ORDEN_CURSOR)
+    Slice<IntercambioResumenDTO> findResumenRecibidasBefore(@Param("userId") Long userId, @Param("fecha") LocalDateTime fecha,
+                                                            @Param("id") Long id, Pageable pageable);
+
+    @Query(SELECT_RESUMEN + "WHERE i.idUsuarioSolicitante = :userId AND " + ACTIVOS + ORDEN_CURSOR)
+    Slice<IntercambioResumenDTO> findResumenEnviadas(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(SELECT_RESUMEN + "WHERE i.idUsuarioSolicitante = :userId AND " + ACTIVOS + ANTES_DEL_CURSOR + ORDEN_CURSOR)
+    Slice<IntercambioResumenDTO> findResumenEnviadasBefore(@Param("userId") Long userId, @Param("fecha") LocalDateTime fecha,
+                                                           @Param("id") Long id, Pageable pageable);
     
     // Obtener intercambios pendientes para un producto específico
     @Query("SELECT i FROM Intercambio i WHERE i.productoSolicitado.id = :productoId AND i.estadoIntercambio = 'PENDIENTE'")
     List<Intercambio> findOfertasPendientesPorProducto(@Param("productoId") Long productoId);
     
+    // Rechaza en una sola sentencia todas las demás ofertas pendientes por el producto
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Intercambio i SET i.estadoIntercambio = 'RECHAZADO', i.fechaRespuesta = :fecha, i.version = i.version + 1 " +
+           "WHERE i.productoSolicitado.id = :productoId AND i.estadoIntercambio = 'PENDIENTE' AND i.id <> :aceptadoId")
+    int rechazarOtrasOfertasPendientes(@Param("productoId") Long productoId, @Param("aceptadoId") Long aceptadoId,
+                                       @Param("fecha") LocalDateTime fecha);
+
+    // Las filas creadas antes de agregar @Version no tienen versión
+    @Transactional
+    @Modifying
+    @Query("UPDATE Intercambio i SET i.version = 0 WHERE i.version IS NULL")
+    int initializeMissingVersions();
+
+    // Ofertas pendientes entre productos publicados, por id, para armar el grafo de intercambios. Los dueños
+    // salen de las publicaciones, no de las columnas de usuario del intercambio
+    @Query("SELECT new com.taller.publicaciones.model.OfertaPendienteDTO(i.id, po.id, po.idAutor, ps.id, ps.idAutor) " +
+           "FROM Intercambio i JOIN i.productoOfrecido po JOIN i.productoSolicitado ps " +
+           "WHERE i.estadoIntercambio = 'PENDIENTE' AND po.estado.id = :publicado AND ps.estado.id = :publicado " +
+           "AND i.id > :despuesDe ORDER BY i.id")
+    List<OfertaPendienteDTO> findOfertasPendientesParaGrafo(@Param("publicado") Integer publicado,
+                                                           @Param("despuesDe") Long despuesDe, Pageable pageable);
+
+    // Las mismas, sólo las que tocan esos productos: para devolverlos al grafo cuando se revierte un intercambio
+    @Query("SELECT new com.taller.publicaciones.model.OfertaPendienteDTO(i.id, po.id, po.idAutor, ps.id, ps.idAutor) " +
+           "FROM Intercambio i JOIN i.productoOfrecido po JOIN i.productoSolicitado ps " +
+           "WHERE i.estadoIntercambio = 'PENDIENTE' AND po.estado.id = :publicado AND ps.estado.id = :publicado " +
+           "AND (po.id IN :productos OR ps.id IN :productos) AND i.id > :despuesDe ORDER BY i.id")
+    List<OfertaPendienteDTO> findOfertasPendientesParaGrafoDeProductos(@Param("publicado") Integer publicado,
+                                                                      @Param("productos") Collection<Long> productos,
+                                                                      @Param("despuesDe") Long despuesDe, Pageable pageable);
+
     // Verificar si ya existe una oferta pendiente entre dos productos
     @Query("SELECT COUNT(i) > 0 FROM Intercambio i WHERE i.productoSolicitado.id = :productoSolicitadoId AND i.productoOfrecido.id = :productoOfrecidoId AND i.estadoIntercambio = 'PENDIENTE'")
     boolean existsOfertaPendiente(@Param("productoSolicitadoId") Long productoSolicitadoId, @Param("productoOfrecidoId") Long productoOfrecidoId);
@@ -0,0 +1,46 @@
+package com.taller.publicaciones.repository;
+
+import com.taller.publicaciones.model.KeysetCursor;
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+import java.util.List;
+
+// Consultas que leen sólo las columnas pedidas, sin cargar entidades: para ?fields= en los listados.
+// Los atributos son rutas de Publicacion ("titulo", "estado.id"); cada Tuple trae los valores en ese orden.
+public interface PublicacionColumnasRepository {
+
+    // Todos opcionales (null = sin filtro); titulo y descripcion son el LIKE de la búsqueda sin índice
+    record Filtro(Long idAutor, Integer idEstado, KeysetCursor antesDe, Collection<Long> ids,
+                  String titulo, String descripcion) {
+
+        public static Filtro todas() {
+            return new Filtro(null, null, null, null, null, null);
+        }
+
+        public static Filtro porAutor(Long idAutor) {
+            return new Filtro(idAutor, null, null, null, null, null);
+        }
+
+        public Filtro conEstado(Integer idEstado) {
+            return new Filtro(idAutor, idEstado, antesDe, ids, titulo, descripcion);
+        }
+
+        public Filtro antesDe(KeysetCursor cursor) {
+            return new Filtro(idAutor, idEstado, cursor, ids, titulo, descripcion);
+        }
+    }
+
+    // Orden de la paginación por cursor: (fechaCreacion, id) descendente
+    Sort ORDEN_CURSOR = Sort.by(Sort.Direction.DESC, "fechaCreacion", "id");
+
+    // Orden de findAllOrderByFechaCreacionDesc (/page)
+    Sort ORDEN_RECIENTES = Sort.by(Sort.Direction.DESC, "fechaCreacion");
+
+    // El orden es el mismo que usa la consulta de entidades equivalente; sin orden no hay ORDER BY,
+    // igual que findAll o findByIdAutor
+    List<Tuple> findColumnas(List<String> atributos, Filtro filtro, Sort orden, long offset, int limit);
+
+    long countColumnas(Filtro filtro);
+}
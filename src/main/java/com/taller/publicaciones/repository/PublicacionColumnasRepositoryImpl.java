@@ -0,0 +1,86 @@
+package com.taller.publicaciones.repository;
+
+import com.taller.publicaciones.model.Publicacion;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PublicacionColumnasRepositoryImpl implements PublicacionColumnasRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Tuple> findColumnas(List<String> atributos, Filtro filtro, Sort orden, long offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Publicacion> p = query.from(Publicacion.class);
+        List<Selection<?>> columnas = new ArrayList<>();
+        for (String atributo : atributos) {
+            columnas.add(ruta(p, atributo));
+        }
+        query.multiselect(columnas)
+                .where(predicados(cb, p, filtro))
+                .orderBy(QueryUtils.toOrders(orden, p, cb));
+        return entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public long countColumnas(Filtro filtro) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Publicacion> p = query.from(Publicacion.class);
+        query.select(cb.count(p)).where(predicados(cb, p, filtro));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    // "estado.id" se resuelve con la FK de publicaciones; Hibernate no hace join para el id
+    private static Path<?> ruta(Root<Publicacion> p, String atributo) {
+        Path<?> ruta = p;
+        for (String parte : atributo.split("\\.")) {
+            ruta = ruta.get(parte);
+        }
+        return ruta;
+    }
+
+    private static Predicate[] predicados(CriteriaBuilder cb, Root<Publicacion> p, Filtro filtro) {
+        List<Predicate> predicados = new ArrayList<>();
+        if (filtro.idAutor() != null) {
+            predicados.add(cb.equal(p.get("idAutor"), filtro.idAutor()));
+        }
+        if (filtro.idEstado() != null) {
+            predicados.add(cb.equal(p.get("estado").get("id"), filtro.idEstado()));
+        }
+        if (filtro.ids() != null) {
+            predicados.add(p.get("id").in(filtro.ids()));
+        }
+        if (filtro.titulo() != null || filtro.descripcion() != null) {
+            predicados.add(cb.or(
+                    cb.like(p.get("titulo"), "%" + (filtro.titulo() != null ? filtro.titulo() : "") + "%"),
+                    cb.like(p.get("descripcion"), "%" + (filtro.descripcion() != null ? filtro.descripcion() : "") + "%")));
+        }
+        if (filtro.antesDe() != null) {
+            Path<LocalDateTime> fecha = p.get("fechaCreacion");
+            LocalDateTime cursorFecha = filtro.antesDe().getFechaCreacion();
+            predicados.add(cb.or(
+                    cb.lessThan(fecha, cursorFecha),
+                    cb.and(cb.equal(fecha, cursorFecha), cb.lessThan(p.get("id"), filtro.antesDe().getId()))));
+        }
+        return predicados.toArray(Predicate[]::new);
+    }
+}
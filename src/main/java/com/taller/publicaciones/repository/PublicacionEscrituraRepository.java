@@ -0,0 +1,24 @@
+package com.taller.publicaciones.repository;
+
+import com.taller.publicaciones.model.Estado;
+
+import java.util.Collection;
+
+// Escrituras frecuentes sobre publicaciones ya existentes (fotos subidas en segundo plano, transiciones de
+// intercambios). Se hacen como actualizaciones de entidad y no con UPDATE masivos: un UPDATE masivo vacía
+// la región entera de Publicacion en la caché de segundo nivel, una entidad sólo refresca su propia entrada.
+// Todas comparan antes de escribir y la versión (@Version) cubre lo que cambie entre la lectura y el flush.
+public interface PublicacionEscrituraRepository {
+
+    // Cambia el estado de las publicaciones que siguen en alguno de los estados esperados (compare-and-set).
+    // Devuelve cuántas cambió; si son menos que los ids, otra operación se adelantó.
+    int updateEstado(Collection<Long> ids, Estado estado, Collection<Integer> esperados);
+
+    // Publica la URL de una foto subida en segundo plano, sólo si sigue siendo la pendiente (spool)
+    int completeFoto(Long id, String spool, String url, String rendiciones);
+
+    // Registra las rendiciones de una foto ya subida, sólo si la publicación todavía la usa
+    int completeRendiciones(Long id, String url, String rendiciones);
+
+    int discardFotoPendiente(Long id, String spool);
+}
@@ -0,0 +1,68 @@
+package com.taller.publicaciones.repository;
+
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.model.Publicacion;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Objects;
+
+// La versión y fechaModificacion las actualizan @Version y @PreUpdate, como en cualquier otra escritura
+public class PublicacionEscrituraRepositoryImpl implements PublicacionEscrituraRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int updateEstado(Collection<Long> ids, Estado estado, Collection<Integer> esperados) {
+        int actualizadas = 0;
+        for (Long id : ids) {
+            Publicacion publicacion = entityManager.find(Publicacion.class, id);
+            if (publicacion != null && esperados.contains(publicacion.getEstado().getId())) {
+                publicacion.setEstado(estado);
+                actualizadas++;
+            }
+        }
+        // Como el UPDATE masivo al que reemplaza: un choque de versión aparece acá y no recién al confirmar
+        entityManager.flush();
+        return actualizadas;
+    }
+
+    @Override
+    @Transactional
+    public int completeFoto(Long id, String spool, String url, String rendiciones) {
+        Publicacion publicacion = entityManager.find(Publicacion.class, id);
+        if (publicacion == null || !spool.equals(publicacion.getFotoPendiente())) {
+            return 0;
+        }
+        publicacion.setUrlFoto(url);
+        publicacion.setRendicionesFoto(rendiciones);
+        publicacion.setFotoPendiente(null);
+        return 1;
+    }
+
+    @Override
+    @Transactional
+    public int completeRendiciones(Long id, String url, String rendiciones) {
+        Publicacion publicacion = entityManager.find(Publicacion.class, id);
+        if (publicacion == null || !Objects.equals(url, publicacion.getUrlFoto())) {
+            return 0;
+        }
+        publicacion.setRendicionesFoto(rendiciones);
+        return 1;
+    }
+
+    @Override
+    @Transactional
+    public int discardFotoPendiente(Long id, String spool) {
+        Publicacion publicacion = entityManager.find(Publicacion.class, id);
+        if (publicacion == null || !spool.equals(publicacion.getFotoPendiente())) {
+            return 0;
+        }
+        publicacion.setFotoPendiente(null);
+        return 1;
+    }
+}
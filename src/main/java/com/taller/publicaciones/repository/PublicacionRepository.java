@@ -1,18 +1,32 @@
 package com.taller.publicaciones.repository;
 
+import com.taller.publicaciones.model.MarcaModificacion;
 import com.taller.publicaciones.model.Publicacion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.hibernate.jpa.HibernateHints;
+import jakarta.persistence.QueryHint;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface PublicacionRepository extends JpaRepository<Publicacion, Long> {
+public interface PublicacionRepository extends JpaRepository<Publicacion, Long>, PublicacionColumnasRepository,
+        PublicacionEscrituraRepository {
 
+    // En la caché de consultas si está activa (cache.l2.consultas); se invalida con cualquier escritura a publicaciones
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Publicacion> findByIdAutor(Long idAutor);
     
     Page<Publicacion> findByIdAutor(Long idAutor, Pageable pageable);
@@ -27,6 +41,65 @@ public interface PublicacionRepository extends JpaRepository<Publicacion, Long>
     @Query("SELECT p FROM Publicacion p ORDER BY p.fechaCreacion DESC")
     Page<Publicacion> findAllOrderByFechaCreacionDesc(Pageable pageable);
 
+    // Paginación por cursor: devuelven Slice para no ejecutar el COUNT(*) de Page
+    @Query("SELECT p FROM Publicacion p ORDER BY p.fechaCreacion DESC, p.id DESC")
+    Slice<Publicacion> findSliceOrderByFechaCreacionDesc(Pageable pageable);
+
+    @Query("SELECT p FROM Publicacion p WHERE p.fechaCreacion < :fecha OR (p.fechaCreacion = :fecha AND p.id < :id) " +
+           "ORDER BY p.fechaCreacion DESC, p.id DESC")
+    Slice<Publicacion> findSliceBefore(@Param("fecha") LocalDateTime fecha, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT p FROM Publicacion p WHERE p.idAutor = :idAutor ORDER BY p.fechaCreacion DESC, p.id DESC")
+    Slice<Publicacion> findSliceByIdAutor(@Param("idAutor") Long idAutor, Pageable pageable);
+
+    @Query("SELECT p FROM Publicacion p WHERE p.idAutor = :idAutor " +
+           "AND (p.fechaCreacion < :fecha OR (p.fechaCreacion = :fecha AND p.id < :id)) " +
+           "ORDER BY p.fechaCreacion DESC, p.id DESC")
+    Slice<Publicacion> findSliceByIdAutorBefore(@Param("idAutor") Long idAutor, @Param("fecha") LocalDateTime fecha,
+                                                @Param("id") Long id, Pageable pageable);
+
+    // Recorrido con cursor JDBC para la exportación; el estado viene en la misma fila
+    @Query("SELECT p FROM Publicacion p JOIN FETCH p.estado ORDER BY p.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Publicacion> streamAll();
+
+    @Query("SELECT p FROM Publicacion p JOIN FETCH p.estado WHERE p.estado.id = :idEstado ORDER BY p.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Publicacion> streamByEstado(@Param("idEstado") Integer idEstado);
+
+    @Query("SELECT p FROM Publicacion p JOIN FETCH p.estado WHERE p.id IN :ids")
+    List<Publicacion> findAllWithEstadoByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id FROM Publicacion p WHERE p.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Las filas creadas antes de agregar @Version no tienen versión
+    @Transactional
+    @Modifying
+    @Query("UPDATE Publicacion p SET p.version = 0 WHERE p.version IS NULL")
+    int initializeMissingVersions();
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Publicacion p SET p.fechaModificacion = p.fechaCreacion WHERE p.fechaModificacion IS NULL")
+    int initializeMissingFechaModificacion();
+
+    // Validadores para GET condicional, sin cargar la entidad
+    @Query("SELECT p.version AS version, p.fechaModificacion AS fechaModificacion FROM Publicacion p WHERE p.id = :id")
+    Optional<MarcaModificacion> findMarcaById(@Param("id") Long id);
+
+    List<Publicacion> findByFotoPendienteIsNotNull();
+
+    @Query("SELECT p.urlFoto, p.rendicionesFoto FROM Publicacion p WHERE p.urlFoto IS NOT NULL")
+    List<Object[]> findFotos();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Publicacion> findByEstado_Id(Integer idEstado);
 
     List<Publicacion> findByIdAutorAndEstado_Id(Long idAutor, Integer idEstado);
@@ -0,0 +1,299 @@
+package com.taller.publicaciones.search;
+
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.repository.PublicacionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Índice invertido en memoria sobre titulo y descripcion, con ranking BM25.
+// Reemplaza el LIKE '%...%' de PublicacionRepository, que no puede usar índices.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PublicacionSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double TITULO_BOOST = 2.0;
+    private static final double PREFIX_PENALTY = 0.5;
+    private static final int MAX_PREFIX_EXPANSION = 50;
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    // A igual puntaje, primero las publicaciones más recientes (id mayor)
+    private static final Comparator<Map.Entry<Long, Double>> BY_SCORE_DESC =
+            Map.Entry.<Long, Double>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed());
+
+    private final PublicacionRepository publicacionRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final FieldIndex titulo = new FieldIndex();
+    private final FieldIndex descripcion = new FieldIndex();
+    // Ids eliminados mientras se reconstruye, para que la reconstrucción no los resucite
+    private final Set<Long> tombstones = new HashSet<>();
+    private boolean rebuilding;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            titulo.clear();
+            descripcion.clear();
+            tombstones.clear();
+            rebuilding = true;
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            Pageable pageable = PageRequest.of(0, REBUILD_BATCH_SIZE, Sort.by("id"));
+            Page<Publicacion> batch;
+            do {
+                batch = publicacionRepository.findAll(pageable);
+                lock.writeLock().lock();
+                try {
+                    for (Publicacion publicacion : batch) {
+                        Long id = publicacion.getId();
+                        // Si ya fue indexada por una escritura concurrente, esa versión es más nueva
+                        if (!titulo.contains(id) && !tombstones.contains(id)) {
+                            add(id, publicacion.getTitulo(), publicacion.getDescripcion());
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                pageable = batch.nextPageable();
+            } while (batch.hasNext());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+                tombstones.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        ready = true;
+        log.info("Search index rebuilt with {} publications in {} ms", size(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return titulo.documentCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void index(Long id, String tituloText, String descripcionText) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            add(id, tituloText, descripcionText);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            if (rebuilding) {
+                tombstones.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Aplica el cambio al índice sólo cuando la transacción en curso hace commit
+    public void indexAfterCommit(Publicacion publicacion) {
+        Long id = publicacion.getId();
+        String tituloText = publicacion.getTitulo();
+        String descripcionText = publicacion.getDescripcion();
+        runAfterCommit(() -> index(id, tituloText, descripcionText));
+    }
+
+    public void removeAfterCommit(Long id) {
+        runAfterCommit(() -> remove(id));
+    }
+
+    public Page<Long> search(String tituloQuery, String descripcionQuery, Pageable pageable) {
+        List<String> tituloTerms = SpanishAnalyzer.analyze(tituloQuery);
+        List<String> descripcionTerms = SpanishAnalyzer.analyze(descripcionQuery);
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            if (tituloTerms.isEmpty() && descripcionTerms.isEmpty()) {
+                // Igual que LIKE '%%': sin términos útiles coinciden todas
+                titulo.allDocuments().forEach(id -> scores.put(id, 0.0));
+            }
+            titulo.score(tituloTerms, TITULO_BOOST, scores);
+            descripcion.score(descripcionTerms, 1.0, scores);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (pageable.isUnpaged()) {
+            List<Map.Entry<Long, Double>> all = new ArrayList<>(scores.entrySet());
+            all.sort(BY_SCORE_DESC);
+            return new PageImpl<>(all.stream().map(Map.Entry::getKey).toList(), pageable, all.size());
+        }
+
+        long limit = pageable.getOffset() + pageable.getPageSize();
+        if (pageable.getOffset() >= scores.size()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, scores.size());
+        }
+
+        // Top-k con un heap acotado en vez de ordenar todos los resultados
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(BY_SCORE_DESC.reversed());
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<Long, Double>> top = new ArrayList<>(heap);
+        top.sort(BY_SCORE_DESC);
+        List<Long> ids = top.subList((int) pageable.getOffset(), top.size()).stream()
+                .map(Map.Entry::getKey)
+                .toList();
+        return new PageImpl<>(ids, pageable, scores.size());
+    }
+
+    private void add(Long id, String tituloText, String descripcionText) {
+        titulo.add(id, SpanishAnalyzer.analyze(tituloText));
+        descripcion.add(id, SpanishAnalyzer.analyze(descripcionText));
+    }
+
+    private void removeInternal(Long id) {
+        titulo.remove(id);
+        descripcion.remove(id);
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class FieldIndex {
+
+        private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        private final Map<Long, Integer> lengths = new HashMap<>();
+        private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+        private long totalLength;
+
+        boolean contains(Long id) {
+            return lengths.containsKey(id);
+        }
+
+        Set<Long> allDocuments() {
+            return lengths.keySet();
+        }
+
+        int documentCount() {
+            return lengths.size();
+        }
+
+        void clear() {
+            postings.clear();
+            lengths.clear();
+            documentTerms.clear();
+            totalLength = 0;
+        }
+
+        void add(Long id, List<String> tokens) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String token : tokens) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+            frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, tf));
+            lengths.put(id, tokens.size());
+            documentTerms.put(id, frequencies.keySet());
+            totalLength += tokens.size();
+        }
+
+        void remove(Long id) {
+            Integer length = lengths.remove(id);
+            if (length == null) {
+                return;
+            }
+            totalLength -= length;
+            for (String term : documentTerms.remove(id)) {
+                Map<Long, Integer> docs = postings.get(term);
+                docs.remove(id);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+
+        void score(List<String> queryTerms, double boost, Map<Long, Double> scores) {
+            int n = lengths.size();
+            if (n == 0 || queryTerms.isEmpty()) {
+                return;
+            }
+            double avgLength = Math.max(1.0, (double) totalLength / n);
+            for (String queryTerm : new HashSet<>(queryTerms)) {
+                // El término exacto puntúa completo; los que sólo lo tienen como prefijo, con penalización
+                int expanded = 0;
+                for (Map.Entry<String, Map<Long, Integer>> entry
+                        : postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).entrySet()) {
+                    if (expanded++ >= MAX_PREFIX_EXPANSION) {
+                        break;
+                    }
+                    double weight = entry.getKey().equals(queryTerm) ? boost : boost * PREFIX_PENALTY;
+                    Map<Long, Integer> docs = entry.getValue();
+                    double idf = Math.log(1 + (n - docs.size() + 0.5) / (docs.size() + 0.5));
+                    for (Map.Entry<Long, Integer> doc : docs.entrySet()) {
+                        int tf = doc.getValue();
+                        double norm = K1 * (1 - B + B * lengths.get(doc.getKey()) / avgLength);
+                        scores.merge(doc.getKey(), weight * idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                    }
+                }
+            }
+        }
+    }
+}
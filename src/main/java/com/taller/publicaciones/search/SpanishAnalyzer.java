@@ -0,0 +1,87 @@
+package com.taller.publicaciones.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Tokenizador para texto en español: minúsculas, sin tildes ni diéresis, sin stopwords
+// y con un stemming ligero de plurales y género (similar al SpanishLightStemmer de Lucene)
+public final class SpanishAnalyzer {
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "al", "algo", "ante", "con", "como", "de", "del", "desde", "durante", "e", "el", "ella",
+            "ellos", "en", "entre", "es", "esta", "este", "esto", "hasta", "la", "las", "le", "les", "lo",
+            "los", "mas", "me", "mi", "mis", "muy", "ni", "no", "o", "para", "pero", "por", "que", "se",
+            "sin", "sobre", "su", "sus", "tu", "tus", "u", "un", "una", "unas", "unos", "y", "ya"
+    );
+
+    private SpanishAnalyzer() {
+    }
+
+    public static List<String> analyze(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean letterOrDigit = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (letterOrDigit && start < 0) {
+                start = i;
+            } else if (!letterOrDigit && start >= 0) {
+                String token = folded.substring(start, i);
+                if (!STOPWORDS.contains(token)) {
+                    tokens.add(stem(token));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    static String stem(String token) {
+        int len = token.length();
+        if (len < 4) {
+            return token;
+        }
+        char last = token.charAt(len - 1);
+        if (last == 'o' || last == 'a' || last == 'e') {
+            return token.substring(0, len - 1);
+        }
+        if (last == 's') {
+            char c2 = token.charAt(len - 2);
+            char c3 = token.charAt(len - 3);
+            // "lapices" -> "lapiz"
+            if (c2 == 'e' && c3 == 'c') {
+                return token.substring(0, len - 3) + "z";
+            }
+            // "camiones" -> "camion", "meses" -> "mes"
+            if (c2 == 'e' && !isVowel(c3)) {
+                return token.substring(0, len - 2);
+            }
+            if (c2 == 'o' || c2 == 'a' || c2 == 'e') {
+                return token.substring(0, len - 2);
+            }
+        }
+        return token;
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+}
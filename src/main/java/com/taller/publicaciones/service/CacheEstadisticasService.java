@@ -0,0 +1,38 @@
+package com.taller.publicaciones.service;
+
+import com.taller.publicaciones.model.CacheRegionDTO;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class CacheEstadisticasService {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    // Una fila por región (entidades y caché de consultas) y una con el total; vacío si no hay estadísticas
+    public List<CacheRegionDTO> getEstadisticas() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<CacheRegionDTO> regiones = new ArrayList<>();
+        if (!statistics.isStatisticsEnabled()) {
+            return regiones;
+        }
+        Arrays.stream(statistics.getSecondLevelCacheRegionNames()).sorted().forEach(nombre -> {
+            CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(nombre);
+            regiones.add(new CacheRegionDTO(nombre, region.getHitCount(), region.getMissCount(), region.getPutCount()));
+        });
+        regiones.add(new CacheRegionDTO("consultas", statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount()));
+        regiones.add(new CacheRegionDTO("total", statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(), statistics.getSecondLevelCachePutCount()));
+        return regiones;
+    }
+}
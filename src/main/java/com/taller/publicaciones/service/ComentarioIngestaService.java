@@ -0,0 +1,203 @@
+package com.taller.publicaciones.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.taller.publicaciones.model.Comentario;
+import com.taller.publicaciones.model.IngestaComentarioDTO;
+import com.taller.publicaciones.model.IngestaComentarioDTO.EstadoIngesta;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Ingesta de comentarios con commit agrupado, para las ráfagas sobre publicaciones calientes: el request
+// sólo encola el comentario (cola acotada) y recibe un ticket. Un único hilo escritor junta lo encolado y
+// lo guarda con ComentarioService.saveLote en una transacción por lote: hasta maxLote comentarios, o lo
+// que haya llegado cuando el primero del lote cumple maxLatencia. Con la cola llena aceptar() devuelve
+// vacío y el controlador responde 429. El resultado de cada ticket se guarda por un tiempo para consultarlo.
+@Service
+@Slf4j
+public class ComentarioIngestaService {
+
+    // Cada cuánto el escritor, mientras espera, revisa si la aplicación se está cerrando
+    private static final long SONDEO_MS = 100;
+
+    private record Entrada(String ticket, Comentario comentario, long recibida) {}
+
+    private final ComentarioService comentarioService;
+    private final BlockingQueue<Entrada> cola;
+    private final int maxLote;
+    private final long maxLatenciaNanos;
+    private final Cache<String, IngestaComentarioDTO> resultados;
+    private final Thread escritor;
+    private final Counter colaLlena;
+    private final DistributionSummary tamanoLote;
+    private final Timer espera;
+    private final long esperaCierreMs;
+
+    // aceptar() revisa activa y encola bajo la lectura; shutdown() apaga bajo la escritura. Así nada entra
+    // a la cola después de que el escritor puede haberla vaciado por última vez.
+    private final ReadWriteLock cierre = new ReentrantReadWriteLock();
+    private volatile boolean activa = true;
+
+    public ComentarioIngestaService(ComentarioService comentarioService, MeterRegistry meterRegistry,
+                                    @Value("${comentarios.ingesta.capacidad:10000}") int capacidad,
+                                    @Value("${comentarios.ingesta.max-lote:200}") int maxLote,
+                                    @Value("${comentarios.ingesta.max-latencia-ms:50}") long maxLatenciaMs,
+                                    @Value("${comentarios.ingesta.retencion-segundos:600}") long retencionSegundos,
+                                    @Value("${comentarios.ingesta.espera-cierre-ms:30000}") long esperaCierreMs) {
+        this.comentarioService = comentarioService;
+        this.esperaCierreMs = esperaCierreMs;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.maxLote = maxLote;
+        this.maxLatenciaNanos = TimeUnit.MILLISECONDS.toNanos(maxLatenciaMs);
+        this.resultados = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(retencionSegundos))
+                .build();
+        Gauge.builder("comentarios.ingesta.cola", cola, BlockingQueue::size)
+                .description("Comentarios aceptados que esperan su lote")
+                .register(meterRegistry);
+        this.colaLlena = Counter.builder("comentarios.ingesta.rechazados")
+                .description("Comentarios rechazados con 429 porque la cola estaba llena")
+                .register(meterRegistry);
+        this.tamanoLote = DistributionSummary.builder("comentarios.ingesta.lote")
+                .description("Comentarios guardados por transacción")
+                .register(meterRegistry);
+        this.espera = Timer.builder("comentarios.ingesta.espera")
+                .description("Desde que se acepta un comentario hasta que su lote se confirma")
+                .register(meterRegistry);
+        this.escritor = new Thread(this::escribir, "comentarios-ingesta");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    // El ticket para consultar el resultado, o vacío si la cola está llena
+    public Optional<String> aceptar(Comentario comentario) {
+        comentario.setId(null);
+        String ticket = UUID.randomUUID().toString();
+        IngestaComentarioDTO pendiente = new IngestaComentarioDTO(ticket, EstadoIngesta.PENDIENTE, null, null);
+        resultados.put(ticket, pendiente);
+        boolean encolado;
+        cierre.readLock().lock();
+        try {
+            encolado = activa && cola.offer(new Entrada(ticket, comentario, System.nanoTime()));
+        } finally {
+            cierre.readLock().unlock();
+        }
+        if (!encolado) {
+            resultados.invalidate(ticket);
+            colaLlena.increment();
+            return Optional.empty();
+        }
+        return Optional.of(ticket);
+    }
+
+    // Vacío si el ticket no existe o ya venció
+    public Optional<IngestaComentarioDTO> consultar(String ticket) {
+        return Optional.ofNullable(resultados.getIfPresent(ticket));
+    }
+
+    private void escribir() {
+        List<Entrada> lote = new ArrayList<>(maxLote);
+        while (activa || !cola.isEmpty()) {
+            try {
+                Entrada primera = cola.poll(SONDEO_MS, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    continue;
+                }
+                lote.add(primera);
+                cola.drainTo(lote, maxLote - 1);
+                long limite = primera.recibida() + maxLatenciaNanos;
+                while (lote.size() < maxLote && activa) {
+                    long restante = limite - System.nanoTime();
+                    if (restante <= 0) {
+                        break;
+                    }
+                    Entrada otra = cola.poll(Math.min(restante, TimeUnit.MILLISECONDS.toNanos(SONDEO_MS)), TimeUnit.NANOSECONDS);
+                    if (otra != null) {
+                        lote.add(otra);
+                        cola.drainTo(lote, maxLote - lote.size());
+                    }
+                }
+                confirmar(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Comment ingestion batch failed unexpectedly: {}", e.getMessage(), e);
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void confirmar(List<Entrada> lote) {
+        try {
+            comentarioService.saveLote(lote.stream().map(Entrada::comentario).toList());
+            for (Entrada entrada : lote) {
+                Comentario comentario = entrada.comentario();
+                if (comentario.getId() != null) {
+                    resolver(entrada, EstadoIngesta.GUARDADO, comentario.getId(), null);
+                } else {
+                    resolver(entrada, EstadoIngesta.RECHAZADO, null,
+                            "Publicacion not found with id: " + comentario.getIdPublicacion());
+                }
+            }
+            tamanoLote.record(lote.size());
+        } catch (RuntimeException e) {
+            // Un comentario que la base rechaza no se lleva al resto del lote: se guardan de a uno
+            log.warn("Comment batch of {} failed, saving one by one: {}", lote.size(), e.getMessage());
+            for (Entrada entrada : lote) {
+                Comentario comentario = entrada.comentario();
+                comentario.setId(null);
+                try {
+                    resolver(entrada, EstadoIngesta.GUARDADO, comentarioService.save(comentario).getId(), null);
+                } catch (RuntimeException filaError) {
+                    resolver(entrada, EstadoIngesta.RECHAZADO, null, filaError.getMessage());
+                }
+            }
+        }
+    }
+
+    private void resolver(Entrada entrada, EstadoIngesta estado, Long idComentario, String error) {
+        resultados.put(entrada.ticket(), new IngestaComentarioDTO(entrada.ticket(), estado, idComentario, error));
+        espera.record(System.nanoTime() - entrada.recibida(), TimeUnit.NANOSECONDS);
+    }
+
+    // Deja de aceptar y guarda lo que quedó en la cola antes de cerrar. Si el escritor no termina a tiempo,
+    // lo que siga en la cola se resuelve como RECHAZADO para que ningún ticket quede PENDIENTE.
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        cierre.writeLock().lock();
+        try {
+            activa = false;
+        } finally {
+            cierre.writeLock().unlock();
+        }
+        escritor.join(esperaCierreMs);
+        List<Entrada> sinGuardar = new ArrayList<>();
+        cola.drainTo(sinGuardar);
+        if (!sinGuardar.isEmpty()) {
+            log.warn("{} accepted comments were not saved before shutdown", sinGuardar.size());
+            for (Entrada entrada : sinGuardar) {
+                resolver(entrada, EstadoIngesta.RECHAZADO, null, "Service shutting down");
+            }
+        }
+    }
+}
@@ -1,16 +1,30 @@
 package com.taller.publicaciones.service;
 
 import com.taller.publicaciones.model.Comentario;
+import com.taller.publicaciones.model.ComentarioResumen;
+import com.taller.publicaciones.model.KeysetCursor;
+import com.taller.publicaciones.model.MarcaModificacion;
+import com.taller.publicaciones.model.VersionRecurso;
 import com.taller.publicaciones.repository.ComentarioRepository;
+import com.taller.publicaciones.repository.ComentarioResumenRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -19,16 +33,45 @@ import java.util.Optional;
 public class ComentarioService {
 
     private final ComentarioRepository comentarioRepository;
+    private final ComentarioResumenRepository comentarioResumenRepository;
     private final PublicacionService publicacionService;
+    private final NdjsonWriter ndjsonWriter;
 
     public List<Comentario> findAll() {
         return comentarioRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        try (Stream<Comentario> rows = comentarioRepository.streamAll()) {
+            return ndjsonWriter.write(rows, Comentario.class, out);
+        }
+    }
+
     public Optional<Comentario> findById(Long id) {
         return comentarioRepository.findById(id);
     }
 
+    // El comentario se serializa con su publicación: la versión de ella entra en el ETag y su fecha en Last-Modified
+    @Transactional(readOnly = true)
+    public Optional<VersionRecurso> findVersion(Long id) {
+        return comentarioRepository.findMarcaById(id)
+                .map(marca -> VersionRecurso.fuerte(
+                        id + "-" + VersionRecurso.marca(marca.getFechaModificacion()) + "-" + marca.getVersion(),
+                        ultima(marca.getFechaModificacion(), marca.getFechaModificacionPublicacion())));
+    }
+
+    @Transactional(readOnly = true)
+    public VersionRecurso findVersionByIdPublicacion(Long idPublicacion) {
+        MarcaModificacion marca = comentarioRepository.findMarcaByIdPublicacion(idPublicacion);
+        return VersionRecurso.debil(marca.getCantidad() + "-" + VersionRecurso.marca(marca.getFechaModificacion())
+                + "-" + marca.getVersion());
+    }
+
+    private static LocalDateTime ultima(LocalDateTime a, LocalDateTime b) {
+        return a == null || (b != null && b.isAfter(a)) ? b : a;
+    }
+
     public List<Comentario> findByIdPublicacion(Long idPublicacion) {
         return comentarioRepository.findByIdPublicacionOrderByFechaCreacionAsc(idPublicacion);
     }
@@ -37,6 +80,13 @@ public class ComentarioService {
         return comentarioRepository.findByIdPublicacion(idPublicacion, pageable);
     }
 
+    public Slice<Comentario> findByIdPublicacionAfter(Long idPublicacion, KeysetCursor cursor, int size) {
+        Pageable limit = PublicacionService.cursorLimit(size);
+        return cursor == null
+                ? comentarioRepository.findSliceByIdPublicacion(idPublicacion, limit)
+                : comentarioRepository.findSliceByIdPublicacionAfter(idPublicacion, cursor.getFechaCreacion(), cursor.getId(), limit);
+    }
+
     public List<Comentario> findByIdAutor(Long idAutor) {
         return comentarioRepository.findByIdAutor(idAutor);
     }
@@ -45,8 +95,41 @@ public class ComentarioService {
         return comentarioRepository.findByIdAutor(idAutor, pageable);
     }
 
+    public Slice<Comentario> findByIdAutorAfter(Long idAutor, KeysetCursor cursor, int size) {
+        Pageable limit = PublicacionService.cursorLimit(size);
+        return cursor == null
+                ? comentarioRepository.findSliceByIdAutor(idAutor, limit)
+                : comentarioRepository.findSliceByIdAutorBefore(idAutor, cursor.getFechaCreacion(), cursor.getId(), limit);
+    }
+
     public Long countByIdPublicacion(Long idPublicacion) {
-        return comentarioRepository.countByIdPublicacion(idPublicacion);
+        return getResumen(idPublicacion).getCantidad();
+    }
+
+    @Transactional(readOnly = true)
+    public ComentarioResumen getResumen(Long idPublicacion) {
+        return comentarioResumenRepository.findById(idPublicacion)
+                .orElseGet(() -> new ComentarioResumen(idPublicacion));
+    }
+
+    // Reconstruye todos los resúmenes desde la tabla comentarios
+    public int rebuildResumenes() {
+        comentarioResumenRepository.deleteAllInBatch();
+        List<ComentarioResumen> resumenes = comentarioResumenRepository.computeAllFromComentarios();
+        comentarioResumenRepository.saveAll(resumenes);
+        // Las publicaciones sin comentarios también tienen fila, en cero
+        int vacios = comentarioResumenRepository.insertMissing();
+        log.info("Rebuilt comment summaries for {} publications ({} without comments)", resumenes.size() + vacios, vacios);
+        return resumenes.size() + vacios;
+    }
+
+    // Completa las filas que falten sin tocar las existentes
+    public int crearResumenesFaltantes() {
+        int vacios = comentarioResumenRepository.insertMissing();
+        if (vacios > 0) {
+            log.info("Created {} missing comment summaries", vacios);
+        }
+        return vacios;
     }
 
     public Comentario save(Comentario comentario) {
@@ -56,27 +139,84 @@ public class ComentarioService {
         }
 
         log.info("Creating new comment for publication: {}", comentario.getIdPublicacion());
-        return comentarioRepository.save(comentario);
+        Comentario saved = comentarioRepository.save(comentario);
+        applyResumenDelta(saved.getIdPublicacion(), null, saved.getValoracion());
+        return saved;
+    }
+
+    // Guarda en una sola transacción los comentarios cuya publicación existe: una consulta para validar
+    // todas las publicaciones y un UPDATE de resumen por publicación en vez de uno por comentario.
+    // Los que apuntan a una publicación inexistente no se guardan y quedan con id null.
+    public List<Comentario> saveLote(List<Comentario> comentarios) {
+        Set<Long> existentes = publicacionService.findExistingIds(
+                comentarios.stream().map(Comentario::getIdPublicacion).collect(Collectors.toSet()));
+        List<Comentario> validos = comentarios.stream()
+                .filter(comentario -> existentes.contains(comentario.getIdPublicacion()))
+                .toList();
+        List<Comentario> saved = comentarioRepository.saveAll(validos);
+
+        Map<Long, long[]> estrellasPorPublicacion = new HashMap<>();
+        for (Comentario comentario : saved) {
+            estrellasPorPublicacion.computeIfAbsent(comentario.getIdPublicacion(), id -> new long[6])[comentario.getValoracion()]++;
+        }
+        estrellasPorPublicacion.forEach(this::applyResumenDelta);
+        log.info("Saved {} comments for {} publications in one transaction", saved.size(), estrellasPorPublicacion.size());
+        return saved;
     }
 
     public Comentario update(Long id, Comentario comentarioDetails) {
         return comentarioRepository.findById(id)
                 .map(comentario -> {
+                    Integer valoracionAnterior = comentario.getValoracion();
                     comentario.setTexto(comentarioDetails.getTexto());
                     comentario.setValoracion(comentarioDetails.getValoracion());
                     
                     log.info("Updating comment with ID: {}", id);
-                    return comentarioRepository.save(comentario);
+                    Comentario saved = comentarioRepository.save(comentario);
+                    if (!valoracionAnterior.equals(saved.getValoracion())) {
+                        applyResumenDelta(saved.getIdPublicacion(), valoracionAnterior, saved.getValoracion());
+                    }
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Comentario not found with id: " + id));
     }
 
     public void deleteById(Long id) {
-        if (comentarioRepository.existsById(id)) {
-            log.info("Deleting comment with ID: {}", id);
-            comentarioRepository.deleteById(id);
-        } else {
-            throw new RuntimeException("Comentario not found with id: " + id);
+        Comentario comentario = comentarioRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Comentario not found with id: " + id));
+        log.info("Deleting comment with ID: {}", id);
+        comentarioRepository.delete(comentario);
+        applyResumenDelta(comentario.getIdPublicacion(), comentario.getValoracion(), null);
+    }
+
+    // Resta la valoración anterior y suma la nueva (null = no hay) en el resumen de la publicación
+    private void applyResumenDelta(Long idPublicacion, Integer valoracionAnterior, Integer valoracionNueva) {
+        long[] estrellas = new long[6];
+        if (valoracionAnterior != null) {
+            estrellas[valoracionAnterior]--;
+        }
+        if (valoracionNueva != null) {
+            estrellas[valoracionNueva]++;
+        }
+        applyResumenDelta(idPublicacion, estrellas);
+    }
+
+    // estrellas[v] = cuántas valoraciones v se suman (o restan, si es negativo)
+    private void applyResumenDelta(Long idPublicacion, long[] estrellas) {
+        long cantidad = 0;
+        long suma = 0;
+        for (int valoracion = 1; valoracion <= 5; valoracion++) {
+            cantidad += estrellas[valoracion];
+            suma += valoracion * estrellas[valoracion];
+        }
+        int updated = comentarioResumenRepository.applyDelta(idPublicacion, cantidad, suma,
+                estrellas[1], estrellas[2], estrellas[3], estrellas[4], estrellas[5]);
+        if (updated == 0) {
+            // Cada publicación nace con su fila (PublicacionService.save, ImportacionService), así que esto sólo
+            // pasa con filas insertadas por fuera. Se calcula desde los comentarios, que ya incluyen el de ahora,
+            // en esta misma transacción: una segunda conexión mientras ésta sigue abierta puede agotar el pool.
+            log.warn("Comment summary for publication {} was missing, computing it from its comments", idPublicacion);
+            comentarioResumenRepository.insertFromComentarios(idPublicacion);
         }
     }
 
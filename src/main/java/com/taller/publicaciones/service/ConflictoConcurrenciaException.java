@@ -0,0 +1,9 @@
+package com.taller.publicaciones.service;
+
+// Se agotaron los reintentos porque otra operación modificó el mismo intercambio o producto
+public class ConflictoConcurrenciaException extends RuntimeException {
+
+    public ConflictoConcurrenciaException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
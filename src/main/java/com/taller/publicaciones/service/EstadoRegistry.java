@@ -0,0 +1,87 @@
+package com.taller.publicaciones.service;
+
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.repository.EstadoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Copia en memoria de la tabla estado (cinco filas fijas). Se carga una vez al arrancar,
+// después de DataInitializer, y resuelve las búsquedas sin ir a la base de datos.
+// Las instancias son compartidas: no deben modificarse.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EstadoRegistry {
+
+    private final EstadoRepository estadoRepository;
+
+    private volatile Estado[] byId;
+    private volatile List<Estado> all;
+
+    // Lock en vez de synchronized: la carga consulta la base y no debe fijar un hilo virtual a su carrier
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    public void load() {
+        loadLock.lock();
+        try {
+            loadTable();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void loadTable() {
+        List<Estado> estados = estadoRepository.findAll().stream()
+                .map(estado -> new Estado(estado.getId(), estado.getNombre()))
+                .sorted((a, b) -> a.getId().compareTo(b.getId()))
+                .toList();
+        int maxId = estados.stream().mapToInt(Estado::getId).max().orElse(0);
+        Estado[] table = new Estado[maxId + 1];
+        for (Estado estado : estados) {
+            table[estado.getId()] = estado;
+        }
+        this.all = estados;
+        this.byId = table;
+        log.info("Estado registry loaded with {} entries", estados.size());
+    }
+
+    public Estado get(Estado.Tipo tipo) {
+        Estado estado = lookup(tipo.getId());
+        if (estado == null) {
+            throw new RuntimeException("Estado '" + tipo.getNombre() + "' no encontrado");
+        }
+        return estado;
+    }
+
+    public Optional<Estado> findById(Integer id) {
+        return Optional.ofNullable(lookup(id));
+    }
+
+    public List<Estado> findAll() {
+        table();
+        return all;
+    }
+
+    private Estado lookup(Integer id) {
+        Estado[] table = table();
+        if (id == null || id < 0 || id >= table.length) {
+            return null;
+        }
+        return table[id];
+    }
+
+    private Estado[] table() {
+        Estado[] table = byId;
+        if (table == null) {
+            // Sólo si se consulta antes de que DataInitializer haya terminado
+            load();
+            table = byId;
+        }
+        return table;
+    }
+}
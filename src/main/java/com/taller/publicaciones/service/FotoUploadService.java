@@ -0,0 +1,373 @@
+package com.taller.publicaciones.service;
+
+import com.taller.publicaciones.config.VirtualThreads;
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.repository.PublicacionRepository;
+import com.taller.publicaciones.storage.KnownObjectIndex;
+import com.taller.publicaciones.storage.ObjectStorage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Subida de fotos en segundo plano: el archivo se guarda en disco local, la publicación queda con
+// fotoPendiente y un grupo acotado de workers la sube al almacenamiento, reintentando con backoff.
+// Los mismos workers suben las rendiciones reducidas, también cuando el original se subió en el request.
+// Las rendiciones son un paso aparte y best-effort: el original se publica apenas está en el almacenamiento
+// y, si generarlas o subirlas falla, la publicación se queda sin ellas.
+// Un worker sólo arranca la subida y encadena los pasos sobre los futures del almacenamiento: no queda
+// esperando la respuesta de S3. Como mucho fotos.workers subidas están en curso a la vez.
+//
+// Las claves se direccionan por contenido (SHA-256 del archivo): una foto repetida no se vuelve a subir.
+// En el spool cada subida tiene su propio archivo "<uuid>_<clave>", para que dos subidas del mismo
+// contenido no se pisen.
+@Service
+@Slf4j
+public class FotoUploadService {
+
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    // Una subida en curso: url es null mientras el original no está en el almacenamiento
+    private record Subida(Long publicacionId, String spool, String url) {}
+
+    private final ObjectStorage storage;
+    private final ImageRenditionService renditionService;
+    private final KnownObjectIndex knownObjects;
+    private final PublicacionRepository publicacionRepository;
+    private final PublicadosFeed publicadosFeed;
+    private final boolean async;
+    private final Path spoolDir;
+    private final int maxIntentos;
+    private final long backoffMs;
+    private final ScheduledExecutorService workers;
+    private final Semaphore enCurso;
+
+    public FotoUploadService(
+            ObjectStorage storage,
+            ImageRenditionService renditionService,
+            KnownObjectIndex knownObjects,
+            PublicacionRepository publicacionRepository,
+            PublicadosFeed publicadosFeed,
+            VirtualThreads virtualThreads,
+            @Value("${fotos.async:false}") boolean async,
+            @Value("${fotos.spool-dir:${java.io.tmpdir}/publicaciones-spool}") String spoolDir,
+            @Value("${fotos.workers:4}") int workers,
+            @Value("${fotos.max-intentos:5}") int maxIntentos,
+            @Value("${fotos.backoff-ms:500}") long backoffMs) {
+        this.storage = storage;
+        this.renditionService = renditionService;
+        this.knownObjects = knownObjects;
+        this.publicacionRepository = publicacionRepository;
+        this.publicadosFeed = publicadosFeed;
+        this.async = async;
+        this.spoolDir = Paths.get(spoolDir);
+        this.maxIntentos = maxIntentos;
+        this.backoffMs = backoffMs;
+        this.workers = new ScheduledThreadPoolExecutor(workers, virtualThreads.threadFactory("foto-upload-"));
+        this.enCurso = new Semaphore(workers);
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    // Copia el archivo al spool calculando el SHA-256 en la misma pasada; devuelve el nombre en el spool
+    public String spool(MultipartFile file) throws IOException {
+        Files.createDirectories(spoolDir);
+        String id = UUID.randomUUID().toString();
+        Path temp = spoolDir.resolve(id + ".part");
+        MessageDigest digest = sha256();
+        // Se copia en vez de transferTo: el archivo del request puede seguir leyéndose después
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            Files.copy(in, temp);
+        }
+        String spool = id + "_" + HexFormat.of().formatHex(digest.digest()) + extension(file.getOriginalFilename());
+        Files.move(temp, spoolDir.resolve(spool));
+        log.debug("Spooled photo {} ({} bytes)", spool, file.getSize());
+        return spool;
+    }
+
+    // Clave del objeto en el almacenamiento: "<uuid>_<sha256>.jpg" -> "<sha256>.jpg"
+    public static String objectKey(String spool) {
+        return spool.substring(spool.indexOf('_') + 1);
+    }
+
+    // Modo síncrono: sube el original en el hilo del request, salvo que el contenido ya esté subido
+    public String uploadNow(String spool) {
+        return uploadOriginal(objectKey(spool), spoolDir.resolve(spool)).join();
+    }
+
+    // Rendiciones ya subidas para el mismo contenido, o null si hay que generarlas
+    public String knownRendiciones(String spool) {
+        return knownObjects.rendiciones(objectKey(spool));
+    }
+
+    // Encola el trabajo cuando la transacción que guardó la publicación confirma; si se revierte, borra el spool.
+    // Si la foto quedó pendiente se sube el original y las rendiciones; si no, sólo las rendiciones que falten.
+    public void processAfterCommit(Publicacion publicacion, String spool) {
+        boolean pendiente = spool.equals(publicacion.getFotoPendiente());
+        Subida subida = new Subida(publicacion.getId(), spool, pendiente ? null : publicacion.getUrlFoto());
+        boolean nadaQueHacer = !pendiente && publicacion.getRendicionesFoto() != null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED && !nadaQueHacer) {
+                        submit(subida);
+                    } else {
+                        discard(spool);
+                    }
+                }
+            });
+        } else if (nadaQueHacer) {
+            discard(spool);
+        } else {
+            submit(subida);
+        }
+    }
+
+    public void enqueue(Long publicacionId, String spool) {
+        submit(new Subida(publicacionId, spool, null));
+    }
+
+    private void submit(Subida subida) {
+        workers.execute(() -> attempt(subida, 1));
+    }
+
+    // Carga las fotos ya publicadas en el índice, para no tener que preguntarle al almacenamiento por ellas
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadKnownObjects() {
+        for (Object[] foto : publicacionRepository.findFotos()) {
+            knownObjects.add(KnownObjectIndex.keyOf((String) foto[0]), (String) foto[1]);
+        }
+        log.info("Known object index loaded with {} keys", knownObjects.size());
+    }
+
+    // Retoma las subidas que quedaron a medias en una ejecución anterior
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        for (Publicacion publicacion : publicacionRepository.findByFotoPendienteIsNotNull()) {
+            String spool = publicacion.getFotoPendiente();
+            if (Files.exists(spoolDir.resolve(spool))) {
+                enqueue(publicacion.getId(), spool);
+            } else {
+                log.warn("Spooled photo {} for publication {} is gone, clearing marker", spool, publicacion.getId());
+                publicacionRepository.discardFotoPendiente(publicacion.getId(), spool);
+                // fotoPendiente forma parte del JSON del feed
+                publicadosFeed.refresh(List.of(publicacion.getId()));
+            }
+        }
+    }
+
+    // El original y las rendiciones son pasos separados, cada uno con sus reintentos
+    private void attempt(Subida subida, int intento) {
+        if (subida.url() == null) {
+            attemptOriginal(subida, intento);
+        } else {
+            attemptRendiciones(subida, intento);
+        }
+    }
+
+    private void attemptOriginal(Subida subida, int intento) {
+        String key = objectKey(subida.spool());
+        if (!acquire()) {
+            return;
+        }
+        // Se arranca desde un future ya completo: lo que falle, aun de forma síncrona, llega al reintento
+        CompletableFuture.completedFuture(spoolDir.resolve(subida.spool()))
+                .thenCompose(file -> uploadOriginal(key, file))
+                // El permiso se libera al terminar con el almacenamiento, antes de volver a los workers para la base
+                .whenComplete((url, error) -> enCurso.release())
+                .thenAcceptAsync(url -> completeFoto(subida, key, url), workers)
+                .whenComplete((ok, error) -> {
+                    if (error != null) {
+                        retry(subida, key, intento, error);
+                    }
+                });
+    }
+
+    // Best-effort: si fallan, la publicación se queda con el original y sin rendiciones
+    private void attemptRendiciones(Subida subida, int intento) {
+        String key = objectKey(subida.spool());
+        if (!acquire()) {
+            return;
+        }
+        CompletableFuture.completedFuture(spoolDir.resolve(subida.spool()))
+                .thenCompose(file -> {
+                    String conocidas = knownObjects.rendiciones(key);
+                    return conocidas != null
+                            ? CompletableFuture.completedFuture(conocidas)
+                            : uploadRendiciones(key, file).thenApply(rendiciones -> {
+                                if (rendiciones != null) {
+                                    knownObjects.add(key, rendiciones);
+                                }
+                                return rendiciones;
+                            });
+                })
+                .whenComplete((rendiciones, error) -> enCurso.release())
+                .thenAcceptAsync(rendiciones -> completeRendiciones(subida, key, rendiciones), workers)
+                .whenComplete((ok, error) -> {
+                    if (error != null) {
+                        retry(subida, key, intento, error);
+                    }
+                });
+    }
+
+    // Con hilos virtuales, o con los workers libres mientras S3 responde, esto acota las subidas y
+    // las rendiciones en curso; también es lo que frena la cola del pool de rendiciones
+    private boolean acquire() {
+        try {
+            enCurso.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Publica el original en cuanto está en el almacenamiento, sólo si nadie cambió la foto mientras tanto.
+    // Si el contenido ya tenía rendiciones van en la misma actualización; si no, se generan después.
+    private void completeFoto(Subida subida, String key, String url) {
+        String conocidas = knownObjects.rendiciones(key);
+        int updated = publicacionRepository.completeFoto(subida.publicacionId(), subida.spool(), url, conocidas);
+        if (updated == 0) {
+            log.info("Publication {} no longer uses photo {}, discarding it", subida.publicacionId(), key);
+            discard(subida.spool());
+            return;
+        }
+        log.info("Photo for publication {} available at {}", subida.publicacionId(), url);
+        publicadosFeed.refresh(List.of(subida.publicacionId()));
+        if (conocidas != null) {
+            discard(subida.spool());
+        } else {
+            attemptRendiciones(new Subida(subida.publicacionId(), subida.spool(), url), 1);
+        }
+    }
+
+    // Sólo se aplica si la publicación todavía usa la foto; null es que el archivo no era una imagen legible
+    private void completeRendiciones(Subida subida, String key, String rendiciones) {
+        if (rendiciones != null) {
+            int updated = publicacionRepository.completeRendiciones(subida.publicacionId(), subida.url(), rendiciones);
+            if (updated == 0) {
+                log.info("Publication {} no longer uses photo {}, discarding its renditions", subida.publicacionId(), key);
+            } else {
+                log.info("Renditions {} for publication {} available", rendiciones, subida.publicacionId());
+                publicadosFeed.refresh(List.of(subida.publicacionId()));
+            }
+        }
+        discard(subida.spool());
+    }
+
+    private void retry(Subida subida, String key, int intento, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (intento >= maxIntentos) {
+            if (subida.url() == null) {
+                // Se conserva el spool y, si la había, la marca: se reintentará al reiniciar
+                log.error("Giving up on photo {} for publication {} after {} attempts: {}",
+                        key, subida.publicacionId(), intento, cause.getMessage());
+            } else {
+                // El original ya está publicado: sin la marca nadie va a volver por el spool
+                log.error("Giving up on renditions of photo {} for publication {} after {} attempts: {}",
+                        key, subida.publicacionId(), intento, cause.getMessage());
+                discard(subida.spool());
+            }
+            return;
+        }
+        long delay = backoff(intento);
+        log.warn("{} of photo {} failed (attempt {}/{}), retrying in {} ms: {}",
+                subida.url() == null ? "Upload" : "Renditions", key, intento, maxIntentos, delay, cause.getMessage());
+        workers.schedule(() -> attempt(subida, intento + 1), delay, TimeUnit.MILLISECONDS);
+    }
+
+    // Índice local primero; si no está, un HEAD; y sólo si tampoco existe, el PUT
+    private CompletableFuture<String> uploadOriginal(String key, Path file) {
+        if (knownObjects.contains(key)) {
+            log.debug("Photo {} already stored, skipping upload", key);
+            return CompletableFuture.completedFuture(storage.urlFor(key));
+        }
+        return storage.exists(key)
+                .thenCompose(existe -> existe
+                        ? CompletableFuture.completedFuture(storage.urlFor(key))
+                        : storage.upload(key, file, URLConnection.guessContentTypeFromName(key)))
+                .thenApply(url -> {
+                    knownObjects.add(key);
+                    return url;
+                });
+    }
+
+    // Genera las rendiciones en el pool de CPU y las sube en paralelo; devuelve sus anchos o null si no hay
+    private CompletableFuture<String> uploadRendiciones(String key, Path file) {
+        return renditionService.render(file).thenCompose(rendiciones -> CompletableFuture.allOf(rendiciones.stream()
+                        .map(r -> storage.upload(Publicacion.nombreRendicion(key, r.ancho()), r.archivo(), r.contentType()))
+                        .toArray(CompletableFuture[]::new))
+                .whenComplete((ok, error) -> rendiciones.forEach(r -> deleteQuietly(r.archivo())))
+                .thenApply(ok -> rendiciones.isEmpty() ? null : rendiciones.stream()
+                        .map(r -> String.valueOf(r.ancho()))
+                        .collect(Collectors.joining(","))));
+    }
+
+    // Backoff exponencial con jitter para no reintentar todos a la vez
+    private long backoff(int intento) {
+        long base = Math.min(MAX_BACKOFF_MS, backoffMs << Math.min(intento - 1, 16));
+        return base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+
+    public void discard(String spool) {
+        deleteQuietly(spoolDir.resolve(spool));
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled file {}: {}", file.getFileName(), e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // La extensión forma parte de la clave y del nombre en el spool: nada de separadores de ruta
+    private static String extension(String originalFileName) {
+        String extension = originalFileName != null && originalFileName.contains(".")
+                ? originalFileName.substring(originalFileName.lastIndexOf("."))
+                : "";
+        return extension.matches("\\.[A-Za-z0-9]{1,10}") ? extension.toLowerCase() : "";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,196 @@
+package com.taller.publicaciones.service;
+
+import com.taller.publicaciones.model.Publicacion;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Genera versiones reducidas (ancho fijo) de las fotos. La imagen se decodifica una sola vez y cada
+// rendición se obtiene de la anterior, de mayor a menor. Corre en un pool acotado al número de núcleos.
+// La decodificación se hace submuestreada a no más del doble del ancho mayor, así la memoria por
+// imagen depende de los anchos configurados y no del tamaño de la foto.
+@Service
+@Slf4j
+public class ImageRenditionService {
+
+    public record Rendicion(int ancho, Path archivo, String contentType) {}
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final List<Integer> anchos;
+    private final int anchoDecodificado;
+    private final long maxPixeles;
+    private final ThreadPoolExecutor pool;
+
+    // max-pixeles acota la imagen ya decodificada; con 0 es el ancho decodificado por el doble de alto
+    // (8,4 millones de píxeles, unos 34 MB, con el ancho mayor por defecto de 1024)
+    public ImageRenditionService(
+            @Value("${fotos.rendiciones.anchos:160,480,1024}") List<Integer> anchos,
+            @Value("${fotos.rendiciones.max-pixeles:0}") long maxPixeles,
+            @Value("${fotos.rendiciones.hilos:0}") int hilos) {
+        this.anchos = anchos.stream().distinct().sorted((a, b) -> b - a).toList();
+        this.anchoDecodificado = this.anchos.isEmpty() ? 0 : 2 * this.anchos.get(0);
+        this.maxPixeles = maxPixeles > 0 ? maxPixeles : 2L * anchoDecodificado * anchoDecodificado;
+        int threads = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        // Cola sin tope: el que encola puede ser un hilo de E/S del cliente de S3, y no debe ponerse a
+        // decodificar. Lo que frena es FotoUploadService, que no encola más de fotos.workers a la vez.
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread thread = new Thread(r, "foto-rendicion-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Escribe las rendiciones junto al original (mismo directorio) y las devuelve de mayor a menor.
+    // Si el archivo no es una imagen legible, devuelve una lista vacía.
+    public CompletableFuture<List<Rendicion>> render(Path original) {
+        return CompletableFuture.supplyAsync(() -> renderNow(original), pool);
+    }
+
+    List<Rendicion> renderNow(Path original) {
+        if (anchos.isEmpty()) {
+            return List.of();
+        }
+        List<Rendicion> rendiciones = new ArrayList<>();
+        boolean completas = false;
+        try {
+            Decodificada decodificada = decode(original);
+            if (decodificada == null) {
+                return List.of();
+            }
+            boolean png = original.getFileName().toString().toLowerCase().endsWith(".png");
+            String formato = png ? "png" : "jpg";
+            BufferedImage actual = decodificada.imagen();
+            for (int ancho : anchos) {
+                // No se agranda: las que serían más anchas que el original se omiten
+                if (ancho >= decodificada.anchoOriginal()) {
+                    continue;
+                }
+                actual = scale(actual, ancho, png);
+                Path destino = original.resolveSibling(Publicacion.nombreRendicion(original.getFileName().toString(), ancho));
+                write(actual, formato, destino);
+                rendiciones.add(new Rendicion(ancho, destino, png ? "image/png" : "image/jpeg"));
+            }
+            completas = true;
+            return rendiciones;
+        } catch (IOException | RuntimeException e) {
+            // ImageIO también falla con IllegalArgumentException y similares ante archivos corruptos
+            log.warn("Could not create renditions for {}: {}", original.getFileName(), e.toString());
+            return List.of();
+        } finally {
+            // Incluye errores como OutOfMemoryError, que se propagan al future
+            if (!completas) {
+                rendiciones.forEach(r -> deleteQuietly(r.archivo()));
+            }
+        }
+    }
+
+    private record Decodificada(BufferedImage imagen, int anchoOriginal) {}
+
+    private Decodificada decode(Path original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                log.info("{} is not a supported image, skipping renditions", original.getFileName());
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                // Se mira el tamaño antes de decodificar y se elige un paso de submuestreo que deje la imagen
+                // en no más del doble del ancho mayor y dentro de max-pixeles
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int paso = (int) Math.max(
+                        Math.ceil((double) width / anchoDecodificado),
+                        Math.ceil(Math.sqrt((double) width * height / maxPixeles)));
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (paso > 1) {
+                    param.setSourceSubsampling(paso, paso, 0, 0);
+                }
+                return new Decodificada(reader.read(0, param), width);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Reduce a la mitad mientras se pueda y termina con un paso bilineal: mejor calidad que un solo salto
+    private static BufferedImage scale(BufferedImage source, int ancho, boolean alpha) {
+        BufferedImage actual = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(ancho, width / 2);
+            height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+            BufferedImage next = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(actual, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            actual = next;
+        } while (width > ancho);
+        return actual;
+    }
+
+    private static void write(BufferedImage image, String formato, Path destino) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(formato).next();
+        try (OutputStream out = Files.newOutputStream(destino);
+             ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpg".equals(formato)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete rendition {}: {}", file.getFileName(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,415 @@
+package com.taller.publicaciones.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taller.publicaciones.model.ComentarioResumen;
+import com.taller.publicaciones.model.ImportacionErrorDTO;
+import com.taller.publicaciones.model.ImportacionResultadoDTO;
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.search.PublicacionSearchIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Importación masiva de publicaciones desde CSV (con encabezado) o NDJSON, leída en streaming.
+// Las filas válidas se escriben en lotes de importacion.lote, cada uno en su propia transacción:
+//  - en PostgreSQL, con COPY sobre ids reservados de la secuencia (importacion.copy=false lo desactiva)
+//  - en el resto, con persist de Hibernate en lotes JDBC de importacion.flush-cada, con flush/clear entre
+//    lotes para que el contexto de persistencia no crezca con el archivo
+// Si un lote falla en la base, sus filas se reintentan de a una con persist para saber cuáles fallan.
+// Cada fila rechazada se informa con su línea; las demás se importan igual.
+@Service
+@Slf4j
+public class ImportacionService {
+
+    public enum Formato { CSV, NDJSON }
+
+    public static final String METODO_COPY = "copy";
+    public static final String METODO_LOTES = "jdbc-batch";
+
+    static final List<String> COLUMNAS_OBLIGATORIAS = List.of("titulo", "descripcion", "precio", "idAutor", "estadoId");
+
+    private static final String COPY_SQL = "COPY publicaciones (id, titulo, descripcion, precio, url_foto, id_autor, "
+            + "id_estado, fecha_creacion, fecha_modificacion, version) FROM STDIN WITH (FORMAT csv)";
+
+    // Una fila leída del archivo: valores por nombre de columna, o el error si no se pudo leer
+    private record Fila(long linea, Map<String, String> valores, String error) {}
+
+    private interface FuenteFilas {
+        Fila siguiente() throws IOException;
+    }
+
+    // Una fila válida a la espera de su lote; la entidad se arma de nuevo en cada intento
+    private record Pendiente(long linea, Publicacion datos) {
+        Publicacion entidad() {
+            Publicacion publicacion = new Publicacion();
+            publicacion.setTitulo(datos.getTitulo());
+            publicacion.setDescripcion(datos.getDescripcion());
+            publicacion.setPrecio(datos.getPrecio());
+            publicacion.setUrlFoto(datos.getUrlFoto());
+            publicacion.setIdAutor(datos.getIdAutor());
+            publicacion.setEstado(datos.getEstado());
+            return publicacion;
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final EstadoRegistry estadoRegistry;
+    private final PublicacionSecuencia publicacionSecuencia;
+    private final PublicacionSearchIndex searchIndex;
+    private final PublicadosFeed publicadosFeed;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int lote;
+    private final int flushCada;
+    private final boolean copyHabilitado;
+    private final int maxErrores;
+
+    private volatile Boolean postgres;
+
+    public ImportacionService(PlatformTransactionManager transactionManager, JdbcTemplate jdbcTemplate,
+                              EstadoRegistry estadoRegistry, PublicacionSecuencia publicacionSecuencia,
+                              PublicacionSearchIndex searchIndex, PublicadosFeed publicadosFeed,
+                              Validator validator, ObjectMapper objectMapper,
+                              @Value("${importacion.lote:1000}") int lote,
+                              @Value("${importacion.flush-cada:100}") int flushCada,
+                              @Value("${importacion.copy:true}") boolean copyHabilitado,
+                              @Value("${importacion.max-errores:1000}") int maxErrores) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.estadoRegistry = estadoRegistry;
+        this.publicacionSecuencia = publicacionSecuencia;
+        this.searchIndex = searchIndex;
+        this.publicadosFeed = publicadosFeed;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.lote = lote;
+        this.flushCada = flushCada;
+        this.copyHabilitado = copyHabilitado;
+        this.maxErrores = maxErrores;
+    }
+
+    // IllegalArgumentException si el CSV no trae las columnas obligatorias en el encabezado
+    public ImportacionResultadoDTO importar(InputStream entrada, Formato formato) throws IOException {
+        long inicio = System.nanoTime();
+        Reader reader = new InputStreamReader(entrada, StandardCharsets.UTF_8);
+        FuenteFilas filas = formato == Formato.CSV ? csv(reader) : ndjson(reader);
+        ImportacionResultadoDTO resultado = new ImportacionResultadoDTO(
+                usarCopy() ? METODO_COPY : METODO_LOTES, 0, 0, 0, new ArrayList<>(), 0, 0);
+
+        List<Pendiente> pendientes = new ArrayList<>(lote);
+        Fila fila;
+        while ((fila = filas.siguiente()) != null) {
+            resultado.setFilasLeidas(resultado.getFilasLeidas() + 1);
+            try {
+                pendientes.add(new Pendiente(fila.linea(), convertir(fila)));
+            } catch (IllegalArgumentException e) {
+                rechazar(resultado, fila.linea(), e.getMessage());
+            }
+            if (pendientes.size() == lote) {
+                escribir(pendientes, resultado);
+                pendientes.clear();
+            }
+        }
+        escribir(pendientes, resultado);
+        // Los errores de lectura se anotan al leer y los de la base al escribir el lote
+        resultado.getErrores().sort(Comparator.comparingLong(ImportacionErrorDTO::getLinea));
+
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        resultado.setSegundos(segundos);
+        resultado.setFilasPorSegundo(segundos > 0 ? resultado.getImportadas() / segundos : 0);
+        log.info("Imported {} of {} publications via {} in {} s ({} rows/s), {} rejected",
+                resultado.getImportadas(), resultado.getFilasLeidas(), resultado.getMetodo(),
+                String.format("%.2f", segundos), String.format("%.0f", resultado.getFilasPorSegundo()),
+                resultado.getRechazadas());
+        return resultado;
+    }
+
+    private Publicacion convertir(Fila fila) {
+        if (fila.error() != null) {
+            throw new IllegalArgumentException(fila.error());
+        }
+        Map<String, String> valores = fila.valores();
+        Publicacion publicacion = new Publicacion();
+        publicacion.setTitulo(valores.get("titulo"));
+        publicacion.setDescripcion(valores.get("descripcion"));
+        publicacion.setPrecio(numero(valores, "precio", Integer::valueOf));
+        publicacion.setIdAutor(numero(valores, "idAutor", Long::valueOf));
+        String urlFoto = valores.get("urlFoto");
+        publicacion.setUrlFoto(urlFoto == null || urlFoto.isBlank() ? null : urlFoto);
+        Integer estadoId = numero(valores, "estadoId", Integer::valueOf);
+        if (estadoId != null) {
+            publicacion.setEstado(estadoRegistry.findById(estadoId)
+                    .orElseThrow(() -> new IllegalArgumentException("Estado no encontrado con id: " + estadoId)));
+        }
+        Set<ConstraintViolation<Publicacion>> violaciones = validator.validate(publicacion);
+        if (!violaciones.isEmpty()) {
+            throw new IllegalArgumentException(violaciones.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        return publicacion;
+    }
+
+    private static <T> T numero(Map<String, String> valores, String columna, Function<String, T> parser) {
+        String valor = valores.get(columna);
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        try {
+            return parser.apply(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(columna + " inválido: '" + valor + "'");
+        }
+    }
+
+    private void escribir(List<Pendiente> pendientes, ImportacionResultadoDTO resultado) {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        try {
+            if (METODO_COPY.equals(resultado.getMetodo())) {
+                copiar(pendientes);
+            } else {
+                insertar(pendientes);
+            }
+            resultado.setImportadas(resultado.getImportadas() + pendientes.size());
+        } catch (RuntimeException e) {
+            log.warn("Import batch of {} rows starting at line {} failed, retrying row by row: {}",
+                    pendientes.size(), pendientes.get(0).linea(), e.getMessage());
+            for (Pendiente pendiente : pendientes) {
+                try {
+                    insertar(List.of(pendiente));
+                    resultado.setImportadas(resultado.getImportadas() + 1);
+                } catch (RuntimeException filaError) {
+                    rechazar(resultado, pendiente.linea(), causa(filaError));
+                }
+            }
+        }
+    }
+
+    private void insertar(List<Pendiente> pendientes) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            session.setJdbcBatchSize(flushCada);
+            // Miles de entidades recién creadas no tienen por qué ocupar la caché de segundo nivel
+            session.setCacheMode(CacheMode.IGNORE);
+            List<Publicacion> nuevas = new ArrayList<>(pendientes.size());
+            for (Pendiente pendiente : pendientes) {
+                Publicacion publicacion = pendiente.entidad();
+                entityManager.persist(publicacion);
+                nuevas.add(publicacion);
+                if (nuevas.size() % flushCada == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+            crearResumenes(nuevas);
+            despuesDeConfirmar(nuevas);
+        });
+    }
+
+    private void copiar(List<Pendiente> pendientes) {
+        long[] ids = publicacionSecuencia.reservar(pendientes.size());
+        LocalDateTime ahora = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<Publicacion> nuevas = new ArrayList<>(pendientes.size());
+        StringBuilder csv = new StringBuilder(pendientes.size() * 128);
+        for (int i = 0; i < pendientes.size(); i++) {
+            Publicacion publicacion = pendientes.get(i).entidad();
+            publicacion.setId(ids[i]);
+            publicacion.setFechaCreacion(ahora);
+            publicacion.setFechaModificacion(ahora);
+            publicacion.setVersion(0L);
+            nuevas.add(publicacion);
+            csv.append(publicacion.getId()).append(',')
+                    .append(comillas(publicacion.getTitulo())).append(',')
+                    .append(comillas(publicacion.getDescripcion())).append(',')
+                    .append(publicacion.getPrecio()).append(',')
+                    // Sin comillas, vacío es NULL
+                    .append(publicacion.getUrlFoto() == null ? "" : comillas(publicacion.getUrlFoto())).append(',')
+                    .append(publicacion.getIdAutor()).append(',')
+                    .append(publicacion.getEstado().getId()).append(',')
+                    .append(ahora).append(',')
+                    .append(ahora).append(",0\n");
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).doWork(connection -> {
+                try {
+                    connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL, new StringReader(csv.toString()));
+                } catch (IOException e) {
+                    throw new SQLException("COPY failed", e);
+                }
+            });
+            crearResumenes(nuevas);
+            despuesDeConfirmar(nuevas);
+            // COPY no pasa por Hibernate: las consultas cacheadas sobre publicaciones quedarían viejas
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                            .getCache().evictQueryRegions();
+                }
+            });
+        });
+    }
+
+    // Igual que PublicacionService.save, cada publicación nueva entra con su resumen de comentarios en cero
+    private void crearResumenes(List<Publicacion> nuevas) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(flushCada);
+        for (int i = 0; i < nuevas.size(); i++) {
+            entityManager.persist(new ComentarioResumen(nuevas.get(i).getId()));
+            if ((i + 1) % flushCada == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void despuesDeConfirmar(List<Publicacion> nuevas) {
+        nuevas.forEach(searchIndex::indexAfterCommit);
+        publicadosFeed.refreshAfterCommit(nuevas.stream().map(Publicacion::getId).toList());
+    }
+
+    private boolean usarCopy() {
+        if (!copyHabilitado) {
+            return false;
+        }
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> connection.isWrapperFor(PGConnection.class));
+        }
+        return postgres;
+    }
+
+    private void rechazar(ImportacionResultadoDTO resultado, long linea, String mensaje) {
+        resultado.setRechazadas(resultado.getRechazadas() + 1);
+        if (resultado.getErrores().size() < maxErrores) {
+            resultado.getErrores().add(new ImportacionErrorDTO(linea, mensaje));
+        }
+    }
+
+    // El mensaje de la base (constraint, largo de columna) suele venir al fondo de la cadena de causas
+    private static String causa(Throwable error) {
+        Throwable raiz = error;
+        while (raiz.getCause() != null && raiz.getCause() != raiz) {
+            raiz = raiz.getCause();
+        }
+        return raiz.getMessage() != null ? raiz.getMessage() : raiz.getClass().getSimpleName();
+    }
+
+    private static String comillas(String valor) {
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+
+    // Primer registro: nombres de columna. Las columnas desconocidas se ignoran
+    private FuenteFilas csv(Reader reader) throws IOException {
+        LectorCsv lector = new LectorCsv(reader);
+        List<String> encabezado = lector.leer();
+        if (encabezado == null) {
+            throw new IllegalArgumentException("CSV vacío");
+        }
+        List<String> columnas = encabezado.stream().map(String::trim).toList();
+        List<String> faltantes = COLUMNAS_OBLIGATORIAS.stream().filter(c -> !columnas.contains(c)).toList();
+        if (!faltantes.isEmpty()) {
+            throw new IllegalArgumentException("Faltan columnas en el encabezado: " + String.join(", ", faltantes));
+        }
+        return () -> {
+            List<String> campos;
+            try {
+                campos = lector.leer();
+            } catch (IllegalArgumentException e) {
+                return new Fila(lector.lineaRegistro(), null, e.getMessage());
+            }
+            if (campos == null) {
+                return null;
+            }
+            if (campos.size() != columnas.size()) {
+                return new Fila(lector.lineaRegistro(), null,
+                        "se esperaban " + columnas.size() + " columnas y llegaron " + campos.size());
+            }
+            Map<String, String> valores = new HashMap<>();
+            for (int i = 0; i < columnas.size(); i++) {
+                valores.put(columnas.get(i), campos.get(i));
+            }
+            return new Fila(lector.lineaRegistro(), valores, null);
+        };
+    }
+
+    // Un objeto por línea. Acepta también el formato de /export, con "estado": {"id": ...}
+    private FuenteFilas ndjson(Reader reader) {
+        BufferedReader lineas = new BufferedReader(reader);
+        long[] numero = {0};
+        return () -> {
+            String linea;
+            do {
+                linea = lineas.readLine();
+                numero[0]++;
+            } while (linea != null && linea.isBlank());
+            if (linea == null) {
+                return null;
+            }
+            JsonNode nodo;
+            try {
+                nodo = objectMapper.readTree(linea);
+            } catch (JsonProcessingException e) {
+                return new Fila(numero[0], null, "JSON inválido: " + e.getOriginalMessage());
+            }
+            if (!nodo.isObject()) {
+                return new Fila(numero[0], null, "se esperaba un objeto JSON");
+            }
+            Map<String, String> valores = new HashMap<>();
+            nodo.fields().forEachRemaining(campo -> {
+                if (!campo.getValue().isNull() && campo.getValue().isValueNode()) {
+                    valores.put(campo.getKey(), campo.getValue().asText());
+                }
+            });
+            JsonNode estado = nodo.path("estado").path("id");
+            if (!valores.containsKey("estadoId") && estado.isValueNode()) {
+                valores.put("estadoId", estado.asText());
+            }
+            return new Fila(numero[0], valores, null);
+        };
+    }
+}
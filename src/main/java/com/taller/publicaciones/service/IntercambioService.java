@@ -1,22 +1,40 @@
 package com.taller.publicaciones.service;
 
+import com.taller.publicaciones.grafo.GrafoIntercambios;
 import com.taller.publicaciones.model.*;
 import com.taller.publicaciones.repository.IntercambioRepository;
 import com.taller.publicaciones.repository.PublicacionRepository;
-import com.taller.publicaciones.repository.EstadoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class IntercambioService {
 
+    // desde="NUEVO" para las ofertas recién creadas
+    private static final String NUEVO = "NUEVO";
+
     @Autowired
     private IntercambioRepository intercambioRepository;
 
@@ -24,7 +42,36 @@ public class IntercambioService {
     private PublicacionRepository publicacionRepository;
 
     @Autowired
-    private EstadoRepository estadoRepository;
+    private EstadoRegistry estadoRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PublicadosFeed publicadosFeed;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private GrafoIntercambios grafoIntercambios;
+
+    @Value("${intercambios.max-intentos:4}")
+    private int maxIntentos;
+
+    private final AtomicLong conflictos = new AtomicLong();
+
+    @PostConstruct
+    void registrarMetricas() {
+        FunctionCounter.builder("intercambios.conflictos", conflictos, AtomicLong::get)
+                .description("Transiciones de intercambio que chocaron con otra concurrente")
+                .register(meterRegistry);
+        // Las transiciones posibles quedan en 0 desde el arranque, así las alertas tienen contra qué comparar
+        transicion(NUEVO, Intercambio.EstadoIntercambio.PENDIENTE);
+        transicion(Intercambio.EstadoIntercambio.PENDIENTE.name(), Intercambio.EstadoIntercambio.ACEPTADO);
+        transicion(Intercambio.EstadoIntercambio.PENDIENTE.name(), Intercambio.EstadoIntercambio.RECHAZADO);
+        transicion(Intercambio.EstadoIntercambio.ACEPTADO.name(), Intercambio.EstadoIntercambio.CANCELADO);
+    }
 
     @Transactional
     public Intercambio crearOfertaIntercambio(IntercambioDTO intercambioDTO) {
@@ -57,9 +104,8 @@ public class IntercambioService {
         }
 
         // Validar que ambos productos estén en estado "Publicado"
-        Estado estadoPublicado = estadoRepository.findById(1).orElse(null);
-        if (!productoSolicitado.getEstado().equals(estadoPublicado) || 
-            !productoOfrecido.getEstado().equals(estadoPublicado)) {
+        if (!Estado.Tipo.PUBLICADO.matches(productoSolicitado.getEstado()) ||
+            !Estado.Tipo.PUBLICADO.matches(productoOfrecido.getEstado())) {
             throw new RuntimeException("Ambos productos deben estar en estado 'Publicado'");
         }
 
@@ -70,132 +116,194 @@ public class IntercambioService {
         intercambio.setIdUsuarioPropietario(intercambioDTO.getIdUsuarioPropietario());
         intercambio.setEstadoIntercambio(Intercambio.EstadoIntercambio.PENDIENTE);
 
-        return intercambioRepository.save(intercambio);
+        Intercambio guardado = intercambioRepository.save(intercambio);
+        contarAlConfirmar(NUEVO, Intercambio.EstadoIntercambio.PENDIENTE, 1);
+        grafoIntercambios.agregarAlConfirmar(guardado);
+        return guardado;
     }
 
-    @Transactional
     public Intercambio aceptarOferta(Long intercambioId) {
-        Intercambio intercambio = intercambioRepository.findById(intercambioId)
-                .orElseThrow(() -> new RuntimeException("Intercambio no encontrado"));
+        return conReintentos(intercambioId, () -> {
+            Intercambio intercambio = intercambioRepository.findById(intercambioId)
+                    .orElseThrow(() -> new RuntimeException("Intercambio no encontrado"));
 
-        if (intercambio.getEstadoIntercambio() != Intercambio.EstadoIntercambio.PENDIENTE) {
-            throw new RuntimeException("Solo se pueden aceptar ofertas pendientes");
-        }
+            if (intercambio.getEstadoIntercambio() != Intercambio.EstadoIntercambio.PENDIENTE) {
+                throw new RuntimeException("Solo se pueden aceptar ofertas pendientes");
+            }
 
-        // Obtener el estado "Proceso"
-        Estado estadoProceso = estadoRepository.findById(5).orElse(null);
-        if (estadoProceso == null) {
-            throw new RuntimeException("Estado 'Proceso' no encontrado");
-        }
+            LocalDateTime ahora = LocalDateTime.now();
 
-        // Cambiar estado de ambos productos a "Proceso"
-        intercambio.getProductoSolicitado().setEstado(estadoProceso);
-        intercambio.getProductoOfrecido().setEstado(estadoProceso);
-        
-        publicacionRepository.save(intercambio.getProductoSolicitado());
-        publicacionRepository.save(intercambio.getProductoOfrecido());
+            // Cambiar estado de ambos productos a "Proceso", sólo si ningún otro intercambio los tomó antes
+            actualizarEstadoProductos(intercambio, Estado.Tipo.PROCESO, Estado.Tipo.PUBLICADO);
 
-        // Marcar este intercambio como aceptado
-        intercambio.setEstadoIntercambio(Intercambio.EstadoIntercambio.ACEPTADO);
-        intercambio.setFechaRespuesta(LocalDateTime.now());
+            // Rechazar todas las demás ofertas pendientes para el producto solicitado
+            int rechazadas = intercambioRepository.rechazarOtrasOfertasPendientes(
+                    intercambio.getProductoSolicitado().getId(), intercambioId, ahora);
+            contarAlConfirmar(Intercambio.EstadoIntercambio.PENDIENTE.name(), Intercambio.EstadoIntercambio.RECHAZADO, rechazadas);
 
-        // Rechazar todas las demás ofertas pendientes para el producto solicitado
-        List<Intercambio> otrasOfertas = intercambioRepository.findOfertasPendientesPorProducto(
-                intercambio.getProductoSolicitado().getId());
-        
-        for (Intercambio otraOferta : otrasOfertas) {
-            if (!otraOferta.getId().equals(intercambioId)) {
-                otraOferta.setEstadoIntercambio(Intercambio.EstadoIntercambio.RECHAZADO);
-                otraOferta.setFechaRespuesta(LocalDateTime.now());
-                intercambioRepository.save(otraOferta);
-            }
-        }
+            // Marcar este intercambio como aceptado
+            intercambio.setEstadoIntercambio(Intercambio.EstadoIntercambio.ACEPTADO);
+            intercambio.setFechaRespuesta(ahora);
+            contarAlConfirmar(Intercambio.EstadoIntercambio.PENDIENTE.name(), Intercambio.EstadoIntercambio.ACEPTADO, 1);
+            // Ambos productos quedan tomados: salen del grafo con todas sus ofertas pendientes
+            grafoIntercambios.retirarAlConfirmar(List.of(
+                    intercambio.getProductoSolicitado().getId(), intercambio.getProductoOfrecido().getId()));
 
-        return intercambioRepository.save(intercambio);
+            return intercambioRepository.save(intercambio);
+        });
     }
 
-    @Transactional
     public Intercambio rechazarOferta(Long intercambioId) {
-        Intercambio intercambio = intercambioRepository.findById(intercambioId)
-                .orElseThrow(() -> new RuntimeException("Intercambio no encontrado"));
+        return conReintentos(intercambioId, () -> {
+            Intercambio intercambio = intercambioRepository.findById(intercambioId)
+                    .orElseThrow(() -> new RuntimeException("Intercambio no encontrado"));
 
-        if (intercambio.getEstadoIntercambio() != Intercambio.EstadoIntercambio.PENDIENTE) {
-            throw new RuntimeException("Solo se pueden rechazar ofertas pendientes");
-        }
+            if (intercambio.getEstadoIntercambio() != Intercambio.EstadoIntercambio.PENDIENTE) {
+                throw new RuntimeException("Solo se pueden rechazar ofertas pendientes");
+            }
 
-        intercambio.setEstadoIntercambio(Intercambio.EstadoIntercambio.RECHAZADO);
-        intercambio.setFechaRespuesta(LocalDateTime.now());
+            intercambio.setEstadoIntercambio(Intercambio.EstadoIntercambio.RECHAZADO);
+            intercambio.setFechaRespuesta(LocalDateTime.now());
+            contarAlConfirmar(Intercambio.EstadoIntercambio.PENDIENTE.name(), Intercambio.EstadoIntercambio.RECHAZADO, 1);
+            grafoIntercambios.quitarAlConfirmar(intercambio);
 
-        return intercambioRepository.save(intercambio);
+            return intercambioRepository.save(intercambio);
+        });
     }
 
-    @Transactional
     public Intercambio confirmarIntercambio(Long intercambioId, Long userId) {
-        Intercambio intercambio = intercambioRepository.findById(intercambioId)
-                .orElseThrow(() -> new RuntimeException("Intercambio no encontrado"));
+        return conReintentos(intercambioId, () -> {
+            Intercambio intercambio = intercambioRepository.findById(intercambioId)
+                    .orElseThrow(() -> new RuntimeException("Intercambio no encontrado"));
 
-        // Solo se puede confirmar si el intercambio está en proceso
-        if (intercambio.getEstadoIntercambio() != Intercambio.EstadoIntercambio.ACEPTADO) {
-            throw new RuntimeException("Solo se pueden confirmar intercambios aceptados");
-        }
+            // Solo se puede confirmar si el intercambio está en proceso
+            if (intercambio.getEstadoIntercambio() != Intercambio.EstadoIntercambio.ACEPTADO) {
+                throw new RuntimeException("Solo se pueden confirmar intercambios aceptados");
+            }
 
-        // Actualizar confirmación según el usuario
-        if (userId.equals(intercambio.getIdUsuarioSolicitante())) {
-            intercambio.setConfirmacionSolicitante(Intercambio.ConfirmacionEstado.CONFIRMADO);
-        } else if (userId.equals(intercambio.getIdUsuarioPropietario())) {
-            intercambio.setConfirmacionPropietario(Intercambio.ConfirmacionEstado.CONFIRMADO);
-        } else {
-            throw new RuntimeException("Solo los usuarios involucrados pueden confirmar");
-        }
+            // Actualizar confirmación según el usuario
+            if (userId.equals(intercambio.getIdUsuarioSolicitante())) {
+                intercambio.setConfirmacionSolicitante(Intercambio.ConfirmacionEstado.CONFIRMADO);
+            } else if (userId.equals(intercambio.getIdUsuarioPropietario())) {
+                intercambio.setConfirmacionPropietario(Intercambio.ConfirmacionEstado.CONFIRMADO);
+            } else {
+                throw new RuntimeException("Solo los usuarios involucrados pueden confirmar");
+            }
 
-        // Si ambos confirman, pasar productos a 'Aprobado'
-        if (intercambio.getConfirmacionSolicitante() == Intercambio.ConfirmacionEstado.CONFIRMADO &&
-            intercambio.getConfirmacionPropietario() == Intercambio.ConfirmacionEstado.CONFIRMADO) {
-            Estado estadoAprobado = estadoRepository.findById(4).orElse(null); // 4 = Aprobado
-            if (estadoAprobado != null) {
-                intercambio.getProductoSolicitado().setEstado(estadoAprobado);
-                intercambio.getProductoOfrecido().setEstado(estadoAprobado);
-                publicacionRepository.save(intercambio.getProductoSolicitado());
-                publicacionRepository.save(intercambio.getProductoOfrecido());
+            // Si ambos confirman, pasar productos a 'Aprobado'
+            if (intercambio.getConfirmacionSolicitante() == Intercambio.ConfirmacionEstado.CONFIRMADO &&
+                intercambio.getConfirmacionPropietario() == Intercambio.ConfirmacionEstado.CONFIRMADO) {
+                actualizarEstadoProductos(intercambio, Estado.Tipo.APROBADO, Estado.Tipo.PROCESO);
             }
-        }
 
-        return intercambioRepository.save(intercambio);
+            return intercambioRepository.save(intercambio);
+        });
     }
 
-    @Transactional
     public Intercambio revertirIntercambio(Long intercambioId, Long userId) {
-        Intercambio intercambio = intercambioRepository.findById(intercambioId)
-                .orElseThrow(() -> new RuntimeException("Intercambio no encontrado"));
+        return conReintentos(intercambioId, () -> {
+            Intercambio intercambio = intercambioRepository.findById(intercambioId)
+                    .orElseThrow(() -> new RuntimeException("Intercambio no encontrado"));
+
+            // Solo se puede revertir si el intercambio está en proceso
+            if (intercambio.getEstadoIntercambio() != Intercambio.EstadoIntercambio.ACEPTADO) {
+                throw new RuntimeException("Solo se pueden revertir intercambios aceptados");
+            }
+
+            // Actualizar reversión según el usuario
+            if (userId.equals(intercambio.getIdUsuarioSolicitante())) {
+                intercambio.setConfirmacionSolicitante(Intercambio.ConfirmacionEstado.REVERTIDO);
+            } else if (userId.equals(intercambio.getIdUsuarioPropietario())) {
+                intercambio.setConfirmacionPropietario(Intercambio.ConfirmacionEstado.REVERTIDO);
+            } else {
+                throw new RuntimeException("Solo los usuarios involucrados pueden revertir");
+            }
+
+            // Si cualquiera revierte, ambos productos vuelven a 'Publicado' y el intercambio se cancela
+            if (intercambio.getConfirmacionSolicitante() == Intercambio.ConfirmacionEstado.REVERTIDO ||
+                intercambio.getConfirmacionPropietario() == Intercambio.ConfirmacionEstado.REVERTIDO) {
+                actualizarEstadoProductos(intercambio, Estado.Tipo.PUBLICADO, Estado.Tipo.PROCESO, Estado.Tipo.APROBADO);
+                intercambio.setEstadoIntercambio(Intercambio.EstadoIntercambio.CANCELADO);
+                contarAlConfirmar(Intercambio.EstadoIntercambio.ACEPTADO.name(), Intercambio.EstadoIntercambio.CANCELADO, 1);
+                // Vuelven al grafo con las ofertas que siguen pendientes sobre ellos
+                grafoIntercambios.reponerAlConfirmar(List.of(
+                        intercambio.getProductoSolicitado().getId(), intercambio.getProductoOfrecido().getId()));
+            }
+
+            return intercambioRepository.save(intercambio);
+        });
+    }
+
+    // Compare-and-set del estado de ambos productos, como actualización de entidad: así la caché de segundo
+    // nivel sólo refresca estas dos publicaciones (ver PublicacionEscrituraRepository).
+    private void actualizarEstadoProductos(Intercambio intercambio, Estado.Tipo tipo, Estado.Tipo... esperados) {
+        List<Long> ids = List.of(intercambio.getProductoSolicitado().getId(), intercambio.getProductoOfrecido().getId());
+        List<Integer> idsEsperados = Arrays.stream(esperados).map(Estado.Tipo::getId).toList();
+        int actualizadas = publicacionRepository.updateEstado(ids, estadoRegistry.get(tipo), idsEsperados);
+        if (actualizadas != ids.size()) {
+            // Otro intercambio cambió alguno de los productos: no tiene sentido reintentar
+            throw new RuntimeException("Alguno de los productos ya no está disponible para este intercambio");
+        }
+        publicadosFeed.refreshAfterCommit(ids);
+    }
 
-        // Solo se puede revertir si el intercambio está en proceso
-        if (intercambio.getEstadoIntercambio() != Intercambio.EstadoIntercambio.ACEPTADO) {
-            throw new RuntimeException("Solo se pueden revertir intercambios aceptados");
+    // Ejecuta la transición en su propia transacción y la reintenta si choca con otra concurrente
+    // (versión vieja o bloqueo). Cada intento vuelve a leer el intercambio y revalida las reglas.
+    private Intercambio conReintentos(Long intercambioId, Supplier<Intercambio> transicion) {
+        for (int intento = 1; ; intento++) {
+            try {
+                return transactionTemplate.execute(status -> transicion.get());
+            } catch (ConcurrencyFailureException e) {
+                conflictos.incrementAndGet();
+                if (intento >= maxIntentos) {
+                    log.warn("Intercambio {}: conflicto de concurrencia, sin más reintentos ({} intentos)", intercambioId, intento);
+                    throw new ConflictoConcurrenciaException(
+                            "El intercambio fue modificado por otra operación, intente nuevamente", e);
+                }
+                log.info("Intercambio {}: conflicto de concurrencia en el intento {}, reintentando", intercambioId, intento);
+                esperar(intento);
+            }
         }
+    }
 
-        // Actualizar reversión según el usuario
-        if (userId.equals(intercambio.getIdUsuarioSolicitante())) {
-            intercambio.setConfirmacionSolicitante(Intercambio.ConfirmacionEstado.REVERTIDO);
-        } else if (userId.equals(intercambio.getIdUsuarioPropietario())) {
-            intercambio.setConfirmacionPropietario(Intercambio.ConfirmacionEstado.REVERTIDO);
+    // Se cuenta sólo si la transacción confirma: un intento que choca y se reintenta no suma dos veces
+    private void contarAlConfirmar(String desde, Intercambio.EstadoIntercambio hacia, int cantidad) {
+        if (cantidad <= 0) {
+            return;
+        }
+        Counter counter = transicion(desde, hacia);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counter.increment(cantidad);
+                }
+            });
         } else {
-            throw new RuntimeException("Solo los usuarios involucrados pueden revertir");
+            counter.increment(cantidad);
         }
+    }
 
-        // Si cualquiera revierte, ambos productos vuelven a 'Publicado' y el intercambio se cancela
-        if (intercambio.getConfirmacionSolicitante() == Intercambio.ConfirmacionEstado.REVERTIDO ||
-            intercambio.getConfirmacionPropietario() == Intercambio.ConfirmacionEstado.REVERTIDO) {
-            Estado estadoPublicado = estadoRepository.findById(1).orElse(null); // 1 = Publicado
-            if (estadoPublicado != null) {
-                intercambio.getProductoSolicitado().setEstado(estadoPublicado);
-                intercambio.getProductoOfrecido().setEstado(estadoPublicado);
-                publicacionRepository.save(intercambio.getProductoSolicitado());
-                publicacionRepository.save(intercambio.getProductoOfrecido());
-            }
-            intercambio.setEstadoIntercambio(Intercambio.EstadoIntercambio.CANCELADO);
+    private Counter transicion(String desde, Intercambio.EstadoIntercambio hacia) {
+        return Counter.builder("intercambios.transiciones")
+                .description("Cambios de estado de intercambios confirmados en la base")
+                .tag("desde", desde)
+                .tag("hacia", hacia.name())
+                .register(meterRegistry);
+    }
+
+    private static void esperar(int intento) {
+        long maximo = 10L << Math.min(intento, 6);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, maximo));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrumpido mientras se reintentaba el intercambio", e);
         }
+    }
 
-        return intercambioRepository.save(intercambio);
+    public long getConflictosDetectados() {
+        return conflictos.get();
     }
 
     public List<IntercambioResponseDTO> getOfertasRecibidas(Long userId) {
@@ -212,7 +320,21 @@ public class IntercambioService {
                 .collect(Collectors.toList());
     }
 
-    private IntercambioResponseDTO convertToResponseDTO(Intercambio intercambio) {
+    public Slice<IntercambioResumenDTO> getOfertasRecibidas(Long userId, KeysetCursor cursor, int size) {
+        Pageable limit = PublicacionService.cursorLimit(size);
+        return cursor == null
+                ? intercambioRepository.findResumenRecibidas(userId, limit)
+                : intercambioRepository.findResumenRecibidasBefore(userId, cursor.getFechaCreacion(), cursor.getId(), limit);
+    }
+
+    public Slice<IntercambioResumenDTO> getOfertasEnviadas(Long userId, KeysetCursor cursor, int size) {
+        Pageable limit = PublicacionService.cursorLimit(size);
+        return cursor == null
+                ? intercambioRepository.findResumenEnviadas(userId, limit)
+                : intercambioRepository.findResumenEnviadasBefore(userId, cursor.getFechaCreacion(), cursor.getId(), limit);
+    }
+
+    IntercambioResponseDTO convertToResponseDTO(Intercambio intercambio) {
         IntercambioResponseDTO dto = new IntercambioResponseDTO();
         dto.setId(intercambio.getId());
         dto.setProductoSolicitado(intercambio.getProductoSolicitado());
@@ -0,0 +1,113 @@
+package com.taller.publicaciones.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Lector CSV mínimo (RFC 4180): campos separados por coma, comillas dobles con "" como escape y saltos de
+// línea dentro de comillas. Lee un registro por vez con su propio buffer, sin cargar el archivo entero.
+// Las líneas vacías se saltan; CRLF y LF valen igual.
+final class LectorCsv {
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int posicion;
+    private int limite;
+    private long linea = 1;
+    private long lineaRegistro;
+
+    LectorCsv(Reader reader) {
+        this.reader = reader;
+    }
+
+    // Línea del archivo donde empezó el último registro leído
+    long lineaRegistro() {
+        return lineaRegistro;
+    }
+
+    // null al final del archivo; IllegalArgumentException si el último registro deja comillas abiertas
+    List<String> leer() throws IOException {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        boolean vacio = true;
+        lineaRegistro = linea;
+        int c;
+        while ((c = siguiente()) != -1) {
+            if (entreComillas) {
+                if (c == '"') {
+                    if (mirar() == '"') {
+                        posicion++;
+                        campo.append('"');
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        linea++;
+                    }
+                    campo.append((char) c);
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> {
+                    entreComillas = true;
+                    vacio = false;
+                }
+                case ',' -> {
+                    campos.add(campo.toString());
+                    campo.setLength(0);
+                    vacio = false;
+                }
+                case '\r' -> {
+                }
+                case '\n' -> {
+                    linea++;
+                    if (!vacio) {
+                        campos.add(campo.toString());
+                        return campos;
+                    }
+                    lineaRegistro = linea;
+                }
+                default -> {
+                    campo.append((char) c);
+                    vacio = false;
+                }
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("comillas sin cerrar");
+        }
+        if (vacio) {
+            return null;
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+
+    private int siguiente() throws IOException {
+        if (posicion == limite && !llenar()) {
+            return -1;
+        }
+        return buffer[posicion++];
+    }
+
+    private int mirar() throws IOException {
+        if (posicion == limite && !llenar()) {
+            return -1;
+        }
+        return buffer[posicion];
+    }
+
+    private boolean llenar() throws IOException {
+        limite = reader.read(buffer);
+        posicion = 0;
+        if (limite <= 0) {
+            limite = 0;
+            return false;
+        }
+        return true;
+    }
+}
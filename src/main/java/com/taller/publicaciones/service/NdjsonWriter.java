@@ -0,0 +1,58 @@
+package com.taller.publicaciones.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.taller.publicaciones.model.Comentario;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Escribe un Stream de entidades como NDJSON (un objeto JSON por línea), desacoplando cada fila
+// del contexto de persistencia una vez escrita para que la memoria no crezca con el tamaño de la tabla
+@Component
+public class NdjsonWriter {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FLUSH_EVERY = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectMapper exportMapper;
+
+    public NdjsonWriter(ObjectMapper objectMapper) {
+        // En la exportación los comentarios sólo llevan idPublicacion, no la publicación anidada
+        this.exportMapper = objectMapper.copy().addMixIn(Comentario.class, ComentarioExportMixin.class);
+    }
+
+    public <T> long write(Stream<T> rows, Class<T> type, OutputStream out) throws IOException {
+        ObjectWriter writer = exportMapper.writerFor(type);
+        BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        long count = 0;
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            T row = iterator.next();
+            buffered.write(writer.writeValueAsBytes(row));
+            buffered.write('\n');
+            entityManager.detach(row);
+            if (++count % FLUSH_EVERY == 0) {
+                buffered.flush();
+            }
+        }
+        buffered.flush();
+        return count;
+    }
+
+    @JsonIgnoreProperties({"publicacion"})
+    private abstract static class ComentarioExportMixin {
+    }
+}
@@ -0,0 +1,143 @@
+package com.taller.publicaciones.service;
+
+import com.taller.publicaciones.model.CampoPublicacion;
+import com.taller.publicaciones.model.CursorPageDTO;
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.model.KeysetCursor;
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.repository.PublicacionColumnasRepository;
+import com.taller.publicaciones.repository.PublicacionColumnasRepository.Filtro;
+import com.taller.publicaciones.repository.PublicacionRepository;
+import com.taller.publicaciones.search.PublicacionSearchIndex;
+import jakarta.persistence.Tuple;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Listados de publicaciones con ?fields=: la consulta lee sólo las columnas de los campos pedidos y cada
+// fila se entrega como un objeto JSON con esos campos, con los mismos nombres y formatos que Publicacion
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class PublicacionCamposService {
+
+    private final PublicacionRepository publicacionRepository;
+    private final EstadoRegistry estadoRegistry;
+    private final PublicacionSearchIndex searchIndex;
+
+    public List<Map<String, Object>> listar(Set<CampoPublicacion> campos, Filtro filtro) {
+        Columnas columnas = new Columnas(campos, false);
+        return columnas.filas(publicacionRepository.findColumnas(columnas.atributos, filtro, Sort.unsorted(), 0, Integer.MAX_VALUE));
+    }
+
+    // El orden es el del Pageable, como en las consultas paginadas de entidades
+    public Page<Map<String, Object>> pagina(Set<CampoPublicacion> campos, Filtro filtro, Pageable pageable) {
+        Columnas columnas = new Columnas(campos, false);
+        List<Tuple> filas = publicacionRepository.findColumnas(columnas.atributos, filtro, pageable.getSort(),
+                pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(columnas.filas(filas), pageable, publicacionRepository.countColumnas(filtro));
+    }
+
+    // Siempre se leen id y fechaCreacion, aunque no se pidan, para armar el cursor de la página siguiente
+    public CursorPageDTO<Map<String, Object>> despuesDe(Set<CampoPublicacion> campos, Filtro filtro,
+                                                         KeysetCursor cursor, int size) {
+        Columnas columnas = new Columnas(campos, true);
+        int limite = PublicacionService.cursorLimit(size).getPageSize();
+        List<Tuple> filas = publicacionRepository.findColumnas(columnas.atributos,
+                cursor != null ? filtro.antesDe(cursor) : filtro, PublicacionColumnasRepository.ORDEN_CURSOR, 0, limite + 1);
+        boolean hasNext = filas.size() > limite;
+        if (hasNext) {
+            filas = filas.subList(0, limite);
+        }
+        String nextCursor = hasNext ? columnas.cursor(filas.get(filas.size() - 1)).encode() : null;
+        return new CursorPageDTO<>(columnas.filas(filas), filas.size(), hasNext, nextCursor);
+    }
+
+    public Page<Map<String, Object>> buscar(Set<CampoPublicacion> campos, String titulo, String descripcion, Pageable pageable) {
+        // Mientras el índice se construye al arrancar, se usa el LIKE original
+        if (!searchIndex.isReady()) {
+            return pagina(campos, new Filtro(null, null, null, null, titulo, descripcion), pageable);
+        }
+        Page<Long> ids = searchIndex.search(titulo, descripcion, pageable);
+        Columnas columnas = new Columnas(campos, true);
+        Filtro porIds = new Filtro(null, null, null, ids.getContent(), null, null);
+        Map<Long, Tuple> porId = publicacionRepository.findColumnas(columnas.atributos, porIds, Sort.unsorted(), 0, ids.getContent().size())
+                .stream()
+                .collect(Collectors.toMap(columnas::id, Function.identity()));
+        // Se mantiene el orden del ranking BM25
+        List<Tuple> ordenadas = ids.getContent().stream().map(porId::get).filter(Objects::nonNull).toList();
+        return new PageImpl<>(columnas.filas(ordenadas), pageable, ids.getTotalElements());
+    }
+
+    // Las columnas a leer para un conjunto de campos y cómo rearmar cada campo desde la fila
+    private final class Columnas {
+
+        private final Set<CampoPublicacion> campos;
+        private final List<String> atributos = new ArrayList<>();
+
+        Columnas(Set<CampoPublicacion> campos, boolean conClave) {
+            this.campos = campos;
+            campos.forEach(campo -> agregar(campo.getAtributos()));
+            if (conClave) {
+                agregar(CampoPublicacion.ID.getAtributos());
+                agregar(CampoPublicacion.FECHA_CREACION.getAtributos());
+            }
+        }
+
+        private void agregar(Collection<String> nuevos) {
+            nuevos.stream().filter(atributo -> !atributos.contains(atributo)).forEach(atributos::add);
+        }
+
+        List<Map<String, Object>> filas(List<Tuple> tuplas) {
+            return tuplas.stream().map(this::fila).toList();
+        }
+
+        private Map<String, Object> fila(Tuple tupla) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            for (CampoPublicacion campo : campos) {
+                fila.put(campo.getNombre(), valor(campo, tupla));
+            }
+            return fila;
+        }
+
+        private Object valor(CampoPublicacion campo, Tuple tupla) {
+            return switch (campo) {
+                case URLS_FOTO -> Publicacion.urlsFoto((String) get(tupla, "urlFoto"), (String) get(tupla, "rendicionesFoto"));
+                case ESTADO -> estado((Integer) get(tupla, "estado.id"));
+                default -> get(tupla, campo.getAtributos().get(0));
+            };
+        }
+
+        private Object estado(Integer id) {
+            // Mismo objeto {id, nombre} que la entidad; los estados están todos en memoria
+            return estadoRegistry.findById(id).orElseGet(() -> new Estado(id, null));
+        }
+
+        Long id(Tuple tupla) {
+            return (Long) get(tupla, "id");
+        }
+
+        KeysetCursor cursor(Tuple tupla) {
+            return new KeysetCursor((LocalDateTime) get(tupla, "fechaCreacion"), id(tupla));
+        }
+
+        private Object get(Tuple tupla, String atributo) {
+            return tupla.get(atributos.indexOf(atributo));
+        }
+    }
+}
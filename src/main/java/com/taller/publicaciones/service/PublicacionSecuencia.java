@@ -0,0 +1,93 @@
+package com.taller.publicaciones.service;
+
+import com.taller.publicaciones.model.Publicacion;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.OracleDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// La secuencia de ids de publicaciones fuera de Hibernate: la alinea con las filas existentes (las creadas
+// con IDENTITY o insertadas por JDBC con id propio) y reserva bloques para el COPY de la importación.
+// Con el optimizador pooled, cada valor v de la secuencia cubre los ids (v - BLOQUE_IDS, v].
+@Component
+@Slf4j
+public class PublicacionSecuencia {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Dialect dialect;
+    private final String nextValSql;
+
+    public PublicacionSecuencia(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        this.nextValSql = dialect.getSequenceSupport().getSequenceNextValString(Publicacion.SECUENCIA);
+    }
+
+    // Bases creadas cuando el id era IDENTITY: en Oracle la columna es GENERATED ALWAYS y rechaza el id que
+    // ahora pone Hibernate (ORA-32795), y la secuencia no existe. En H2 y PostgreSQL la identidad es
+    // BY DEFAULT y acepta ids explícitos. No hace nada si ya está migrada.
+    public void migrar() {
+        if (dialect instanceof OracleDialect) {
+            List<String> generacion = jdbcTemplate.queryForList("SELECT generation_type FROM user_tab_identity_cols "
+                    + "WHERE table_name = 'PUBLICACIONES' AND column_name = 'ID'", String.class);
+            if (generacion.contains("ALWAYS")) {
+                jdbcTemplate.execute("ALTER TABLE publicaciones MODIFY id GENERATED BY DEFAULT ON NULL AS IDENTITY");
+                log.info("Identity column publicaciones.id changed to GENERATED BY DEFAULT ON NULL");
+            }
+        }
+        if (!existeSecuencia()) {
+            for (String ddl : dialect.getSequenceSupport().getCreateSequenceStrings(Publicacion.SECUENCIA, 1, Publicacion.BLOQUE_IDS)) {
+                jdbcTemplate.execute(ddl);
+            }
+            log.info("Created sequence {} (increment {})", Publicacion.SECUENCIA, Publicacion.BLOQUE_IDS);
+        }
+    }
+
+    // Si la secuencia quedó detrás del mayor id, la adelanta; nunca la retrocede
+    public void alinear() {
+        Long maximo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM publicaciones", Long.class);
+        long siguiente = siguienteValor();
+        if (siguiente - Publicacion.BLOQUE_IDS < maximo) {
+            long reinicio = maximo + Publicacion.BLOQUE_IDS + 1;
+            jdbcTemplate.execute(dialect instanceof OracleDialect
+                    ? "ALTER SEQUENCE " + Publicacion.SECUENCIA + " RESTART START WITH " + reinicio
+                    : "ALTER SEQUENCE " + Publicacion.SECUENCIA + " RESTART WITH " + reinicio);
+            log.info("Sequence {} moved past existing publication ids (max id {}, restarts at {})",
+                    Publicacion.SECUENCIA, maximo, reinicio);
+        }
+    }
+
+    // Ids libres para filas que no pasan por Hibernate; los bloques no se cruzan con los que usa Hibernate
+    public long[] reservar(int cantidad) {
+        long[] ids = new long[cantidad];
+        int i = 0;
+        while (i < cantidad) {
+            long hasta = siguienteValor();
+            // El primer valor de una secuencia nueva no alcanza a cubrir un bloque completo
+            for (long id = Math.max(1, hasta - Publicacion.BLOQUE_IDS + 1); id <= hasta && i < cantidad; id++) {
+                ids[i++] = id;
+            }
+        }
+        return ids;
+    }
+
+    // Pedirle un valor es lo único que funciona igual en todos los motores; gastar un bloque no importa
+    private boolean existeSecuencia() {
+        try {
+            siguienteValor();
+            return true;
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+
+    private long siguienteValor() {
+        return jdbcTemplate.queryForObject(nextValSql, Long.class);
+    }
+}
@@ -1,20 +1,39 @@
 package com.taller.publicaciones.service;
 
+import com.taller.publicaciones.model.ComentarioResumen;
+import com.taller.publicaciones.model.KeysetCursor;
 import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.model.PublicacionBatchDTO;
 import com.taller.publicaciones.model.PublicacionUpdateDTO;
+import com.taller.publicaciones.model.VersionRecurso;
+import com.taller.publicaciones.repository.ComentarioResumenRepository;
 import com.taller.publicaciones.repository.PublicacionRepository;
-import com.taller.publicaciones.repository.EstadoRepository;
+import com.taller.publicaciones.search.PublicacionSearchIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import com.taller.publicaciones.model.Estado;
 
 @Service
@@ -23,22 +42,78 @@ import com.taller.publicaciones.model.Estado;
 @Transactional
 public class PublicacionService {
 
+    public static final int MAX_CURSOR_PAGE_SIZE = 100;
+    public static final int MAX_BATCH_IDS = 500;
+
     private final PublicacionRepository publicacionRepository;
-    private final EstadoRepository estadoRepository;
-    private final S3Service s3Service;
+    private final ComentarioResumenRepository comentarioResumenRepository;
+    private final EstadoRegistry estadoRegistry;
+    private final FotoUploadService fotoUploadService;
+    private final PublicacionSearchIndex searchIndex;
+    private final NdjsonWriter ndjsonWriter;
+    private final PublicadosFeed publicadosFeed;
 
     public List<Publicacion> findAll() {
         return publicacionRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        try (Stream<Publicacion> rows = publicacionRepository.streamAll()) {
+            return ndjsonWriter.write(rows, Publicacion.class, out);
+        }
+    }
+
     public Page<Publicacion> findAll(Pageable pageable) {
         return publicacionRepository.findAllOrderByFechaCreacionDesc(pageable);
     }
 
+    public Slice<Publicacion> findAllAfter(KeysetCursor cursor, int size) {
+        Pageable limit = cursorLimit(size);
+        return cursor == null
+                ? publicacionRepository.findSliceOrderByFechaCreacionDesc(limit)
+                : publicacionRepository.findSliceBefore(cursor.getFechaCreacion(), cursor.getId(), limit);
+    }
+
+    public Slice<Publicacion> findByIdAutorAfter(Long idAutor, KeysetCursor cursor, int size) {
+        Pageable limit = cursorLimit(size);
+        return cursor == null
+                ? publicacionRepository.findSliceByIdAutor(idAutor, limit)
+                : publicacionRepository.findSliceByIdAutorBefore(idAutor, cursor.getFechaCreacion(), cursor.getId(), limit);
+    }
+
+    static Pageable cursorLimit(int size) {
+        return PageRequest.of(0, Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE)));
+    }
+
     public Optional<Publicacion> findById(Long id) {
         return publicacionRepository.findById(id);
     }
 
+    // Dos consultas en total: publicaciones con su estado (IN) y resúmenes de comentarios (IN)
+    @Transactional(readOnly = true)
+    public Map<Long, PublicacionBatchDTO> findBatch(List<Long> ids) {
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new IllegalArgumentException("Se permiten como máximo " + MAX_BATCH_IDS + " ids por consulta");
+        }
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        Map<Long, Publicacion> publicaciones = publicacionRepository.findAllWithEstadoByIdIn(uniqueIds).stream()
+                .collect(Collectors.toMap(Publicacion::getId, Function.identity()));
+        Map<Long, ComentarioResumen> resumenes = comentarioResumenRepository.findAllById(publicaciones.keySet()).stream()
+                .collect(Collectors.toMap(ComentarioResumen::getIdPublicacion, Function.identity()));
+
+        // Mismo orden que los ids pedidos; los que no existen se omiten
+        Map<Long, PublicacionBatchDTO> result = new LinkedHashMap<>();
+        for (Long id : uniqueIds) {
+            Publicacion publicacion = publicaciones.get(id);
+            if (publicacion != null) {
+                ComentarioResumen resumen = resumenes.getOrDefault(id, new ComentarioResumen(id));
+                result.put(id, new PublicacionBatchDTO(publicacion, resumen.getCantidad(), resumen.getPromedio()));
+            }
+        }
+        return result;
+    }
+
     public List<Publicacion> findByIdAutor(Long idAutor) {
         return publicacionRepository.findByIdAutor(idAutor);
     }
@@ -48,18 +123,38 @@ public class PublicacionService {
     }
 
     public Page<Publicacion> findByTituloOrDescripcionContaining(String titulo, String descripcion, Pageable pageable) {
-        return publicacionRepository.findByTituloOrDescripcionContaining(titulo, descripcion, pageable);
+        // Mientras el índice se construye al arrancar, se usa la consulta LIKE original
+        if (!searchIndex.isReady()) {
+            return publicacionRepository.findByTituloOrDescripcionContaining(titulo, descripcion, pageable);
+        }
+        Page<Long> ids = searchIndex.search(titulo, descripcion, pageable);
+        Map<Long, Publicacion> byId = publicacionRepository.findAllById(ids.getContent()).stream()
+                .collect(Collectors.toMap(Publicacion::getId, Function.identity()));
+        // Se mantiene el orden del ranking BM25
+        List<Publicacion> content = ids.getContent().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(content, pageable, ids.getTotalElements());
     }
 
     public Publicacion save(Publicacion publicacion) {
         log.info("Creating new publication: {}", publicacion.getTitulo());
         if (publicacion.getEstado() != null && publicacion.getEstado().getId() != null) {
             publicacion.setEstado(
-                estadoRepository.findById(publicacion.getEstado().getId())
+                estadoRegistry.findById(publicacion.getEstado().getId())
                     .orElseThrow(() -> new RuntimeException("Estado no encontrado con id: " + publicacion.getEstado().getId()))
             );
         }
-        return publicacionRepository.save(publicacion);
+        boolean nueva = publicacion.getId() == null;
+        Publicacion saved = publicacionRepository.save(publicacion);
+        if (nueva) {
+            // La fila del resumen nace con la publicación: así ComentarioService sólo tiene que sumarle
+            comentarioResumenRepository.save(new ComentarioResumen(saved.getId()));
+        }
+        searchIndex.indexAfterCommit(saved);
+        publicadosFeed.refreshAfterCommit(saved.getId());
+        return saved;
     }
 
     public Publicacion update(Long id, PublicacionUpdateDTO publicacionDetails) {
@@ -75,14 +170,16 @@ public class PublicacionService {
                     if (publicacionDetails.getPrecio() != null) {
                         publicacion.setPrecio(publicacionDetails.getPrecio());
                     }
-                    if (publicacionDetails.getUrlFoto() != null) {
+                    if (publicacionDetails.getUrlFoto() != null && !publicacionDetails.getUrlFoto().equals(publicacion.getUrlFoto())) {
                         publicacion.setUrlFoto(publicacionDetails.getUrlFoto());
+                        // Las rendiciones eran de la foto anterior
+                        publicacion.setRendicionesFoto(null);
                     }
                     
                     // Handle estado update
                     if (publicacionDetails.getEstado() != null && publicacionDetails.getEstado().getId() != null) {
                         publicacion.setEstado(
-                            estadoRepository.findById(publicacionDetails.getEstado().getId())
+                            estadoRegistry.findById(publicacionDetails.getEstado().getId())
                                 .orElseThrow(() -> new RuntimeException("Estado no encontrado con id: " + publicacionDetails.getEstado().getId()))
                         );
                     }
@@ -91,15 +188,21 @@ public class PublicacionService {
                     // El idAutor se preserva automáticamente del objeto existente
                     
                     log.info("Updating publication with ID: {}", id);
-                    return publicacionRepository.save(publicacion);
+                    Publicacion saved = publicacionRepository.save(publicacion);
+                    searchIndex.indexAfterCommit(saved);
+                    publicadosFeed.refreshAfterCommit(id);
+                    return saved;
                 })
-                .orElseThrow(() -> new RuntimeException("Publicacion not found with id: " + id));
+                .orElseThrow(() -> new RecursoNoEncontradoException("Publicacion not found with id: " + id));
     }
 
     public void deleteById(Long id) {
         if (publicacionRepository.existsById(id)) {
             log.info("Deleting publication with ID: {}", id);
+            comentarioResumenRepository.deleteByIdPublicacion(id);
             publicacionRepository.deleteById(id);
+            searchIndex.removeAfterCommit(id);
+            publicadosFeed.refreshAfterCommit(id);
         } else {
             throw new RuntimeException("Publicacion not found with id: " + id);
         }
@@ -109,28 +212,64 @@ public class PublicacionService {
         return publicacionRepository.existsById(id);
     }
 
+    // Cuáles de los ids existen, en una sola consulta
+    @Transactional(readOnly = true)
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        return ids.isEmpty() ? Set.of() : new HashSet<>(publicacionRepository.findExistingIds(ids));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<VersionRecurso> findVersion(Long id) {
+        return publicacionRepository.findMarcaById(id)
+                .map(marca -> VersionRecurso.fuerte(id + "-" + marca.getVersion(), marca.getFechaModificacion()));
+    }
+
     public List<Publicacion> findByEstadoPublicado() {
-        return publicacionRepository.findByEstado_Id(1);
+        return publicacionRepository.findByEstado_Id(Estado.Tipo.PUBLICADO.getId());
     }
 
     public List<Publicacion> findByIdAutorAndEstado(Long idAutor, Integer idEstado) {
         return publicacionRepository.findByIdAutorAndEstado_Id(idAutor, idEstado);
     }
 
+    public Publicacion saveConFoto(Publicacion publicacion, MultipartFile file) throws IOException {
+        String spool = prepareFoto(publicacion, file);
+        Publicacion saved = save(publicacion);
+        fotoUploadService.processAfterCommit(saved, spool);
+        return saved;
+    }
+
     public Publicacion uploadFoto(Long publicacionId, MultipartFile file) throws IOException {
         Publicacion publicacion = publicacionRepository.findById(publicacionId)
                 .orElseThrow(() -> new RuntimeException("Publicacion no encontrada con id: " + publicacionId));
-        String urlFoto = s3Service.uploadFile(file);
-        publicacion.setUrlFoto(urlFoto);
-        return publicacionRepository.save(publicacion);
+        String spool = prepareFoto(publicacion, file);
+        Publicacion saved = publicacionRepository.save(publicacion);
+        publicadosFeed.refreshAfterCommit(publicacionId);
+        fotoUploadService.processAfterCommit(saved, spool);
+        return saved;
     }
 
-    public Estado getEstadoById(Integer id) {
-        return estadoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Estado no encontrado con id: " + id));
+    // Deja la foto en el spool. En modo asíncrono queda pendiente (se mantiene la foto actual hasta que
+    // termine de subirse); si no, se sube ahora y sólo las rendiciones se generan en segundo plano.
+    // Si el mismo contenido ya estaba subido, no se vuelve a subir.
+    private String prepareFoto(Publicacion publicacion, MultipartFile file) throws IOException {
+        String spool = fotoUploadService.spool(file);
+        if (fotoUploadService.isAsync()) {
+            publicacion.setFotoPendiente(spool);
+            return spool;
+        }
+        try {
+            publicacion.setUrlFoto(fotoUploadService.uploadNow(spool));
+            publicacion.setRendicionesFoto(fotoUploadService.knownRendiciones(spool));
+            return spool;
+        } catch (RuntimeException e) {
+            fotoUploadService.discard(spool);
+            throw e;
+        }
     }
 
-    public String uploadFotoArchivo(MultipartFile file) throws IOException {
-        return s3Service.uploadFile(file);
+    public Estado getEstadoById(Integer id) {
+        return estadoRegistry.findById(id)
+                .orElseThrow(() -> new RuntimeException("Estado no encontrado con id: " + id));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,235 @@
+package com.taller.publicaciones.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.repository.PublicacionRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Feed de publicaciones publicadas, ya serializado a JSON. Los lectores sólo leen una referencia
+// volátil a una foto inmutable; un único hilo la reconstruye entera al arrancar y después la parcha:
+// tras cada commit que toca publicaciones se recargan sólo esas y se vuelve a armar el arreglo JSON
+// con los fragmentos ya serializados del resto. Si la base falla, los ids vuelven a quedar pendientes
+// (y la construcción inicial se repite) con backoff, hasta que se puedan aplicar.
+@Component
+@Slf4j
+public class PublicadosFeed {
+
+    public record Snapshot(byte[] json, String etag, int size) {}
+
+    private static final long MAX_REINTENTO_MS = 60_000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final PublicacionRepository publicacionRepository;
+    private final ObjectWriter writer;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long reintentoMs;
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "publicados-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean programado = new AtomicBoolean();
+    // Sólo los toca el hilo del feed: JSON de cada publicación publicada, por id
+    private final TreeMap<Long, byte[]> entradas = new TreeMap<>();
+    private long generacion;
+    private int fallosSeguidos;
+    private boolean construido;
+    // Distingue ETags de distintas ejecuciones, porque la generación vuelve a empezar
+    private final String arranque = Long.toHexString(System.currentTimeMillis());
+
+    private volatile Snapshot snapshot;
+
+    public PublicadosFeed(PublicacionRepository publicacionRepository, ObjectMapper objectMapper,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${publicados.feed.reintento-ms:1000}") long reintentoMs) {
+        this.publicacionRepository = publicacionRepository;
+        this.reintentoMs = reintentoMs;
+        this.writer = objectMapper.writerFor(Publicacion.class);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // null hasta que termina la primera construcción
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refresher.execute(this::rebuild);
+    }
+
+    public void refreshAfterCommit(Long id) {
+        refreshAfterCommit(List.of(id));
+    }
+
+    public void refreshAfterCommit(Collection<Long> ids) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(ids);
+                }
+            });
+        } else {
+            refresh(ids);
+        }
+    }
+
+    // Varias escrituras seguidas se juntan en un solo parche
+    public void refresh(Collection<Long> ids) {
+        pendientes.addAll(ids);
+        if (programado.compareAndSet(false, true)) {
+            refresher.execute(this::applyPending);
+        }
+    }
+
+    // Espera a que se aplique lo encolado hasta ahora
+    void awaitPending() throws InterruptedException, ExecutionException {
+        refresher.submit(() -> { }).get();
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        entradas.clear();
+        construido = false;
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Publicacion> rows = publicacionRepository.streamByEstado(Estado.Tipo.PUBLICADO.getId())) {
+                    Iterator<Publicacion> iterator = rows.iterator();
+                    while (iterator.hasNext()) {
+                        Publicacion publicacion = iterator.next();
+                        entradas.put(publicacion.getId(), serialize(publicacion));
+                        entityManager.detach(publicacion);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // Al cerrar el contexto la base ya no está: no hay nada que reintentar
+            if (refresher.isShutdown()) {
+                log.debug("Published feed build interrupted by shutdown: {}", e.getMessage());
+                return;
+            }
+            // Sin foto, el controlador sigue consultando la base hasta que un reintento la construya
+            long delay = siguienteReintento();
+            log.error("Could not build published feed, retrying in {} ms: {}", delay, e.getMessage(), e);
+            refresher.schedule(this::rebuild, delay, TimeUnit.MILLISECONDS);
+            return;
+        }
+        fallosSeguidos = 0;
+        construido = true;
+        publish();
+        log.info("Published feed built with {} publications in {} ms", entradas.size(), System.currentTimeMillis() - start);
+    }
+
+    private void applyPending() {
+        // Antes de vaciar: lo que llegue después programa otra pasada
+        programado.set(false);
+        List<Long> ids = new ArrayList<>(pendientes);
+        pendientes.removeAll(ids);
+        // Sin la construcción completa no hay sobre qué parchar; cuando se haga ya leerá estos cambios
+        if (ids.isEmpty() || !construido) {
+            return;
+        }
+        try {
+            Map<Long, byte[]> actualizadas = readOnlyTransaction.execute(status ->
+                    publicacionRepository.findAllWithEstadoByIdIn(ids).stream()
+                            .filter(p -> Estado.Tipo.PUBLICADO.matches(p.getEstado()))
+                            .collect(Collectors.toMap(Publicacion::getId, this::serialize)));
+            for (Long id : ids) {
+                byte[] json = actualizadas.get(id);
+                if (json != null) {
+                    entradas.put(id, json);
+                } else {
+                    entradas.remove(id);
+                }
+            }
+            fallosSeguidos = 0;
+            publish();
+        } catch (RuntimeException e) {
+            if (refresher.isShutdown()) {
+                log.debug("Published feed refresh for {} interrupted by shutdown: {}", ids, e.getMessage());
+                return;
+            }
+            // Se sigue sirviendo la foto anterior y los ids se reintentan, junto con lo que llegue mientras tanto
+            pendientes.addAll(ids);
+            long delay = siguienteReintento();
+            log.error("Could not refresh published feed for {}, retrying in {} ms: {}", ids, delay, e.getMessage(), e);
+            if (programado.compareAndSet(false, true)) {
+                refresher.schedule(this::applyPending, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    // Backoff exponencial mientras la base siga fallando
+    private long siguienteReintento() {
+        return Math.min(MAX_REINTENTO_MS, reintentoMs << Math.min(fallosSeguidos++, 16));
+    }
+
+    private void publish() {
+        int length = 2 + Math.max(0, entradas.size() - 1);
+        for (byte[] json : entradas.values()) {
+            length += json.length;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+        out.write('[');
+        boolean first = true;
+        for (byte[] json : entradas.values()) {
+            if (!first) {
+                out.write(',');
+            }
+            out.writeBytes(json);
+            first = false;
+        }
+        out.write(']');
+        snapshot = new Snapshot(out.toByteArray(), arranque + "-" + (++generacion), entradas.size());
+    }
+
+    private byte[] serialize(Publicacion publicacion) {
+        try {
+            return writer.writeValueAsBytes(publicacion);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize publication " + publicacion.getId(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdown();
+    }
+}
@@ -0,0 +1,9 @@
+package com.taller.publicaciones.service;
+
+// El recurso pedido no existe; los controladores lo traducen a 404
+public class RecursoNoEncontradoException extends RuntimeException {
+
+    public RecursoNoEncontradoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,52 @@
+package com.taller.publicaciones.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+
+// Guarda las fotos en un directorio local; para desarrollo y tests sin S3
+@Component
+@ConditionalOnProperty(name = "fotos.storage", havingValue = "filesystem")
+@Slf4j
+public class FileSystemObjectStorage implements ObjectStorage {
+
+    private final Path directory;
+    private final String baseUrl;
+
+    public FileSystemObjectStorage(
+            @Value("${fotos.filesystem.dir:${java.io.tmpdir}/publicaciones-storage}") String directory,
+            @Value("${fotos.filesystem.base-url:}") String baseUrl) {
+        this.directory = Paths.get(directory);
+        this.baseUrl = baseUrl.isEmpty() ? this.directory.toUri().toString() : baseUrl;
+    }
+
+    @Override
+    public CompletableFuture<String> upload(String key, Path file, String contentType) {
+        try {
+            Files.createDirectories(directory);
+            Files.copy(file, directory.resolve(key), StandardCopyOption.REPLACE_EXISTING);
+            log.debug("Stored {} in {}", key, directory);
+            return CompletableFuture.completedFuture(urlFor(key));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(String key) {
+        return CompletableFuture.completedFuture(Files.exists(directory.resolve(key)));
+    }
+
+    @Override
+    public String urlFor(String key) {
+        return baseUrl + (baseUrl.endsWith("/") ? "" : "/") + key;
+    }
+}
@@ -0,0 +1,42 @@
+package com.taller.publicaciones.storage;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Claves (digest del contenido) que ya están en el almacenamiento, con los anchos de sus rendiciones.
+// Evita un HEAD por cada subida: sólo se consulta al almacenamiento cuando la clave no está acá.
+@Component
+public class KnownObjectIndex {
+
+    // Valor "" = el objeto existe pero todavía no se conocen sus rendiciones
+    private final Map<String, String> rendicionesPorClave = new ConcurrentHashMap<>();
+
+    public boolean contains(String key) {
+        return rendicionesPorClave.containsKey(key);
+    }
+
+    public void add(String key) {
+        rendicionesPorClave.putIfAbsent(key, "");
+    }
+
+    public void add(String key, String rendiciones) {
+        rendicionesPorClave.put(key, rendiciones != null ? rendiciones : "");
+    }
+
+    // Anchos de las rendiciones ya subidas para esa clave, o null si no se conocen
+    public String rendiciones(String key) {
+        String rendiciones = rendicionesPorClave.get(key);
+        return rendiciones == null || rendiciones.isEmpty() ? null : rendiciones;
+    }
+
+    public int size() {
+        return rendicionesPorClave.size();
+    }
+
+    // "https://bucket.s3.amazonaws.com/abc.jpg" -> "abc.jpg"
+    public static String keyOf(String url) {
+        return url.substring(url.lastIndexOf('/') + 1);
+    }
+}
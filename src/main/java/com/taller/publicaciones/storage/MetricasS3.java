@@ -0,0 +1,45 @@
+package com.taller.publicaciones.storage;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+
+import java.util.concurrent.TimeUnit;
+
+// Latencia y resultado (s3.upload) y tamaño (s3.upload.bytes) de las subidas de S3AsyncObjectStorage,
+// originales y rendiciones; las fallidas no suman bytes. El tag cliente ("async") identifica el cliente de S3.
+public final class MetricasS3 {
+
+    private final Timer exitosas;
+    private final Timer fallidas;
+    private final DistributionSummary bytes;
+
+    public MetricasS3(MeterRegistry registry, String cliente) {
+        this.exitosas = timer(registry, cliente, "ok");
+        this.fallidas = timer(registry, cliente, "error");
+        this.bytes = DistributionSummary.builder("s3.upload.bytes")
+                .description("Bytes subidos a S3")
+                .baseUnit(BaseUnits.BYTES)
+                .tag("cliente", cliente)
+                .register(registry);
+    }
+
+    public void registrar(long inicioNanos, long tamano, Throwable error) {
+        long nanos = System.nanoTime() - inicioNanos;
+        if (error != null) {
+            fallidas.record(nanos, TimeUnit.NANOSECONDS);
+            return;
+        }
+        exitosas.record(nanos, TimeUnit.NANOSECONDS);
+        bytes.record(tamano);
+    }
+
+    private static Timer timer(MeterRegistry registry, String cliente, String resultado) {
+        return Timer.builder("s3.upload")
+                .description("Duración de las subidas a S3")
+                .tag("cliente", cliente)
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+}
@@ -0,0 +1,14 @@
+package com.taller.publicaciones.storage;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+// Destino de las fotos subidas en segundo plano. Devuelve la URL pública del objeto.
+public interface ObjectStorage {
+
+    CompletableFuture<String> upload(String key, Path file, String contentType);
+
+    CompletableFuture<Boolean> exists(String key);
+
+    String urlFor(String key);
+}
@@ -0,0 +1,145 @@
+package com.taller.publicaciones.storage;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Un tramo de un archivo como cuerpo de una petición (una parte de un multipart): se lee del disco en
+// trozos a medida que el cliente HTTP los pide, en vez de cargar la parte entera en el heap. Cada
+// suscripción, también la de un reintento del SDK, abre el archivo y lee el tramo desde el principio.
+// (AsyncRequestBody.fromFile sólo acepta el archivo completo en esta versión del SDK.)
+final class ParteDeArchivo implements AsyncRequestBody {
+
+    private static final int TROZO = 64 * 1024;
+
+    private final Path file;
+    private final long offset;
+    private final long length;
+
+    ParteDeArchivo(Path file, long offset, long length) {
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public Optional<Long> contentLength() {
+        return Optional.of(length);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        AsynchronousFileChannel channel;
+        try {
+            channel = AsynchronousFileChannel.open(file, StandardOpenOption.READ);
+        } catch (IOException e) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(e);
+            return;
+        }
+        subscriber.onSubscribe(new Lectura(channel, subscriber));
+    }
+
+    // Una lectura a la vez: la siguiente empieza cuando termina la anterior y queda demanda
+    private final class Lectura implements Subscription {
+
+        private final AsynchronousFileChannel channel;
+        private final Subscriber<? super ByteBuffer> subscriber;
+        private final AtomicLong demanda = new AtomicLong();
+        private final AtomicBoolean leyendo = new AtomicBoolean();
+        private final AtomicBoolean terminada = new AtomicBoolean();
+        // Sólo lo toca quien tiene "leyendo"
+        private long leidos;
+
+        Lectura(AsynchronousFileChannel channel, Subscriber<? super ByteBuffer> subscriber) {
+            this.channel = channel;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fallar(new IllegalArgumentException("Demand must be positive, got " + n));
+                return;
+            }
+            demanda.getAndUpdate(actual -> actual + n < 0 ? Long.MAX_VALUE : actual + n);
+            leerSiCorresponde();
+        }
+
+        @Override
+        public void cancel() {
+            cerrar();
+        }
+
+        private void leerSiCorresponde() {
+            if (terminada.get() || demanda.get() == 0 || !leyendo.compareAndSet(false, true)) {
+                return;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(TROZO, length - leidos));
+            channel.read(buffer, offset + leidos, buffer, new CompletionHandler<>() {
+                @Override
+                public void completed(Integer leido, ByteBuffer trozo) {
+                    if (leido < 0) {
+                        fallar(new EOFException(file.getFileName() + " ended before the part was read"));
+                        return;
+                    }
+                    trozo.flip();
+                    leidos += leido;
+                    demanda.decrementAndGet();
+                    subscriber.onNext(trozo);
+                    if (leidos == length) {
+                        if (cerrar()) {
+                            subscriber.onComplete();
+                        }
+                        return;
+                    }
+                    leyendo.set(false);
+                    leerSiCorresponde();
+                }
+
+                @Override
+                public void failed(Throwable error, ByteBuffer trozo) {
+                    fallar(error);
+                }
+            });
+        }
+
+        private void fallar(Throwable error) {
+            if (cerrar()) {
+                subscriber.onError(error);
+            }
+        }
+
+        // true sólo la primera vez, para avisar al suscriptor una sola vez
+        private boolean cerrar() {
+            if (!terminada.compareAndSet(false, true)) {
+                return false;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // ya se leyó lo que hacía falta
+            }
+            return true;
+        }
+    }
+}
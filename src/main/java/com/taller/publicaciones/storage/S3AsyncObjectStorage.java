@@ -0,0 +1,149 @@
+package com.taller.publicaciones.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@Component
+@ConditionalOnProperty(name = "fotos.storage", havingValue = "s3", matchIfMissing = true)
+@Slf4j
+public class S3AsyncObjectStorage implements ObjectStorage {
+
+    // S3 exige al menos 5 MB por parte (salvo la última)
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private final S3AsyncClient s3Client;
+    private final String bucketName;
+    private final String endpoint;
+    private final long multipartThreshold;
+    private final long partSize;
+    private final MetricasS3 metricas;
+
+    public S3AsyncObjectStorage(
+            @Value("${aws.access-key}") String accessKey,
+            @Value("${aws.secret-key}") String secretKey,
+            @Value("${aws.region}") String region,
+            @Value("${aws.s3.bucket}") String bucketName,
+            @Value("${aws.s3.endpoint:}") String endpoint,
+            @Value("${fotos.multipart-threshold-bytes:16777216}") long multipartThreshold,
+            @Value("${fotos.multipart-part-bytes:8388608}") long partSize,
+            MeterRegistry meterRegistry) {
+
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+                .region(Region.of(region))
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        // Permite apuntar a un S3 local (MinIO, LocalStack) en desarrollo
+        if (!endpoint.isEmpty()) {
+            builder.endpointOverride(URI.create(endpoint)).forcePathStyle(true);
+        }
+        this.s3Client = builder.build();
+        this.bucketName = bucketName;
+        this.endpoint = endpoint;
+        this.multipartThreshold = multipartThreshold;
+        this.partSize = Math.max(partSize, MIN_PART_SIZE);
+        this.metricas = new MetricasS3(meterRegistry, "async");
+    }
+
+    @Override
+    public CompletableFuture<String> upload(String key, Path file, String contentType) {
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        long inicio = System.nanoTime();
+        CompletableFuture<?> upload = size < multipartThreshold
+                ? s3Client.putObject(b -> b.bucket(bucketName).key(key).contentType(contentType), AsyncRequestBody.fromFile(file))
+                : uploadMultipart(key, file, contentType, size);
+        return upload
+                .whenComplete((response, error) -> metricas.registrar(inicio, size, error))
+                .thenApply(response -> urlFor(key));
+    }
+
+    private CompletableFuture<Void> uploadMultipart(String key, Path file, String contentType, long size) {
+        log.info("Uploading {} ({} bytes) in parts of {} bytes", key, size, partSize);
+        return s3Client.createMultipartUpload(b -> b.bucket(bucketName).key(key).contentType(contentType))
+                .thenCompose(created -> {
+                    String uploadId = created.uploadId();
+                    // Las partes se suben una tras otra, leídas del disco en trozos a medida que se envían
+                    CompletableFuture<List<CompletedPart>> parts = CompletableFuture.completedFuture(new ArrayList<>());
+                    int partCount = (int) ((size + partSize - 1) / partSize);
+                    for (int i = 1; i <= partCount; i++) {
+                        int partNumber = i;
+                        long offset = (i - 1) * partSize;
+                        long length = Math.min(partSize, size - offset);
+                        parts = parts.thenCompose(done -> s3Client.uploadPart(
+                                        b -> b.bucket(bucketName).key(key).uploadId(uploadId).partNumber(partNumber),
+                                        new ParteDeArchivo(file, offset, length))
+                                .thenApply(response -> {
+                                    done.add(CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build());
+                                    return done;
+                                }));
+                    }
+                    return parts
+                            .thenCompose(done -> s3Client.completeMultipartUpload(b -> b.bucket(bucketName).key(key)
+                                    .uploadId(uploadId)
+                                    .multipartUpload(CompletedMultipartUpload.builder().parts(done).build())))
+                            .<Void>thenApply(response -> null)
+                            .exceptionallyCompose(e -> abort(key, uploadId, e));
+                });
+    }
+
+    // Descarta las partes ya subidas y propaga el error original
+    private CompletableFuture<Void> abort(String key, String uploadId, Throwable cause) {
+        return s3Client.abortMultipartUpload(b -> b.bucket(bucketName).key(key).uploadId(uploadId))
+                .handle((response, abortError) -> {
+                    if (abortError != null) {
+                        log.warn("Could not abort multipart upload {} for {}: {}", uploadId, key, abortError.getMessage());
+                    }
+                    throw cause instanceof CompletionException ce ? ce : new CompletionException(cause);
+                });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(String key) {
+        return s3Client.headObject(b -> b.bucket(bucketName).key(key))
+                .thenApply(response -> true)
+                .exceptionallyCompose(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    return cause instanceof S3Exception s3e && s3e.statusCode() == 404
+                            ? CompletableFuture.completedFuture(false)
+                            : CompletableFuture.failedFuture(cause);
+                });
+    }
+
+    @Override
+    public String urlFor(String key) {
+        if (!endpoint.isEmpty()) {
+            return String.format("%s/%s/%s", endpoint.replaceAll("/+$", ""), bucketName, key);
+        }
+        return String.format("https://%s.s3.amazonaws.com/%s", bucketName, key);
+    }
+
+    @PreDestroy
+    public void close() {
+        s3Client.close();
+    }
+}
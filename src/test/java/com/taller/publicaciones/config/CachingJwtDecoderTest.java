@@ -0,0 +1,153 @@
+package com.taller.publicaciones.config;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachingJwtDecoderTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger descargas = new AtomicInteger();
+    private volatile long demoraMs;
+
+    private RSAKey clave;
+    private HttpServer jwks;
+    private RefreshingJwkSource jwkSource;
+
+    // Un proveedor de identidad local que publica la clave pública y cuenta las descargas
+    @BeforeEach
+    void setUp() throws Exception {
+        clave = new RSAKeyGenerator(2048).keyID("test").generate();
+        byte[] cuerpo = new JWKSet(clave.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+        jwks = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        jwks.createContext("/jwks", exchange -> {
+            descargas.incrementAndGet();
+            try {
+                Thread.sleep(demoraMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, cuerpo.length);
+            exchange.getResponseBody().write(cuerpo);
+            exchange.close();
+        });
+        jwks.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jwkSource.close();
+        jwks.stop(0);
+    }
+
+    @Test
+    void validatesEachTokenOnceWhileItIsValid() throws Exception {
+        CachingJwtDecoder decoder = decoder(Duration.ofMinutes(5), Clock.systemUTC());
+        String token = token(clave, Instant.now().plusSeconds(3600));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(decoder.decode(token).getSubject()).isEqualTo("42");
+        }
+
+        assertThat(descargas.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("jwt.cache").tag("resultado", "hit").counter().count()).isEqualTo(4);
+        assertThat(meterRegistry.get("jwt.cache").tag("resultado", "miss").counter().count()).isEqualTo(1);
+        assertThat(decoder.getValidacionPromedioNanos()).isPositive();
+        assertThat(meterRegistry.get("jwt.validacion.duracion").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("jwt.cache.tiempo.ahorrado").timer().count()).isPositive();
+    }
+
+    @Test
+    void doesNotServeTokensPastTheirExpiry() throws Exception {
+        // El reloj del decoder va dos horas adelantado: para él el token ya venció y no se guarda
+        Clock adelantado = Clock.fixed(Instant.now().plus(Duration.ofHours(2)), ZoneOffset.UTC);
+        CachingJwtDecoder decoder = decoder(Duration.ofMinutes(5), adelantado);
+        String token = token(clave, Instant.now().plusSeconds(3600));
+
+        decoder.decode(token);
+        decoder.decode(token);
+
+        assertThat(meterRegistry.get("jwt.cache").tag("resultado", "miss").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsForgedTokensEveryTime() throws Exception {
+        CachingJwtDecoder decoder = decoder(Duration.ofMinutes(5), Clock.systemUTC());
+        String falso = token(new RSAKeyGenerator(2048).keyID("test").generate(), Instant.now().plusSeconds(3600));
+
+        assertThatThrownBy(() -> decoder.decode(falso)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> decoder.decode(falso)).isInstanceOf(JwtException.class);
+        assertThat(meterRegistry.get("jwt.cache").tag("resultado", "hit").counter().count()).isZero();
+    }
+
+    @Test
+    void keepsServingStaleKeysWhileASlowProviderRefreshes() throws Exception {
+        CachingJwtDecoder decoder = decoder(Duration.ofMillis(50), Clock.systemUTC());
+        decoder.decode(token(clave, Instant.now().plusSeconds(3600)));
+        assertThat(descargas.get()).isEqualTo(1);
+
+        demoraMs = 1500;
+        Thread.sleep(100);
+        long inicio = System.nanoTime();
+        decoder.decode(token(clave, Instant.now().plusSeconds(1800)));
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+
+        // Se validó con las claves anteriores mientras el refresco corre en segundo plano
+        assertThat(ms).isLessThan(1000);
+        long limite = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("jwt.jwks.refrescos").tag("resultado", "ok").counter().count() < 2
+                && System.currentTimeMillis() < limite) {
+            Thread.sleep(50);
+        }
+        assertThat(descargas.get()).isEqualTo(2);
+    }
+
+    private CachingJwtDecoder decoder(Duration refresh, Clock clock) {
+        jwkSource = new RefreshingJwkSource(URI.create("http://localhost:" + jwks.getAddress().getPort() + "/jwks"),
+                refresh, Duration.ofDays(1), Duration.ofSeconds(30), Duration.ofSeconds(5), meterRegistry);
+        NimbusJwtDecoder nimbus = NimbusJwtDecoder.withJwkSetUri("http://localhost/no-usado")
+                .jwtProcessorCustomizer(processor -> processor.setJWSKeySelector(
+                        new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource)))
+                .build();
+        return new CachingJwtDecoder(nimbus, 100, Duration.ofMinutes(10), clock, meterRegistry);
+    }
+
+    private static String token(RSAKey firma, Instant expira) throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("42")
+                .issueTime(new Date())
+                .expirationTime(Date.from(expira))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(firma.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(firma));
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,39 @@
+package com.taller.publicaciones.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContadorSentenciasTest {
+
+    private final ContadorSentencias inspector = new ContadorSentencias();
+
+    @AfterEach
+    void terminar() {
+        ContadorSentencias.terminar();
+    }
+
+    @Test
+    void groupsSelectsByShapeAndIgnoresRepeatedInserts() {
+        ContadorSentencias.Medicion medicion = ContadorSentencias.iniciar();
+        for (int i = 0; i < 4; i++) {
+            inspector.inspect("select p1_0.id,p1_0.titulo from publicaciones p1_0 where p1_0.id=?");
+            inspector.inspect("insert into comentarios (texto,id) values (?,?)");
+        }
+        inspector.inspect("select e1_0.id from estados e1_0 where e1_0.id in (?,?,?)");
+        inspector.inspect("select e1_0.id from estados  e1_0 where e1_0.id in (?)");
+
+        assertThat(medicion.total()).isEqualTo(10);
+        assertThat(medicion.repeticionesMaximas()).isEqualTo(4);
+        assertThat(medicion.masRepetida().orElseThrow().getKey()).contains("from publicaciones");
+        assertThat(ContadorSentencias.forma("select x from t where id in ( ?, ? )")).isEqualTo("select x from t where id in (?)");
+    }
+
+    @Test
+    void countsNothingOutsideAMeasurement() {
+        inspector.inspect("select 1");
+        ContadorSentencias.Medicion medicion = ContadorSentencias.iniciar();
+        assertThat(medicion.total()).isZero();
+    }
+}
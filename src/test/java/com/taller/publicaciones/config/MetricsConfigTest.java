@@ -0,0 +1,49 @@
+package com.taller.publicaciones.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+// Sin esto los tests usan un registro en memoria y no publican /actuator/prometheus
+@AutoConfigureObservability(tracing = false)
+class MetricsConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void exposesPrometheusMetricsWithoutTokenToAllowedNetworks() throws Exception {
+        mockMvc.perform(get("/api/estados")).andExpect(status().isOk());
+
+        String metricas = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(metricas)
+                .containsPattern("http_server_requests_seconds_bucket\\{[^}]*handler=\"EstadoController\\.getAllEstados\"")
+                .contains("hibernate_query_executions_total")
+                .contains("hibernate_second_level_cache_requests_total")
+                .contains("hikaricp_connections_pending")
+                .containsPattern("s3_upload_seconds_count\\{[^}]*cliente=\"async\"")
+                .containsPattern("intercambios_transiciones_total\\{[^}]*desde=\"PENDIENTE\",hacia=\"ACEPTADO\"")
+                .contains("intercambios_conflictos_total");
+    }
+
+    @Test
+    void rejectsPrometheusScrapesFromOtherNetworks() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus").with(request -> {
+                    request.setRemoteAddr("203.0.113.7");
+                    return request;
+                }))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,35 @@
+package com.taller.publicaciones.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Las métricas de Hibernate no dependen de que la caché de segundo nivel esté activa
+@SpringBootTest(properties = "cache.l2.enabled=false")
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class MetricsSinCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void publishesHibernateMetricsWithoutSecondLevelCache() throws Exception {
+        mockMvc.perform(get("/api/estados")).andExpect(status().isOk());
+
+        String metricas = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(metricas)
+                .contains("hibernate_query_executions_total")
+                .contains("hibernate_sessions_open_total");
+    }
+}
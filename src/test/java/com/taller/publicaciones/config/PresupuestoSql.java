@@ -0,0 +1,35 @@
+package com.taller.publicaciones.config;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Matchers de MockMvc sobre la medición de PresupuestoSqlFilter:
+//   mockMvc.perform(get(url)).andExpect(PresupuestoSql.maxSentencias(3)).andExpect(PresupuestoSql.sinNMasUno());
+public final class PresupuestoSql {
+
+    private PresupuestoSql() {
+    }
+
+    public static ResultMatcher maxSentencias(int maximo) {
+        return result -> assertThat(medicion(result.getRequest().getAttribute(PresupuestoSqlFilter.MEDICION)).total())
+                .as("sentencias SQL en %s", result.getRequest().getRequestURI())
+                .isLessThanOrEqualTo(maximo);
+    }
+
+    // Ningún SELECT se repite con la misma forma
+    public static ResultMatcher sinNMasUno() {
+        return result -> {
+            ContadorSentencias.Medicion medicion = medicion(result.getRequest().getAttribute(PresupuestoSqlFilter.MEDICION));
+            assertThat(medicion.repeticionesMaximas())
+                    .as("consulta repetida en %s: %s", result.getRequest().getRequestURI(),
+                            medicion.masRepetida().map(e -> e.getKey()).orElse(""))
+                    .isLessThanOrEqualTo(1);
+        };
+    }
+
+    private static ContadorSentencias.Medicion medicion(Object atributo) {
+        assertThat(atributo).as("medición de PresupuestoSqlFilter").isInstanceOf(ContadorSentencias.Medicion.class);
+        return (ContadorSentencias.Medicion) atributo;
+    }
+}
@@ -0,0 +1,141 @@
+package com.taller.publicaciones.controller;
+
+import com.taller.publicaciones.config.PresupuestoSql;
+import com.taller.publicaciones.model.Comentario;
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.model.PublicacionUpdateDTO;
+import com.taller.publicaciones.service.ComentarioService;
+import com.taller.publicaciones.service.PublicacionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ComentarioControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PublicacionService publicacionService;
+
+    @Autowired
+    private ComentarioService comentarioService;
+
+    @Test
+    void answersNotModifiedUntilTheCommentsChange() throws Exception {
+        Publicacion publicacion = publicacion();
+        Comentario comentario = comentario(publicacion);
+        String url = "/api/comentarios/publicacion/" + publicacion.getId();
+
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("W/\"");
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        Comentario cambios = new Comentario();
+        cambios.setTexto("Editado");
+        cambios.setValoracion(comentario.getValoracion());
+        comentarioService.update(comentario.getId(), cambios);
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    void singleCommentHasStrongEtagAndLastModified() throws Exception {
+        Comentario comentario = comentario(publicacion());
+        String url = "/api/comentarios/" + comentario.getId();
+
+        var response = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        String etag = response.getHeader(HttpHeaders.ETAG);
+        String lastModified = response.getHeader(HttpHeaders.LAST_MODIFIED);
+        assertThat(etag).startsWith("\"");
+        assertThat(lastModified).isNotNull();
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get(url).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/comentarios/999999"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void editingThePublicationChangesTheCommentValidators() throws Exception {
+        Publicacion publicacion = publicacion();
+        Comentario comentario = comentario(publicacion);
+        String uno = "/api/comentarios/" + comentario.getId();
+        String lista = "/api/comentarios/publicacion/" + publicacion.getId();
+        String etagUno = mockMvc.perform(get(uno)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String etagLista = mockMvc.perform(get(lista)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // La publicación va embebida en cada comentario: editarla cambia la representación
+        PublicacionUpdateDTO cambios = new PublicacionUpdateDTO();
+        cambios.setTitulo("Guitarra eléctrica");
+        publicacionService.update(publicacion.getId(), cambios);
+
+        mockMvc.perform(get(uno).header(HttpHeaders.IF_NONE_MATCH, etagUno))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etagUno)));
+        mockMvc.perform(get(lista).header(HttpHeaders.IF_NONE_MATCH, etagLista))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etagLista)));
+    }
+
+    @Test
+    void listsCommentsOfAPublicationWithinStatementBudget() throws Exception {
+        Publicacion publicacion = publicacion();
+        for (int i = 0; i < 10; i++) {
+            comentario(publicacion);
+        }
+
+        // Los comentarios y, a lo más, su publicación (una sola vez, no una por comentario)
+        mockMvc.perform(get("/api/comentarios/publicacion/" + publicacion.getId()))
+                .andExpect(status().isOk())
+                .andExpect(PresupuestoSql.maxSentencias(3))
+                .andExpect(PresupuestoSql.sinNMasUno());
+        mockMvc.perform(get("/api/comentarios/publicacion/" + publicacion.getId() + "/resumen"))
+                .andExpect(status().isOk())
+                .andExpect(PresupuestoSql.maxSentencias(1));
+    }
+
+    private Publicacion publicacion() {
+        Publicacion publicacion = new Publicacion();
+        publicacion.setTitulo("Guitarra");
+        publicacion.setDescripcion("Acústica");
+        publicacion.setPrecio(80000);
+        publicacion.setIdAutor(1L);
+        publicacion.setEstado(new Estado(Estado.Tipo.PUBLICADO.getId(), null));
+        return publicacionService.save(publicacion);
+    }
+
+    private Comentario comentario(Publicacion publicacion) {
+        Comentario comentario = new Comentario();
+        comentario.setTexto("¿Sigue disponible?");
+        comentario.setIdAutor(2L);
+        comentario.setIdPublicacion(publicacion.getId());
+        comentario.setValoracion(4);
+        return comentarioService.save(comentario);
+    }
+}
@@ -0,0 +1,63 @@
+package com.taller.publicaciones.controller;
+
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.model.PublicacionUpdateDTO;
+import com.taller.publicaciones.service.ImportacionService;
+import com.taller.publicaciones.service.PublicacionCamposService;
+import com.taller.publicaciones.service.PublicacionService;
+import com.taller.publicaciones.service.PublicadosFeed;
+import com.taller.publicaciones.service.RecursoNoEncontradoException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PublicacionControllerTest {
+
+    private final PublicacionService publicacionService = mock(PublicacionService.class);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new PublicacionController(publicacionService,
+            mock(PublicadosFeed.class), mock(PublicacionCamposService.class), mock(ImportacionService.class))).build();
+
+    @Test
+    void updateAnswersConflictOnStaleVersionAndNotFoundOnlyWhenMissing() throws Exception {
+        when(publicacionService.update(eq(1L), any(PublicacionUpdateDTO.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Publicacion.class, 1L));
+        when(publicacionService.update(eq(2L), any(PublicacionUpdateDTO.class)))
+                .thenThrow(new RecursoNoEncontradoException("Publicacion not found with id: 2"));
+        when(publicacionService.update(eq(3L), any(PublicacionUpdateDTO.class)))
+                .thenThrow(new RuntimeException("Estado no encontrado con id: 99"));
+
+        mockMvc.perform(actualizar(1)).andExpect(status().isConflict());
+        mockMvc.perform(actualizar(2)).andExpect(status().isNotFound());
+        mockMvc.perform(actualizar(3)).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void invalidCursorAnswersBadRequestWithoutQuerying() throws Exception {
+        mockMvc.perform(get("/api/publicaciones/cursor").param("cursor", "no-es-un-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/publicaciones/autor/7/cursor").param("cursor", "no-es-un-cursor"))
+                .andExpect(status().isBadRequest());
+
+        verify(publicacionService, never()).findAllAfter(any(), anyInt());
+        verify(publicacionService, never()).findByIdAutorAfter(anyLong(), any(), anyInt());
+    }
+
+    private static RequestBuilder actualizar(long id) {
+        return put("/api/publicaciones/" + id).contentType(MediaType.APPLICATION_JSON).content("{\"precio\":1000}");
+    }
+}
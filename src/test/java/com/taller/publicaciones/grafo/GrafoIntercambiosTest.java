@@ -0,0 +1,172 @@
+package com.taller.publicaciones.grafo;
+
+import com.taller.publicaciones.model.CicloIntercambioDTO;
+import com.taller.publicaciones.model.OfertaPendienteDTO;
+import com.taller.publicaciones.repository.IntercambioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GrafoIntercambiosTest {
+
+    private final IntercambioRepository intercambioRepository = mock(IntercambioRepository.class);
+    private final GrafoIntercambios grafo = new GrafoIntercambios(intercambioRepository, 200_000, 60);
+
+    @Test
+    void findsTheThreeWayTradeAndIgnoresDirectSwapsAndRepeatedOwners() {
+        // El producto 10 es del usuario 1, el 20 del 2, etc. Cada uno ofrece el suyo por el del siguiente
+        ofrecer(1, 10, 20);
+        ofrecer(2, 20, 30);
+        ofrecer(3, 30, 10);
+        // Un 1:1 no es un ciclo de varios usuarios
+        ofrecer(4, 20, 10);
+        // 10 -> 40 -> 11 -> 10 pasa dos veces por el usuario 1
+        ofrecer(5, 10, 40);
+        ofrecer(6, 40, 11);
+        ofrecer(7, 11, 10);
+
+        List<CicloIntercambioDTO> ciclos = grafo.ciclosDeUsuario(1, 10);
+
+        assertThat(ciclos).hasSize(1);
+        assertThat(ciclos.get(0).getProductos()).containsExactly(10L, 20L, 30L);
+        assertThat(ciclos.get(0).getUsuarios()).containsExactly(1L, 2L, 3L);
+        assertThat(ciclos.get(0).getIntercambios()).containsExactly(1L, 2L, 3L);
+        assertThat(grafo.ciclosDeUsuario(2, 10)).singleElement()
+                .satisfies(ciclo -> assertThat(ciclo.getProductos()).containsExactly(20L, 30L, 10L));
+    }
+
+    @Test
+    void returnsLongerCyclesAfterShorterOnesUpToFiveAndHonoursTheLimit() {
+        ofrecer(1, 10, 20);
+        ofrecer(2, 20, 30);
+        ofrecer(3, 30, 10);
+        ofrecer(4, 20, 40);
+        ofrecer(5, 40, 50);
+        ofrecer(6, 50, 10);
+        ofrecer(7, 30, 40);
+        // Seis usuarios: demasiado largo
+        ofrecer(8, 50, 60);
+        ofrecer(9, 60, 70);
+
+        assertThat(grafo.ciclosDeProducto(10, 10)).extracting(CicloIntercambioDTO::getProductos).containsExactly(
+                List.of(10L, 20L, 30L), List.of(10L, 20L, 40L, 50L), List.of(10L, 20L, 30L, 40L, 50L));
+        assertThat(grafo.ciclosDeProducto(10, 2)).hasSize(2);
+        assertThat(grafo.ciclosDeProducto(60, 10)).isEmpty();
+    }
+
+    @Test
+    void keepsUpWithRejectedOffersAndTakenProducts() {
+        ofrecer(1, 10, 20);
+        ofrecer(2, 20, 30);
+        ofrecer(3, 30, 10);
+        ofrecer(3, 30, 10);
+        assertThat(grafo.getOfertas()).isEqualTo(3);
+
+        grafo.quitar(2, 20, 30);
+        assertThat(grafo.ciclosDeUsuario(1, 10)).isEmpty();
+
+        ofrecer(2, 20, 30);
+        ofrecer(4, 30, 40);
+        assertThat(grafo.ciclosDeUsuario(1, 10)).hasSize(1);
+
+        // Aceptar la oferta 4 toma los productos 30 y 40: se van todas las ofertas que los tocan
+        grafo.retirar(List.of(40L, 30L));
+        assertThat(grafo.ciclosDeUsuario(1, 10)).isEmpty();
+        assertThat(grafo.getOfertas()).isEqualTo(1);
+    }
+
+    @Test
+    void aLateOfferCallbackDoesNotBringBackATakenProduct() {
+        ofrecer(1, 10, 20);
+        ofrecer(2, 20, 30);
+        // Se aceptó una oferta sobre el 30; la 3 se creó antes, pero su callback llega después
+        grafo.retirar(List.of(30L));
+        ofrecer(3, 30, 10);
+
+        assertThat(grafo.ciclosDeUsuario(1, 10)).isEmpty();
+        assertThat(grafo.getOfertas()).isEqualTo(1);
+    }
+
+    @Test
+    void revertingPutsTheProductsBackWithTheirPendingOffers() {
+        ofrecer(1, 10, 20);
+        ofrecer(2, 20, 30);
+        ofrecer(3, 30, 10);
+        grafo.retirar(List.of(30L, 40L));
+        assertThat(grafo.ciclosDeUsuario(1, 10)).isEmpty();
+        // En la base las ofertas 2 y 3 siguen pendientes
+        when(intercambioRepository.findOfertasPendientesParaGrafoDeProductos(anyInt(), anyCollection(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(
+                        new OfertaPendienteDTO(2L, 20L, 2L, 30L, 3L),
+                        new OfertaPendienteDTO(3L, 30L, 3L, 10L, 1L)));
+
+        grafo.reponer(List.of(30L, 40L));
+
+        assertThat(grafo.ciclosDeUsuario(1, 10)).singleElement()
+                .satisfies(ciclo -> assertThat(ciclo.getProductos()).containsExactly(10L, 20L, 30L));
+        ofrecer(4, 40, 10);
+        assertThat(grafo.getOfertas()).isEqualTo(4);
+    }
+
+    @Test
+    void rebuildsFromThePendingOffersInTheDatabase() {
+        when(intercambioRepository.findOfertasPendientesParaGrafo(anyInt(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(
+                        new OfertaPendienteDTO(1L, 10L, 1L, 20L, 2L),
+                        new OfertaPendienteDTO(2L, 20L, 2L, 30L, 3L),
+                        new OfertaPendienteDTO(3L, 30L, 3L, 10L, 1L)));
+        ofrecer(99, 70, 80);
+
+        grafo.reconstruir();
+
+        assertThat(grafo.isListo()).isTrue();
+        assertThat(grafo.getOfertas()).isEqualTo(3);
+        assertThat(grafo.ciclosDeUsuario(3, 10)).singleElement()
+                .satisfies(ciclo -> assertThat(ciclo.getIntercambios()).containsExactly(3L, 1L, 2L));
+    }
+
+    @Test
+    void keepsAnsweringFromTheOldGraphWhileRebuildingAndKeepsTheChangesMadeMeanwhile() {
+        ofrecer(1, 10, 20);
+        ofrecer(2, 20, 30);
+        ofrecer(3, 30, 10);
+        when(intercambioRepository.findOfertasPendientesParaGrafo(anyInt(), anyLong(), any(Pageable.class)))
+                .thenAnswer(invocacion -> {
+                    // A mitad de la carga el grafo anterior sigue completo
+                    assertThat(grafo.isListo()).isFalse();
+                    assertThat(grafo.getOfertas()).isEqualTo(3);
+                    assertThat(grafo.ciclosDeUsuario(1, 10)).hasSize(1);
+                    // La oferta 2 se rechaza y llega la 4 después de que la consulta las leyó
+                    grafo.quitar(2, 20, 30);
+                    ofrecer(4, 30, 40);
+                    return List.of(
+                            new OfertaPendienteDTO(1L, 10L, 1L, 20L, 2L),
+                            new OfertaPendienteDTO(2L, 20L, 2L, 30L, 3L),
+                            new OfertaPendienteDTO(3L, 30L, 3L, 10L, 1L));
+                });
+
+        grafo.reconstruir();
+
+        assertThat(grafo.getOfertas()).isEqualTo(3);
+        assertThat(grafo.ciclosDeUsuario(1, 10)).isEmpty();
+        assertThat(grafo.ciclosDeProducto(40, 10)).isEmpty();
+        ofrecer(2, 20, 30);
+        ofrecer(5, 40, 20);
+        assertThat(grafo.ciclosDeProducto(40, 10)).extracting(CicloIntercambioDTO::getProductos)
+                .containsExactly(List.of(40L, 20L, 30L));
+    }
+
+    // En estas pruebas el dueño de cada producto es su id dividido por 10
+    private void ofrecer(long oferta, long ofrecido, long solicitado) {
+        grafo.agregar(oferta, ofrecido, ofrecido / 10, solicitado, solicitado / 10);
+    }
+}
@@ -0,0 +1,40 @@
+package com.taller.publicaciones.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripsThroughAnUrlSafeToken() {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2024, 3, 9, 18, 5, 7, 123_456_000), 4_200_000_001L);
+
+        String token = cursor.encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+        assertThat(KeysetCursor.decode(token)).isEqualTo(cursor);
+        // A medianoche LocalDateTime.toString() omite los segundos; igual tiene que volver
+        KeysetCursor medianoche = new KeysetCursor(LocalDateTime.of(2024, 1, 1, 0, 0), 1L);
+        assertThat(KeysetCursor.decode(medianoche.encode())).isEqualTo(medianoche);
+    }
+
+    @Test
+    void rejectsTokensItDidNotProduce() {
+        for (String token : new String[] {"no es base64!", token("2024-03-09T18:05:07"), token("ayer|7"),
+                token("2024-03-09T18:05:07|siete"), ""}) {
+            assertThatThrownBy(() -> KeysetCursor.decode(token))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageStartingWith("Cursor inválido");
+        }
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,59 @@
+package com.taller.publicaciones.search;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PublicacionSearchIndexTest {
+
+    private final PublicacionSearchIndex index = new PublicacionSearchIndex(null);
+
+    @Test
+    void analyzerFoldsAccentsAndPlurals() {
+        assertThat(SpanishAnalyzer.analyze("Camiones Rápidos y Niños"))
+                .containsExactlyElementsOf(SpanishAnalyzer.analyze("camion rapido nino"));
+        assertThat(SpanishAnalyzer.analyze("de la para")).isEmpty();
+    }
+
+    @Test
+    void ranksTitleMatchesAboveDescriptionMatches() {
+        index.index(1L, "Mesa de comedor", "Bicicleta de regalo con la compra");
+        index.index(2L, "Bicicleta de montaña", "Aro 29, poco uso");
+        index.index(3L, "Lámpara", "Ideal para escritorio");
+
+        Page<Long> result = index.search("bicicleta", "bicicleta", PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).containsExactly(2L, 1L);
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void matchesPrefixesAndFollowsUpdatesAndDeletes() {
+        index.index(1L, "Cámara réflex", "Con lente");
+        index.index(2L, "Camiseta", "Talla M");
+
+        assertThat(index.search("cam", "cam", PageRequest.of(0, 10)).getContent()).containsExactlyInAnyOrder(1L, 2L);
+
+        index.index(2L, "Polera", "Talla M");
+        index.remove(1L);
+
+        assertThat(index.search("cam", "cam", PageRequest.of(0, 10)).getContent()).isEmpty();
+        assertThat(index.search("polera", "", PageRequest.of(0, 10)).getContent()).isEqualTo(List.of(2L));
+    }
+
+    @Test
+    void paginatesRankedResults() {
+        for (long id = 1; id <= 25; id++) {
+            index.index(id, "Libro " + id, "Usado");
+        }
+
+        Page<Long> page = index.search("libro", "libro", PageRequest.of(2, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(25);
+        assertThat(page.getContent()).hasSize(5);
+    }
+}
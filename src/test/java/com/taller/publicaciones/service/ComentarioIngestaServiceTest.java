@@ -0,0 +1,140 @@
+package com.taller.publicaciones.service;
+
+import com.taller.publicaciones.model.Comentario;
+import com.taller.publicaciones.model.IngestaComentarioDTO;
+import com.taller.publicaciones.model.IngestaComentarioDTO.EstadoIngesta;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ComentarioIngestaServiceTest {
+
+    private static final long PUBLICACION_INEXISTENTE = 404L;
+
+    private final ComentarioService comentarioService = mock(ComentarioService.class);
+    private final List<Integer> lotes = new CopyOnWriteArrayList<>();
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private ComentarioIngestaService ingesta;
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        liberar.countDown();
+        ingesta.shutdown();
+    }
+
+    @Test
+    void groupsWhatArrivesWhileTheWriterIsBusyAndPushesBackWhenFull() throws InterruptedException {
+        AtomicLong ids = new AtomicLong();
+        when(comentarioService.saveLote(anyList())).thenAnswer(invocation -> {
+            List<Comentario> comentarios = invocation.getArgument(0);
+            lotes.add(comentarios.size());
+            // El primer lote tarda, como una base bajo carga, y mientras tanto se llena la cola
+            liberar.await(5, TimeUnit.SECONDS);
+            comentarios.stream()
+                    .filter(comentario -> comentario.getIdPublicacion() != PUBLICACION_INEXISTENTE)
+                    .forEach(comentario -> comentario.setId(ids.incrementAndGet()));
+            return comentarios;
+        });
+        ingesta = new ComentarioIngestaService(comentarioService, new SimpleMeterRegistry(), 5, 10, 20, 60, 30_000);
+
+        String primero = ingesta.aceptar(comentario(1L)).orElseThrow();
+        verify(comentarioService, timeout(5000)).saveLote(anyList());
+
+        List<String> tickets = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tickets.add(ingesta.aceptar(comentario(1L)).orElseThrow());
+        }
+        tickets.add(ingesta.aceptar(comentario(PUBLICACION_INEXISTENTE)).orElseThrow());
+        assertThat(ingesta.aceptar(comentario(1L))).isEmpty();
+        assertThat(ingesta.consultar(tickets.get(0)).orElseThrow().getEstado()).isEqualTo(EstadoIngesta.PENDIENTE);
+
+        liberar.countDown();
+        verify(comentarioService, timeout(5000).times(2)).saveLote(anyList());
+        assertThat(lotes).containsExactly(1, 5);
+
+        assertThat(esperar(primero).getIdComentario()).isEqualTo(1L);
+        for (String ticket : tickets.subList(0, 4)) {
+            assertThat(esperar(ticket).getEstado()).isEqualTo(EstadoIngesta.GUARDADO);
+        }
+        IngestaComentarioDTO rechazado = esperar(tickets.get(4));
+        assertThat(rechazado.getEstado()).isEqualTo(EstadoIngesta.RECHAZADO);
+        assertThat(rechazado.getError()).contains(String.valueOf(PUBLICACION_INEXISTENTE));
+        verify(comentarioService, times(2)).saveLote(anyList());
+    }
+
+    @Test
+    void savesWhatIsLeftInTheQueueOnShutdown() throws InterruptedException {
+        when(comentarioService.saveLote(anyList())).thenAnswer(invocation -> {
+            List<Comentario> comentarios = invocation.getArgument(0);
+            comentarios.forEach(comentario -> comentario.setId(7L));
+            return comentarios;
+        });
+        // Latencia larga: sin el cierre, el lote esperaría un minuto a juntar más
+        ingesta = new ComentarioIngestaService(comentarioService, new SimpleMeterRegistry(), 100, 100, 60_000, 60, 30_000);
+        String ticket = ingesta.aceptar(comentario(1L)).orElseThrow();
+
+        ingesta.shutdown();
+
+        assertThat(ingesta.consultar(ticket).orElseThrow().getEstado()).isEqualTo(EstadoIngesta.GUARDADO);
+        assertThat(ingesta.aceptar(comentario(1L))).isEmpty();
+    }
+
+    @Test
+    void rejectsWhatTheWriterCouldNotSaveBeforeTheShutdownDeadline() throws InterruptedException {
+        when(comentarioService.saveLote(anyList())).thenAnswer(invocation -> {
+            // La base no contesta hasta después del cierre
+            liberar.await(5, TimeUnit.SECONDS);
+            List<Comentario> comentarios = invocation.getArgument(0);
+            comentarios.forEach(comentario -> comentario.setId(7L));
+            return comentarios;
+        });
+        ingesta = new ComentarioIngestaService(comentarioService, new SimpleMeterRegistry(), 100, 1, 20, 60, 100);
+        String enCurso = ingesta.aceptar(comentario(1L)).orElseThrow();
+        verify(comentarioService, timeout(5000)).saveLote(anyList());
+        String encolado = ingesta.aceptar(comentario(1L)).orElseThrow();
+
+        ingesta.shutdown();
+
+        IngestaComentarioDTO rechazado = ingesta.consultar(encolado).orElseThrow();
+        assertThat(rechazado.getEstado()).isEqualTo(EstadoIngesta.RECHAZADO);
+        assertThat(rechazado.getError()).isNotBlank();
+        liberar.countDown();
+        assertThat(esperar(enCurso).getEstado()).isEqualTo(EstadoIngesta.GUARDADO);
+    }
+
+    private IngestaComentarioDTO esperar(String ticket) throws InterruptedException {
+        for (int i = 0; i < 250; i++) {
+            Optional<IngestaComentarioDTO> resultado = ingesta.consultar(ticket);
+            if (resultado.isPresent() && resultado.get().getEstado() != EstadoIngesta.PENDIENTE) {
+                return resultado.get();
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Ticket " + ticket + " still pending");
+    }
+
+    private static Comentario comentario(Long idPublicacion) {
+        Comentario comentario = new Comentario();
+        comentario.setTexto("¡Lo quiero!");
+        comentario.setIdAutor(3L);
+        comentario.setIdPublicacion(idPublicacion);
+        comentario.setValoracion(5);
+        return comentario;
+    }
+}
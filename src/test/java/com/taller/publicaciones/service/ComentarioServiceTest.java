@@ -0,0 +1,156 @@
+package com.taller.publicaciones.service;
+
+import com.taller.publicaciones.model.Comentario;
+import com.taller.publicaciones.model.ComentarioResumen;
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.repository.ComentarioResumenRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ComentarioServiceTest {
+
+    @Autowired
+    private PublicacionService publicacionService;
+
+    @Autowired
+    private ComentarioService comentarioService;
+
+    @Autowired
+    private ComentarioResumenRepository comentarioResumenRepository;
+
+    @Test
+    void resumenFollowsSaveUpdateAndDelete() {
+        Publicacion publicacion = publicacion();
+        Comentario cinco = comentario(publicacion, 5);
+        Comentario tres = comentario(publicacion, 3);
+        comentario(publicacion, 3);
+
+        ComentarioResumen resumen = comentarioService.getResumen(publicacion.getId());
+        assertThat(resumen.getCantidad()).isEqualTo(3);
+        assertThat(resumen.getEstrellas3()).isEqualTo(2);
+        assertThat(resumen.getPromedio()).isEqualTo(11 / 3.0);
+
+        Comentario cambios = new Comentario();
+        cambios.setTexto("Cambié de opinión");
+        cambios.setValoracion(1);
+        comentarioService.update(tres.getId(), cambios);
+        comentarioService.deleteById(cinco.getId());
+
+        resumen = comentarioService.getResumen(publicacion.getId());
+        assertThat(resumen.getCantidad()).isEqualTo(2);
+        assertThat(resumen.getSumaValoraciones()).isEqualTo(4);
+        assertThat(resumen.getEstrellas1()).isEqualTo(1);
+        assertThat(resumen.getEstrellas5()).isZero();
+        assertThat(comentarioService.countByIdPublicacion(publicacion.getId())).isEqualTo(2);
+
+        comentarioResumenRepository.deleteAll();
+        comentarioService.rebuildResumenes();
+        assertThat(comentarioService.getResumen(publicacion.getId())).isEqualTo(resumen);
+    }
+
+    @Test
+    void saveLoteSkipsMissingPublicationsAndUpdatesEachResumenOnce() {
+        Publicacion publicacion = publicacion();
+        List<Comentario> lote = List.of(nuevo(publicacion.getId(), 4), nuevo(publicacion.getId(), 4),
+                nuevo(-1L, 5), nuevo(publicacion.getId(), 2));
+
+        List<Comentario> guardados = comentarioService.saveLote(lote);
+
+        assertThat(guardados).hasSize(3).allMatch(comentario -> comentario.getId() != null);
+        assertThat(lote.get(2).getId()).isNull();
+        ComentarioResumen resumen = comentarioService.getResumen(publicacion.getId());
+        assertThat(resumen.getCantidad()).isEqualTo(3);
+        assertThat(resumen.getSumaValoraciones()).isEqualTo(10);
+        assertThat(resumen.getEstrellas4()).isEqualTo(2);
+
+        comentarioService.saveLote(List.of(nuevo(publicacion.getId(), 5)));
+        assertThat(comentarioService.getResumen(publicacion.getId()).getEstrellas5()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentFirstCommentsAllReachTheResumenAndItGoesWithThePublication() throws Exception {
+        Publicacion publicacion = publicacion();
+        int hilos = 8;
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<Comentario>> guardados = new ArrayList<>();
+            for (int i = 0; i < hilos; i++) {
+                guardados.add(executor.submit(() -> {
+                    largada.await();
+                    return comentarioService.save(nuevo(publicacion.getId(), 4));
+                }));
+            }
+            largada.countDown();
+            for (Future<Comentario> guardado : guardados) {
+                guardado.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ComentarioResumen resumen = comentarioService.getResumen(publicacion.getId());
+        assertThat(resumen.getCantidad()).isEqualTo(hilos);
+        assertThat(resumen.getEstrellas4()).isEqualTo(hilos);
+
+        for (Comentario comentario : comentarioService.findByIdPublicacion(publicacion.getId())) {
+            comentarioService.deleteById(comentario.getId());
+        }
+        publicacionService.deleteById(publicacion.getId());
+        assertThat(comentarioResumenRepository.findById(publicacion.getId())).isEmpty();
+    }
+
+    @Test
+    void resumenIsBornWithThePublicationAndAMissingOneIsComputedInTheSameTransaction() {
+        Publicacion publicacion = publicacion();
+        assertThat(comentarioResumenRepository.findById(publicacion.getId()))
+                .hasValueSatisfying(resumen -> assertThat(resumen.getCantidad()).isZero());
+
+        comentario(publicacion, 5);
+        // Como si la fila no existiera (publicación insertada por fuera de la aplicación)
+        comentarioResumenRepository.deleteById(publicacion.getId());
+        comentario(publicacion, 2);
+
+        ComentarioResumen resumen = comentarioService.getResumen(publicacion.getId());
+        assertThat(resumen.getCantidad()).isEqualTo(2);
+        assertThat(resumen.getSumaValoraciones()).isEqualTo(7);
+        assertThat(resumen.getEstrellas2()).isEqualTo(1);
+        assertThat(resumen.getEstrellas5()).isEqualTo(1);
+    }
+
+    private Publicacion publicacion() {
+        Publicacion publicacion = new Publicacion();
+        publicacion.setTitulo("Bicicleta");
+        publicacion.setDescripcion("Aro 26");
+        publicacion.setPrecio(50000);
+        publicacion.setIdAutor(1L);
+        publicacion.setEstado(new Estado(Estado.Tipo.PUBLICADO.getId(), null));
+        return publicacionService.save(publicacion);
+    }
+
+    private Comentario comentario(Publicacion publicacion, int valoracion) {
+        return comentarioService.save(nuevo(publicacion.getId(), valoracion));
+    }
+
+    private static Comentario nuevo(Long idPublicacion, int valoracion) {
+        Comentario comentario = new Comentario();
+        comentario.setTexto("Comentario");
+        comentario.setIdAutor(2L);
+        comentario.setIdPublicacion(idPublicacion);
+        comentario.setValoracion(valoracion);
+        return comentario;
+    }
+}
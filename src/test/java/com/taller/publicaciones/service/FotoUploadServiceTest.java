@@ -0,0 +1,199 @@
+package com.taller.publicaciones.service;
+
+import com.taller.publicaciones.config.VirtualThreads;
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.repository.PublicacionRepository;
+import com.taller.publicaciones.storage.FileSystemObjectStorage;
+import com.taller.publicaciones.storage.KnownObjectIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FotoUploadServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final PublicacionRepository publicacionRepository = mock(PublicacionRepository.class);
+    private FotoUploadService fotoUploadService;
+
+    @AfterEach
+    void shutdown() {
+        fotoUploadService.shutdown();
+    }
+
+    @Test
+    void retriesFailedUploadsAndFillsInUrl() throws IOException {
+        // Falla las dos primeras veces, como un S3 con problemas pasajeros
+        Almacenamiento storage = new Almacenamiento(2);
+        when(publicacionRepository.completeFoto(anyLong(), anyString(), anyString(), any())).thenReturn(1);
+        fotoUploadService = service(storage, 5);
+
+        String spool = fotoUploadService.spool(foto());
+        String key = FotoUploadService.objectKey(spool);
+        assertThat(tempDir.resolve("spool").resolve(spool)).exists();
+        fotoUploadService.enqueue(7L, spool);
+
+        verify(publicacionRepository, timeout(5000)).completeFoto(7L, spool, "http://fotos.local/" + key, null);
+        assertThat(storage.subidas.get()).isEqualTo(3);
+        assertThat(Files.readAllBytes(tempDir.resolve("bucket").resolve(key))).isEqualTo(foto().getBytes());
+        awaitSpoolEmpty();
+    }
+
+    @Test
+    void keepsSpoolAndMarkerWhenRetriesAreExhausted() throws Exception {
+        Almacenamiento caido = new Almacenamiento(Integer.MAX_VALUE);
+        fotoUploadService = service(caido, 3);
+
+        String spool = fotoUploadService.spool(foto());
+        fotoUploadService.enqueue(7L, spool);
+
+        Thread.sleep(500);
+        assertThat(caido.subidas.get()).isEqualTo(3);
+        verify(publicacionRepository, never()).completeFoto(any(), eq(spool), any(), any());
+        assertThat(tempDir.resolve("spool").resolve(spool)).exists();
+    }
+
+    @Test
+    void uploadsRenditionsNextToTheOriginal() throws IOException {
+        when(publicacionRepository.completeFoto(anyLong(), anyString(), anyString(), any())).thenReturn(1);
+        when(publicacionRepository.completeRendiciones(anyLong(), anyString(), anyString())).thenReturn(1);
+        fotoUploadService = service(new Almacenamiento(0), 3);
+
+        String spool = fotoUploadService.spool(new MockMultipartFile("file", "sofa.jpeg", "image/jpeg", jpeg(1200, 800)));
+        String key = FotoUploadService.objectKey(spool);
+        fotoUploadService.enqueue(7L, spool);
+
+        // El original se publica primero y las rendiciones llegan en una segunda actualización
+        verify(publicacionRepository, timeout(5000)).completeFoto(7L, spool, "http://fotos.local/" + key, null);
+        verify(publicacionRepository, timeout(5000)).completeRendiciones(7L, "http://fotos.local/" + key, "1024,480,160");
+        BufferedImage thumb = ImageIO.read(tempDir.resolve("bucket").resolve(Publicacion.nombreRendicion(key, 160)).toFile());
+        assertThat(thumb.getWidth()).isEqualTo(160);
+        assertThat(thumb.getHeight()).isEqualTo(107);
+        awaitSpoolEmpty();
+    }
+
+    @Test
+    void appliesOriginalWhenRenditionsFail() throws IOException {
+        when(publicacionRepository.completeFoto(anyLong(), anyString(), anyString(), any())).thenReturn(1);
+        ImageRenditionService rota = mock(ImageRenditionService.class);
+        when(rota.render(any())).thenReturn(CompletableFuture.failedFuture(new IllegalArgumentException("Bogus Huffman table")));
+        fotoUploadService = service(new Almacenamiento(0), rota, 3);
+
+        String spool = fotoUploadService.spool(new MockMultipartFile("file", "sofa.jpeg", "image/jpeg", jpeg(1200, 800)));
+        String key = FotoUploadService.objectKey(spool);
+        fotoUploadService.enqueue(7L, spool);
+
+        verify(publicacionRepository, timeout(5000)).completeFoto(7L, spool, "http://fotos.local/" + key, null);
+        // Las rendiciones se reintentan por su cuenta y, agotados los intentos, se abandona el spool
+        verify(rota, timeout(5000).times(3)).render(any());
+        awaitSpoolEmpty();
+        verify(publicacionRepository, never()).completeRendiciones(anyLong(), anyString(), anyString());
+        verify(publicacionRepository).completeFoto(anyLong(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void sameContentIsStoredOnce() throws IOException {
+        when(publicacionRepository.completeFoto(anyLong(), anyString(), anyString(), any())).thenReturn(1);
+        when(publicacionRepository.completeRendiciones(anyLong(), anyString(), anyString())).thenReturn(1);
+        Almacenamiento storage = new Almacenamiento(0);
+        fotoUploadService = service(storage, 3);
+        byte[] contenido = jpeg(600, 400);
+
+        String primera = fotoUploadService.spool(new MockMultipartFile("file", "a.jpg", "image/jpeg", contenido));
+        String segunda = fotoUploadService.spool(new MockMultipartFile("file", "b.jpg", "image/jpeg", contenido));
+        assertThat(primera).isNotEqualTo(segunda);
+        assertThat(FotoUploadService.objectKey(primera)).isEqualTo(FotoUploadService.objectKey(segunda));
+
+        String url = "http://fotos.local/" + FotoUploadService.objectKey(primera);
+        fotoUploadService.enqueue(1L, primera);
+        verify(publicacionRepository, timeout(5000)).completeRendiciones(1L, url, "480,160");
+        // La segunda ya encuentra las rendiciones y las publica junto con el original
+        fotoUploadService.enqueue(2L, segunda);
+        verify(publicacionRepository, timeout(5000)).completeFoto(2L, segunda, url, "480,160");
+
+        // Original + 2 rendiciones, una sola vez; la segunda ni siquiera necesitó un HEAD
+        assertThat(storage.subidas.get()).isEqualTo(3);
+        assertThat(storage.consultas.get()).isEqualTo(1);
+    }
+
+    private FotoUploadService service(Almacenamiento storage, int maxIntentos) {
+        return service(storage, new ImageRenditionService(List.of(160, 480, 1024), 0, 2), maxIntentos);
+    }
+
+    private FotoUploadService service(Almacenamiento storage, ImageRenditionService renditionService, int maxIntentos) {
+        return new FotoUploadService(storage, renditionService,
+                new KnownObjectIndex(), publicacionRepository, mock(PublicadosFeed.class), new VirtualThreads(false), true, tempDir.resolve("spool").toString(), 2, maxIntentos, 10);
+    }
+
+    // El spool se borra justo después de actualizar la publicación
+    private void awaitSpoolEmpty() {
+        Path spoolDir = tempDir.resolve("spool");
+        for (int i = 0; i < 100 && spoolDir.toFile().list().length > 0; i++) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        assertThat(spoolDir).isEmptyDirectory();
+    }
+
+    private static MockMultipartFile foto() {
+        return new MockMultipartFile("file", "bicicleta.jpg", "image/jpeg", new byte[]{1, 2, 3, 4});
+    }
+
+    private static byte[] jpeg(int width, int height) throws IOException {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", jpeg);
+        return jpeg.toByteArray();
+    }
+
+    // Almacenamiento en disco que cuenta las subidas y los HEAD, y falla las primeras subidas indicadas
+    private class Almacenamiento extends FileSystemObjectStorage {
+
+        final AtomicInteger subidas = new AtomicInteger();
+        final AtomicInteger consultas = new AtomicInteger();
+        private final int fallos;
+
+        Almacenamiento(int fallos) {
+            super(tempDir.resolve("bucket").toString(), "http://fotos.local");
+            this.fallos = fallos;
+        }
+
+        @Override
+        public CompletableFuture<String> upload(String key, Path file, String contentType) {
+            return subidas.incrementAndGet() <= fallos
+                    ? CompletableFuture.failedFuture(new IOException("503 Slow Down"))
+                    : super.upload(key, file, contentType);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> exists(String key) {
+            consultas.incrementAndGet();
+            return super.exists(key);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.taller.publicaciones.service;
+
+import com.taller.publicaciones.config.ContadorSentencias;
+import com.taller.publicaciones.model.ImportacionErrorDTO;
+import com.taller.publicaciones.model.ImportacionResultadoDTO;
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.repository.ComentarioResumenRepository;
+import com.taller.publicaciones.repository.PublicacionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class ImportacionServiceTest {
+
+    private static final long AUTOR = 8801L;
+
+    @Autowired
+    private ImportacionService importacionService;
+
+    @Autowired
+    private PublicacionRepository publicacionRepository;
+
+    @Autowired
+    private ComentarioResumenRepository comentarioResumenRepository;
+
+    @Test
+    void importsCsvAndReportsEachRejectedRow() throws IOException {
+        String csv = "titulo,descripcion,precio,idAutor,estadoId,urlFoto\r\n"
+                + "\"Bicicleta, rodado 26\",\"Dice \"\"como nueva\"\"\nsegunda línea\",15000," + AUTOR + ",2,\n"
+                + "Sin precio,Algo,," + AUTOR + ",2,\n"
+                + "\n"
+                + "Estado raro,Algo,100," + AUTOR + ",99,\n"
+                + "Corta,Algo,100\n"
+                + "Patines,Usados,9000," + AUTOR + ",1,https://fotos/patines.jpg\n";
+
+        ImportacionResultadoDTO resultado = importar(csv, ImportacionService.Formato.CSV);
+
+        assertThat(resultado.getMetodo()).isEqualTo(ImportacionService.METODO_LOTES);
+        assertThat(resultado.getFilasLeidas()).isEqualTo(5);
+        assertThat(resultado.getImportadas()).isEqualTo(2);
+        assertThat(resultado.getRechazadas()).isEqualTo(3);
+        assertThat(resultado.getErrores()).extracting(ImportacionErrorDTO::getLinea).containsExactly(4L, 6L, 7L);
+        assertThat(resultado.getErrores().get(0).getMensaje()).isEqualTo("El precio es obligatorio");
+        assertThat(resultado.getErrores().get(1).getMensaje()).isEqualTo("Estado no encontrado con id: 99");
+
+        List<Publicacion> importadas = publicacionRepository.findByIdAutor(AUTOR);
+        assertThat(importadas).extracting(Publicacion::getTitulo).containsExactlyInAnyOrder("Bicicleta, rodado 26", "Patines");
+        Publicacion bicicleta = importadas.stream().filter(p -> p.getPrecio() == 15000).findFirst().orElseThrow();
+        assertThat(bicicleta.getDescripcion()).isEqualTo("Dice \"como nueva\"\nsegunda línea");
+        assertThat(bicicleta.getUrlFoto()).isNull();
+        assertThat(comentarioResumenRepository.findAllById(importadas.stream().map(Publicacion::getId).toList()))
+                .hasSize(2).allMatch(resumen -> resumen.getCantidad() == 0);
+    }
+
+    @Test
+    void isolatesRowsTheDatabaseRejects() throws IOException {
+        long autor = AUTOR + 1;
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 120; i++) {
+            // El título de la fila 60 no entra en la columna: falla su lote y sólo esa fila queda afuera
+            ndjson.append(json(i == 59 ? "x".repeat(300) : "Producto " + i, autor));
+        }
+        ndjson.append("{no es json\n");
+
+        ImportacionResultadoDTO resultado = importar(ndjson.toString(), ImportacionService.Formato.NDJSON);
+
+        assertThat(resultado.getFilasLeidas()).isEqualTo(121);
+        assertThat(resultado.getImportadas()).isEqualTo(119);
+        assertThat(resultado.getErrores()).extracting(ImportacionErrorDTO::getLinea).containsExactly(60L, 121L);
+        assertThat(resultado.getErrores().get(1).getMensaje()).startsWith("JSON inválido");
+        assertThat(publicacionRepository.findByIdAutor(autor)).hasSize(119);
+    }
+
+    @Test
+    void preparesOneInsertPerFlushInsteadOfOnePerRow() throws IOException {
+        long autor = AUTOR + 2;
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 250; i++) {
+            ndjson.append(json("Producto " + i, autor));
+        }
+
+        ContadorSentencias.Medicion medicion = ContadorSentencias.iniciar();
+        ImportacionResultadoDTO resultado;
+        try {
+            resultado = importar(ndjson.toString(), ImportacionService.Formato.NDJSON);
+        } finally {
+            ContadorSentencias.terminar();
+        }
+
+        assertThat(resultado.getImportadas()).isEqualTo(250);
+        // Un INSERT preparado por cada flush (publicaciones y sus resúmenes) más los nextval de cada bloque
+        // de ids, en vez de 500 INSERT
+        assertThat(medicion.total()).isLessThan(20);
+    }
+
+    @Test
+    void rejectsCsvWithoutTheRequiredColumns() {
+        assertThatThrownBy(() -> importar("titulo,precio\nRadio,10\n", ImportacionService.Formato.CSV))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("descripcion");
+    }
+
+    private static String json(String titulo, long autor) {
+        return "{\"titulo\":\"" + titulo + "\",\"descripcion\":\"d\",\"precio\":100,\"idAutor\":" + autor
+                + ",\"estado\":{\"id\":2}}\n";
+    }
+
+    private ImportacionResultadoDTO importar(String contenido, ImportacionService.Formato formato) throws IOException {
+        return importacionService.importar(new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8)), formato);
+    }
+}
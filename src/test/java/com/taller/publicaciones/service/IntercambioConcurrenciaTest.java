@@ -0,0 +1,146 @@
+package com.taller.publicaciones.service;
+
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.model.Intercambio;
+import com.taller.publicaciones.model.IntercambioDTO;
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.repository.IntercambioRepository;
+import com.taller.publicaciones.repository.PublicacionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Prueba de carga: varios hilos aceptan, confirman y revierten intercambios sobre los mismos productos
+@SpringBootTest
+@Slf4j
+class IntercambioConcurrenciaTest {
+
+    private static final int PRODUCTOS = 12;
+    private static final int OFERTAS = 60;
+    private static final int HILOS = 8;
+    private static final int OPERACIONES_POR_HILO = 60;
+    private static final long PRIMER_USUARIO = 50_000;
+
+    @Autowired
+    private IntercambioService intercambioService;
+
+    @Autowired
+    private PublicacionService publicacionService;
+
+    @Autowired
+    private IntercambioRepository intercambioRepository;
+
+    @Autowired
+    private PublicacionRepository publicacionRepository;
+
+    @Test
+    void noProductEndsUpInTwoAcceptedExchanges() throws Exception {
+        Random random = new Random(42);
+        List<Publicacion> productos = new ArrayList<>();
+        for (int i = 0; i < PRODUCTOS; i++) {
+            productos.add(publicacion(PRIMER_USUARIO + i));
+        }
+        List<Intercambio> ofertas = new ArrayList<>();
+        while (ofertas.size() < OFERTAS) {
+            Publicacion solicitado = productos.get(random.nextInt(PRODUCTOS));
+            Publicacion ofrecido = productos.get(random.nextInt(PRODUCTOS));
+            if (solicitado == ofrecido
+                    || intercambioRepository.existsOfertaPendiente(solicitado.getId(), ofrecido.getId())) {
+                continue;
+            }
+            ofertas.add(intercambioService.crearOfertaIntercambio(new IntercambioDTO(
+                    solicitado.getId(), ofrecido.getId(), ofrecido.getIdAutor(), solicitado.getIdAutor())));
+        }
+
+        AtomicLong exitosas = new AtomicLong();
+        AtomicLong rechazadasPorRegla = new AtomicLong();
+        AtomicLong conflictosAgotados = new AtomicLong();
+        long conflictosAntes = intercambioService.getConflictosDetectados();
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch inicio = new CountDownLatch(1);
+        long desde = System.nanoTime();
+        for (int h = 0; h < HILOS; h++) {
+            long semilla = h;
+            pool.submit(() -> {
+                Random r = new Random(semilla);
+                inicio.await();
+                for (int i = 0; i < OPERACIONES_POR_HILO; i++) {
+                    Intercambio oferta = ofertas.get(r.nextInt(ofertas.size()));
+                    Long usuario = r.nextBoolean() ? oferta.getIdUsuarioSolicitante() : oferta.getIdUsuarioPropietario();
+                    try {
+                        int operacion = r.nextInt(4);
+                        if (operacion < 2) {
+                            intercambioService.aceptarOferta(oferta.getId());
+                        } else if (operacion == 2) {
+                            intercambioService.confirmarIntercambio(oferta.getId(), usuario);
+                        } else {
+                            intercambioService.revertirIntercambio(oferta.getId(), usuario);
+                        }
+                        exitosas.incrementAndGet();
+                    } catch (ConflictoConcurrenciaException e) {
+                        conflictosAgotados.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        rechazadasPorRegla.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        inicio.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        double segundos = (System.nanoTime() - desde) / 1e9;
+
+        long operaciones = (long) HILOS * OPERACIONES_POR_HILO;
+        long conflictos = intercambioService.getConflictosDetectados() - conflictosAntes;
+        log.info("Intercambios concurrentes: {} operaciones en {} s ({} ops/s), {} exitosas, {} rechazadas por reglas, "
+                        + "{} conflictos reintentados ({}% de las operaciones), {} sin resolver",
+                operaciones, String.format("%.2f", segundos), String.format("%.1f", operaciones / segundos),
+                exitosas.get(), rechazadasPorRegla.get(), conflictos,
+                String.format("%.1f", 100.0 * conflictos / operaciones), conflictosAgotados.get());
+
+        // Ningún producto puede quedar en dos intercambios aceptados a la vez
+        List<Intercambio> aceptados = intercambioRepository.findAllById(ofertas.stream().map(Intercambio::getId).toList())
+                .stream()
+                .filter(i -> i.getEstadoIntercambio() == Intercambio.EstadoIntercambio.ACEPTADO)
+                .toList();
+        Map<Long, Long> aceptadosPorProducto = aceptados.stream()
+                .flatMap(i -> java.util.stream.Stream.of(i.getProductoSolicitado().getId(), i.getProductoOfrecido().getId()))
+                .collect(Collectors.groupingBy(id -> id, Collectors.counting()));
+        assertThat(aceptadosPorProducto.values()).allMatch(cantidad -> cantidad == 1);
+
+        // Y el estado de cada producto es coherente con sus intercambios
+        for (Publicacion producto : productos) {
+            Integer estado = publicacionRepository.findById(producto.getId()).orElseThrow().getEstado().getId();
+            if (aceptadosPorProducto.containsKey(producto.getId())) {
+                assertThat(estado).isIn(Estado.Tipo.PROCESO.getId(), Estado.Tipo.APROBADO.getId());
+            } else {
+                assertThat(estado).isEqualTo(Estado.Tipo.PUBLICADO.getId());
+            }
+        }
+    }
+
+    private Publicacion publicacion(long idAutor) {
+        Publicacion publicacion = new Publicacion();
+        publicacion.setTitulo("Producto de " + idAutor);
+        publicacion.setDescripcion("Para intercambio");
+        publicacion.setPrecio(1000);
+        publicacion.setIdAutor(idAutor);
+        publicacion.setEstado(new Estado(Estado.Tipo.PUBLICADO.getId(), null));
+        return publicacionService.save(publicacion);
+    }
+}
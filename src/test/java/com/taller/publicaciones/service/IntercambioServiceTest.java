@@ -0,0 +1,231 @@
+package com.taller.publicaciones.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taller.publicaciones.grafo.GrafoIntercambios;
+import com.taller.publicaciones.model.CicloIntercambioDTO;
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.model.Intercambio;
+import com.taller.publicaciones.model.IntercambioDTO;
+import com.taller.publicaciones.model.IntercambioResumenDTO;
+import com.taller.publicaciones.model.KeysetCursor;
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.repository.IntercambioRepository;
+import com.taller.publicaciones.repository.PublicacionRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class IntercambioServiceTest {
+
+    private static final AtomicLong USUARIOS = new AtomicLong(1000);
+
+    @Autowired
+    private IntercambioService intercambioService;
+
+    @Autowired
+    private PublicacionService publicacionService;
+
+    @Autowired
+    private IntercambioRepository intercambioRepository;
+
+    @Autowired
+    private PublicacionRepository publicacionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PublicadosFeed publicadosFeed;
+
+    @Autowired
+    private GrafoIntercambios grafoIntercambios;
+
+    @Test
+    void inboxQueryCountDoesNotGrowWithOffers() throws Exception {
+        long pocas = USUARIOS.incrementAndGet();
+        long muchas = USUARIOS.incrementAndGet();
+        crearOfertasPara(pocas, 2);
+        crearOfertasPara(muchas, 20);
+
+        long consultasPocas = statementsFor(() -> objectMapper.writeValueAsString(intercambioService.getOfertasRecibidas(pocas)));
+        long consultasMuchas = statementsFor(() -> objectMapper.writeValueAsString(intercambioService.getOfertasRecibidas(muchas)));
+
+        assertThat(consultasPocas).isEqualTo(1);
+        assertThat(consultasMuchas).isEqualTo(consultasPocas);
+    }
+
+    @Test
+    void cursorInboxWalksAllOffersWithOneQueryPerPage() throws Exception {
+        long propietario = USUARIOS.incrementAndGet();
+        crearOfertasPara(propietario, 7);
+
+        Set<Long> vistos = new HashSet<>();
+        KeysetCursor cursor = null;
+        int paginas = 0;
+        do {
+            KeysetCursor desde = cursor;
+            AtomicReference<Slice<IntercambioResumenDTO>> pagina = new AtomicReference<>();
+            long consultas = statementsFor(() -> {
+                pagina.set(intercambioService.getOfertasRecibidas(propietario, desde, 3));
+                return objectMapper.writeValueAsString(pagina.get().getContent());
+            });
+            assertThat(consultas).isEqualTo(1);
+            List<IntercambioResumenDTO> ofertas = pagina.get().getContent();
+            ofertas.forEach(oferta -> assertThat(vistos.add(oferta.getId())).isTrue());
+            IntercambioResumenDTO ultima = ofertas.get(ofertas.size() - 1);
+            cursor = pagina.get().hasNext() ? new KeysetCursor(ultima.getFechaCreacion(), ultima.getId()) : null;
+            paginas++;
+        } while (cursor != null);
+
+        assertThat(vistos).hasSize(7);
+        assertThat(paginas).isEqualTo(3);
+    }
+
+    @Test
+    void aceptarOfertaRunsFixedStatementsAndRejectsTheRest() throws Exception {
+        List<Intercambio> pocas = crearOfertasPara(USUARIOS.incrementAndGet(), 3);
+        List<Intercambio> muchas = crearOfertasPara(USUARIOS.incrementAndGet(), 30);
+
+        long sentenciasPocas = statementsFor(() -> intercambioService.aceptarOferta(pocas.get(0).getId()));
+        long sentenciasMuchas = statementsFor(() -> intercambioService.aceptarOferta(muchas.get(0).getId()));
+
+        assertThat(sentenciasMuchas).isEqualTo(sentenciasPocas);
+        Intercambio aceptada = intercambioRepository.findById(muchas.get(0).getId()).orElseThrow();
+        assertThat(aceptada.getEstadoIntercambio()).isEqualTo(Intercambio.EstadoIntercambio.ACEPTADO);
+        assertThat(muchas.subList(1, muchas.size()))
+                .allSatisfy(otra -> assertThat(intercambioRepository.findById(otra.getId()).orElseThrow().getEstadoIntercambio())
+                        .isEqualTo(Intercambio.EstadoIntercambio.RECHAZADO));
+        assertThat(estadoDe(muchas.get(0).getProductoSolicitado())).isEqualTo(Estado.Tipo.PROCESO.getId());
+        assertThat(estadoDe(muchas.get(0).getProductoOfrecido())).isEqualTo(Estado.Tipo.PROCESO.getId());
+
+        Intercambio oferta = muchas.get(0);
+        intercambioService.confirmarIntercambio(oferta.getId(), oferta.getIdUsuarioSolicitante());
+        intercambioService.confirmarIntercambio(oferta.getId(), oferta.getIdUsuarioPropietario());
+        assertThat(estadoDe(oferta.getProductoSolicitado())).isEqualTo(Estado.Tipo.APROBADO.getId());
+
+        Intercambio revertida = pocas.get(0);
+        intercambioService.revertirIntercambio(revertida.getId(), revertida.getIdUsuarioPropietario());
+        assertThat(estadoDe(revertida.getProductoOfrecido())).isEqualTo(Estado.Tipo.PUBLICADO.getId());
+        assertThat(intercambioRepository.findById(revertida.getId()).orElseThrow().getEstadoIntercambio())
+                .isEqualTo(Intercambio.EstadoIntercambio.CANCELADO);
+    }
+
+    @Test
+    void offersFeedTheTradeGraphAndAcceptingOneBreaksTheCycle() {
+        long ana = USUARIOS.incrementAndGet();
+        long beto = USUARIOS.incrementAndGet();
+        long carla = USUARIOS.incrementAndGet();
+        Publicacion deAna = publicacion(ana);
+        Publicacion deBeto = publicacion(beto);
+        Publicacion deCarla = publicacion(carla);
+        Intercambio anaPorBeto = ofrecer(deAna, deBeto);
+        Intercambio betoPorCarla = ofrecer(deBeto, deCarla);
+        Intercambio carlaPorAna = ofrecer(deCarla, deAna);
+
+        List<CicloIntercambioDTO> ciclos = grafoIntercambios.ciclosDeUsuario(ana, 10);
+        assertThat(ciclos).singleElement().satisfies(ciclo -> {
+            assertThat(ciclo.getUsuarios()).containsExactly(ana, beto, carla);
+            assertThat(ciclo.getIntercambios()).containsExactly(anaPorBeto.getId(), betoPorCarla.getId(), carlaPorAna.getId());
+        });
+
+        // El reconstruido desde la base ve lo mismo que las actualizaciones incrementales
+        grafoIntercambios.reconstruir();
+        assertThat(grafoIntercambios.ciclosDeUsuario(beto, 10)).hasSize(1);
+
+        intercambioService.aceptarOferta(carlaPorAna.getId());
+        assertThat(grafoIntercambios.ciclosDeUsuario(ana, 10)).isEmpty();
+    }
+
+    @Test
+    void revertingAnExchangeBringsBackTheCyclesOfItsProducts() throws InterruptedException {
+        long ana = USUARIOS.incrementAndGet();
+        long beto = USUARIOS.incrementAndGet();
+        long carla = USUARIOS.incrementAndGet();
+        long dario = USUARIOS.incrementAndGet();
+        Publicacion deAna = publicacion(ana);
+        Publicacion deBeto = publicacion(beto);
+        Publicacion deCarla = publicacion(carla);
+        Publicacion deDario = publicacion(dario);
+        ofrecer(deBeto, deCarla);
+        ofrecer(deCarla, deDario);
+        ofrecer(deDario, deBeto);
+        Intercambio carlaPorAna = ofrecer(deCarla, deAna);
+        assertThat(grafoIntercambios.ciclosDeUsuario(beto, 10)).hasSize(1);
+
+        // Aceptar toma el producto de Carla y el ciclo de Beto se corta, aunque sus ofertas siguen pendientes
+        intercambioService.aceptarOferta(carlaPorAna.getId());
+        assertThat(grafoIntercambios.ciclosDeUsuario(beto, 10)).isEmpty();
+
+        intercambioService.revertirIntercambio(carlaPorAna.getId(), carla);
+        // La recarga desde la base corre en el hilo del grafo
+        for (int i = 0; i < 250 && grafoIntercambios.ciclosDeUsuario(beto, 10).isEmpty(); i++) {
+            Thread.sleep(20);
+        }
+        assertThat(grafoIntercambios.ciclosDeUsuario(beto, 10)).singleElement()
+                .satisfies(ciclo -> assertThat(ciclo.getUsuarios()).containsExactly(beto, carla, dario));
+        assertThat(grafoIntercambios.ciclosDeUsuario(ana, 10)).isEmpty();
+    }
+
+    private Intercambio ofrecer(Publicacion ofrecido, Publicacion solicitado) {
+        return intercambioService.crearOfertaIntercambio(new IntercambioDTO(
+                solicitado.getId(), ofrecido.getId(), ofrecido.getIdAutor(), solicitado.getIdAutor()));
+    }
+
+    private Integer estadoDe(Publicacion publicacion) {
+        return publicacionRepository.findById(publicacion.getId()).orElseThrow().getEstado().getId();
+    }
+
+    private List<Intercambio> crearOfertasPara(long propietario, int cantidad) {
+        Publicacion solicitado = publicacion(propietario);
+        List<Intercambio> ofertas = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            long solicitante = USUARIOS.incrementAndGet();
+            Publicacion ofrecido = publicacion(solicitante);
+            ofertas.add(intercambioService.crearOfertaIntercambio(
+                    new IntercambioDTO(solicitado.getId(), ofrecido.getId(), solicitante, propietario)));
+        }
+        return ofertas;
+    }
+
+    private Publicacion publicacion(long idAutor) {
+        Publicacion publicacion = new Publicacion();
+        publicacion.setTitulo("Producto de " + idAutor);
+        publicacion.setDescripcion("Para intercambio");
+        publicacion.setPrecio(1000);
+        publicacion.setIdAutor(idAutor);
+        publicacion.setEstado(new Estado(Estado.Tipo.PUBLICADO.getId(), null));
+        return publicacionService.save(publicacion);
+    }
+
+    private long statementsFor(ThrowingSupplier action) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Las estadísticas son globales: el refresco del feed (otro hilo) se deja afuera o adentro, nunca a medias
+        publicadosFeed.awaitPending();
+        statistics.clear();
+        action.get();
+        publicadosFeed.awaitPending();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @FunctionalInterface
+    private interface ThrowingSupplier {
+        Object get() throws Exception;
+    }
+}
@@ -0,0 +1,122 @@
+package com.taller.publicaciones.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taller.publicaciones.model.Comentario;
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.model.Publicacion;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class NdjsonExportTest {
+
+    private static final long AUTOR = 7501L;
+
+    @Autowired
+    private PublicacionService publicacionService;
+
+    @Autowired
+    private ComentarioService comentarioService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void writesOnePublicationPerLineAndLeavesNoneManaged() throws IOException {
+        Publicacion publicacion = publicacionService.save(publicacion("Lámpara \"vintage\"\ncon pantalla"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long exportadas = transactionTemplate.execute(status -> {
+            long total = export(() -> publicacionService.exportNdjson(out));
+            // Cada fila se desacopla al escribirla: sólo pueden quedar los estados
+            assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityKeys())
+                    .noneMatch(key -> key.getEntityName().equals(Publicacion.class.getName()));
+            return total;
+        });
+
+        List<JsonNode> lineas = lineas(out);
+        assertThat(lineas).hasSize((int) exportadas);
+        JsonNode exportada = lineas.stream()
+                .filter(linea -> linea.get("id").asLong() == publicacion.getId())
+                .findFirst().orElseThrow();
+        // Los saltos de línea del texto quedan escapados dentro de su propia línea
+        assertThat(exportada.get("titulo").asText()).isEqualTo("Lámpara \"vintage\"\ncon pantalla");
+        assertThat(exportada.get("estado").get("nombre").asText()).isEqualTo(Estado.Tipo.PUBLICADO.getNombre());
+    }
+
+    @Test
+    void exportsCommentsWithoutTheNestedPublication() throws IOException {
+        Publicacion publicacion = publicacionService.save(publicacion("Mesa"));
+        Comentario comentario = new Comentario();
+        comentario.setTexto("Muy firme");
+        comentario.setIdAutor(2L);
+        comentario.setIdPublicacion(publicacion.getId());
+        comentario.setValoracion(5);
+        Long id = comentarioService.save(comentario).getId();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long exportados = comentarioService.exportNdjson(out);
+
+        List<JsonNode> lineas = lineas(out);
+        assertThat(lineas).hasSize((int) exportados);
+        JsonNode exportado = lineas.stream()
+                .filter(linea -> linea.get("id").asLong() == id)
+                .findFirst().orElseThrow();
+        assertThat(exportado.get("idPublicacion").asLong()).isEqualTo(publicacion.getId());
+        assertThat(exportado.get("valoracion").asInt()).isEqualTo(5);
+        assertThat(exportado.has("publicacion")).isFalse();
+    }
+
+    private List<JsonNode> lineas(ByteArrayOutputStream out) throws IOException {
+        String ndjson = out.toString(StandardCharsets.UTF_8);
+        assertThat(ndjson).endsWith("\n");
+        List<JsonNode> lineas = new ArrayList<>();
+        for (String linea : ndjson.split("\n")) {
+            lineas.add(objectMapper.readTree(linea));
+        }
+        return lineas;
+    }
+
+    private static long export(Exportacion exportacion) {
+        try {
+            return exportacion.escribir();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface Exportacion {
+        long escribir() throws IOException;
+    }
+
+    private static Publicacion publicacion(String titulo) {
+        Publicacion publicacion = new Publicacion();
+        publicacion.setTitulo(titulo);
+        publicacion.setDescripcion("Para exportar");
+        publicacion.setPrecio(2000);
+        publicacion.setIdAutor(AUTOR);
+        publicacion.setEstado(new Estado(Estado.Tipo.PUBLICADO.getId(), null));
+        return publicacion;
+    }
+}
@@ -0,0 +1,88 @@
+package com.taller.publicaciones.service;
+
+import com.taller.publicaciones.config.ContadorSentencias;
+import com.taller.publicaciones.model.Comentario;
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.model.PublicacionBatchDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class PublicacionBatchTest {
+
+    private static final long AUTOR = 7601L;
+
+    @Autowired
+    private PublicacionService publicacionService;
+
+    @Autowired
+    private ComentarioService comentarioService;
+
+    @Test
+    void returnsRequestedPublicationsWithCommentStatsInTwoQueries() {
+        Publicacion comentada = publicacionService.save(publicacion("Guitarra"));
+        Publicacion sinComentarios = publicacionService.save(publicacion("Atril"));
+        comentario(comentada, 5);
+        comentario(comentada, 2);
+
+        ContadorSentencias.Medicion medicion = ContadorSentencias.iniciar();
+        Map<Long, PublicacionBatchDTO> batch;
+        try {
+            batch = publicacionService.findBatch(List.of(sinComentarios.getId(), -1L, comentada.getId(), sinComentarios.getId()));
+        } finally {
+            ContadorSentencias.terminar();
+        }
+
+        // Las publicaciones con su estado y los resúmenes, sin una consulta por id
+        assertThat(medicion.total()).isEqualTo(2);
+        // En el orden pedido, sin repetidos y sin los que no existen
+        assertThat(batch.keySet()).containsExactly(sinComentarios.getId(), comentada.getId());
+
+        PublicacionBatchDTO conStats = batch.get(comentada.getId());
+        assertThat(conStats.getPublicacion().getTitulo()).isEqualTo("Guitarra");
+        assertThat(conStats.getPublicacion().getEstado().getNombre()).isEqualTo(Estado.Tipo.PUBLICADO.getNombre());
+        assertThat(conStats.getCantidadComentarios()).isEqualTo(2);
+        assertThat(conStats.getPromedioValoracion()).isEqualTo(3.5);
+
+        PublicacionBatchDTO sinStats = batch.get(sinComentarios.getId());
+        assertThat(sinStats.getCantidadComentarios()).isZero();
+        assertThat(sinStats.getPromedioValoracion()).isNull();
+    }
+
+    @Test
+    void rejectsMoreIdsThanTheLimit() {
+        List<Long> ids = Collections.nCopies(PublicacionService.MAX_BATCH_IDS + 1, 1L);
+
+        assertThatThrownBy(() -> publicacionService.findBatch(ids))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(String.valueOf(PublicacionService.MAX_BATCH_IDS));
+    }
+
+    private void comentario(Publicacion publicacion, int valoracion) {
+        Comentario comentario = new Comentario();
+        comentario.setTexto("Comentario");
+        comentario.setIdAutor(2L);
+        comentario.setIdPublicacion(publicacion.getId());
+        comentario.setValoracion(valoracion);
+        comentarioService.save(comentario);
+    }
+
+    private static Publicacion publicacion(String titulo) {
+        Publicacion publicacion = new Publicacion();
+        publicacion.setTitulo(titulo);
+        publicacion.setDescripcion("Para el batch");
+        publicacion.setPrecio(3000);
+        publicacion.setIdAutor(AUTOR);
+        publicacion.setEstado(new Estado(Estado.Tipo.PUBLICADO.getId(), null));
+        return publicacion;
+    }
+}
@@ -0,0 +1,104 @@
+package com.taller.publicaciones.service;
+
+import com.taller.publicaciones.model.CacheRegionDTO;
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.model.PublicacionUpdateDTO;
+import com.taller.publicaciones.repository.PublicacionRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// La caché de consultas es opt-in; acá se activa para cubrir también su invalidación
+@SpringBootTest(properties = "cache.l2.consultas=true")
+class PublicacionCacheTest {
+
+    @Autowired
+    private PublicacionService publicacionService;
+
+    @Autowired
+    private CacheEstadisticasService cacheEstadisticasService;
+
+    @Autowired
+    private PublicacionRepository publicacionRepository;
+
+    @Autowired
+    private PublicadosFeed publicadosFeed;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void servesRepeatedReadsFromCacheAndEvictsOnWrites() {
+        Publicacion publicacion = publicacionService.save(publicacion("Teclado"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // La primera lectura puede fallar si cae en el mismo tick del timestamp del insert (READ_WRITE)
+        for (int i = 0; i < 3; i++) {
+            publicacionService.findById(publicacion.getId());
+        }
+        assertThat(statistics.getDomainDataRegionStatistics(Publicacion.class.getName()).getHitCount()).isGreaterThanOrEqualTo(2);
+
+        int publicados = publicacionService.findByEstadoPublicado().size();
+        publicacionService.findByEstadoPublicado();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        // Una escritura invalida la consulta cacheada y la entidad vuelve actualizada
+        publicacionService.save(publicacion("Mouse"));
+        assertThat(publicacionService.findByEstadoPublicado()).hasSize(publicados + 1);
+        PublicacionUpdateDTO cambios = new PublicacionUpdateDTO();
+        cambios.setPrecio(12345);
+        publicacionService.update(publicacion.getId(), cambios);
+        assertThat(publicacionService.findById(publicacion.getId()).orElseThrow().getPrecio()).isEqualTo(12345);
+
+        assertThat(cacheEstadisticasService.getEstadisticas())
+                .extracting(CacheRegionDTO::getRegion)
+                .contains(Publicacion.class.getName(), "consultas", "total");
+    }
+
+    @Test
+    void photoCompletionKeepsOtherPublicationsCached() throws Exception {
+        Publicacion otra = publicacionService.save(publicacion("Monitor"));
+        Publicacion conFoto = publicacion("Parlante");
+        conFoto.setFotoPendiente("spool_parlante.jpg");
+        conFoto = publicacionService.save(conFoto);
+        for (int i = 0; i < 3; i++) {
+            publicacionService.findById(otra.getId());
+            publicacionService.findById(conFoto.getId());
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Las estadísticas son globales: el refresco del feed (otro hilo) queda afuera
+        publicadosFeed.awaitPending();
+        statistics.clear();
+
+        // Un UPDATE masivo vaciaba la región entera; como actualización de entidad sólo cambia su entrada
+        assertThat(publicacionRepository.completeFoto(conFoto.getId(), "spool_parlante.jpg", "http://fotos/parlante.jpg", null))
+                .isEqualTo(1);
+        publicacionService.findById(otra.getId());
+
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(Publicacion.class.getName());
+        assertThat(region.getMissCount()).isZero();
+        assertThat(region.getHitCount()).isGreaterThanOrEqualTo(2);
+        Publicacion actualizada = publicacionService.findById(conFoto.getId()).orElseThrow();
+        assertThat(actualizada.getUrlFoto()).isEqualTo("http://fotos/parlante.jpg");
+        assertThat(actualizada.getFotoPendiente()).isNull();
+        assertThat(actualizada.getVersion()).isEqualTo(conFoto.getVersion() + 1);
+    }
+
+    private static Publicacion publicacion(String titulo) {
+        Publicacion publicacion = new Publicacion();
+        publicacion.setTitulo(titulo);
+        publicacion.setDescripcion("Usado");
+        publicacion.setPrecio(10000);
+        publicacion.setIdAutor(3L);
+        publicacion.setEstado(new Estado(Estado.Tipo.PUBLICADO.getId(), null));
+        return publicacion;
+    }
+}
@@ -0,0 +1,103 @@
+package com.taller.publicaciones.service;
+
+import com.taller.publicaciones.config.ContadorSentencias;
+import com.taller.publicaciones.model.CampoPublicacion;
+import com.taller.publicaciones.model.CursorPageDTO;
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.model.KeysetCursor;
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.repository.PublicacionColumnasRepository;
+import com.taller.publicaciones.repository.PublicacionColumnasRepository.Filtro;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class PublicacionCamposServiceTest {
+
+    private static final long AUTOR = 7301L;
+
+    @Autowired
+    private PublicacionService publicacionService;
+
+    @Autowired
+    private PublicacionCamposService publicacionCamposService;
+
+    @Test
+    void readsOnlyTheRequestedColumnsAndPagesByCursor() {
+        for (String titulo : new String[]{"Radio", "Parlante", "Tocadiscos"}) {
+            publicacionService.save(publicacion(titulo));
+        }
+
+        ContadorSentencias.Medicion medicion = ContadorSentencias.iniciar();
+        CursorPageDTO<Map<String, Object>> pagina;
+        try {
+            pagina = publicacionCamposService.despuesDe(CampoPublicacion.TARJETA, Filtro.porAutor(AUTOR), null, 2);
+        } finally {
+            ContadorSentencias.terminar();
+        }
+
+        assertThat(medicion.total()).isEqualTo(1);
+        String sql = medicion.masRepetida().orElseThrow().getKey().toLowerCase();
+        assertThat(sql).doesNotContain("descripcion").doesNotContain("join");
+        assertThat(pagina.getContent()).hasSize(2);
+        Map<String, Object> primera = pagina.getContent().get(0);
+        assertThat(primera.keySet()).containsExactly("id", "titulo", "precio", "urlFoto", "estado");
+        assertThat(primera.get("titulo")).isEqualTo("Tocadiscos");
+        assertThat(((Estado) primera.get("estado")).getNombre()).isEqualTo(Estado.Tipo.PUBLICADO.getNombre());
+
+        assertThat(pagina.isHasNext()).isTrue();
+        CursorPageDTO<Map<String, Object>> siguiente = publicacionCamposService.despuesDe(
+                CampoPublicacion.parse("titulo"), Filtro.porAutor(AUTOR), KeysetCursor.decode(pagina.getNextCursor()), 2);
+        assertThat(siguiente.getContent()).containsExactly(Map.of("titulo", "Radio"));
+        assertThat(siguiente.isHasNext()).isFalse();
+    }
+
+    @Test
+    void listsInTheSameOrderAsTheEntityQueries() {
+        long autor = AUTOR + 1;
+        for (String titulo : new String[]{"Radio", "Parlante", "Tocadiscos"}) {
+            Publicacion publicacion = publicacion(titulo);
+            publicacion.setIdAutor(autor);
+            publicacionService.save(publicacion);
+        }
+        Set<CampoPublicacion> campos = CampoPublicacion.parse("id");
+
+        assertThat(publicacionCamposService.listar(campos, Filtro.porAutor(autor)))
+                .extracting(fila -> fila.get("id"))
+                .containsExactlyElementsOf(publicacionService.findByIdAutor(autor).stream().map(Publicacion::getId).toList());
+        Pageable pageable = PageRequest.of(0, 10);
+        assertThat(publicacionCamposService.pagina(campos, Filtro.porAutor(autor), pageable).getContent())
+                .extracting(fila -> fila.get("id"))
+                .containsExactlyElementsOf(publicacionService.findByIdAutor(autor, pageable).map(Publicacion::getId).getContent());
+        Pageable recientes = PageRequest.of(0, 10, PublicacionColumnasRepository.ORDEN_RECIENTES);
+        assertThat(publicacionCamposService.pagina(campos, Filtro.todas(), recientes).getContent())
+                .extracting(fila -> fila.get("id"))
+                .containsExactlyElementsOf(publicacionService.findAll(pageable).map(Publicacion::getId).getContent());
+    }
+
+    @Test
+    void rejectsUnknownFields() {
+        assertThatThrownBy(() -> CampoPublicacion.parse("id,clave"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("clave");
+    }
+
+    private static Publicacion publicacion(String titulo) {
+        Publicacion publicacion = new Publicacion();
+        publicacion.setTitulo(titulo);
+        publicacion.setDescripcion("Una descripción larga que los listados no necesitan");
+        publicacion.setPrecio(15000);
+        publicacion.setIdAutor(AUTOR);
+        publicacion.setEstado(new Estado(Estado.Tipo.PUBLICADO.getId(), null));
+        return publicacion;
+    }
+}
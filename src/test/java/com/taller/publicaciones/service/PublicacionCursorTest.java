@@ -0,0 +1,85 @@
+package com.taller.publicaciones.service;
+
+import com.taller.publicaciones.model.CursorPageDTO;
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.model.KeysetCursor;
+import com.taller.publicaciones.model.Publicacion;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PublicacionCursorTest {
+
+    private static final long AUTOR = 7401L;
+
+    @Autowired
+    private PublicacionService publicacionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void breaksCreationTiesByIdWithoutRepeatingOrSkippingRows() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ids.add(publicacionService.save(publicacion("Producto " + i)).getId());
+        }
+        // Cinco con la misma fechaCreacion y dos anteriores, también empatadas entre sí
+        LocalDateTime empate = LocalDateTime.of(2024, 5, 1, 12, 0);
+        jdbcTemplate.update("UPDATE publicaciones SET fecha_creacion = ? WHERE id_autor = ?", empate, AUTOR);
+        jdbcTemplate.update("UPDATE publicaciones SET fecha_creacion = ? WHERE id IN (?, ?)",
+                empate.minusDays(1), ids.get(5), ids.get(6));
+        entityManagerFactory.getCache().evictAll();
+
+        List<Long> esperados = new ArrayList<>(ids.subList(0, 5));
+        esperados.sort(Comparator.reverseOrder());
+        esperados.add(Math.max(ids.get(5), ids.get(6)));
+        esperados.add(Math.min(ids.get(5), ids.get(6)));
+
+        List<Long> recorridos = new ArrayList<>();
+        KeysetCursor cursor = null;
+        int paginas = 0;
+        do {
+            CursorPageDTO<Publicacion> pagina = CursorPageDTO.of(publicacionService.findByIdAutorAfter(AUTOR, cursor, 2),
+                    p -> new KeysetCursor(p.getFechaCreacion(), p.getId()));
+            pagina.getContent().forEach(p -> recorridos.add(p.getId()));
+            cursor = pagina.isHasNext() ? KeysetCursor.decode(pagina.getNextCursor()) : null;
+            paginas++;
+        } while (cursor != null);
+
+        assertThat(recorridos).containsExactlyElementsOf(esperados);
+        assertThat(paginas).isEqualTo(4);
+    }
+
+    @Test
+    void clampsThePageSize() {
+        assertThat(PublicacionService.cursorLimit(0).getPageSize()).isEqualTo(1);
+        assertThat(PublicacionService.cursorLimit(-5).getPageSize()).isEqualTo(1);
+        assertThat(PublicacionService.cursorLimit(25).getPageSize()).isEqualTo(25);
+        assertThat(PublicacionService.cursorLimit(10_000).getPageSize()).isEqualTo(PublicacionService.MAX_CURSOR_PAGE_SIZE);
+        assertThat(PublicacionService.cursorLimit(10_000).getPageNumber()).isZero();
+    }
+
+    private static Publicacion publicacion(String titulo) {
+        Publicacion publicacion = new Publicacion();
+        publicacion.setTitulo(titulo);
+        publicacion.setDescripcion("Para paginar");
+        publicacion.setPrecio(1000);
+        publicacion.setIdAutor(AUTOR);
+        publicacion.setEstado(new Estado(Estado.Tipo.PUBLICADO.getId(), null));
+        return publicacion;
+    }
+}
@@ -0,0 +1,48 @@
+package com.taller.publicaciones.service;
+
+import com.taller.publicaciones.model.Publicacion;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.jdbc.spi.JdbcServices;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PublicacionSecuenciaTest {
+
+    @Test
+    void createsTheMissingSequencePastTheRowsInsertedWithIdentity() {
+        // Una base como las de antes: id IDENTITY, filas y ninguna secuencia
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:secuencia-migracion;DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("CREATE TABLE publicaciones (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, titulo VARCHAR(50))");
+        for (int i = 0; i < 120; i++) {
+            jdbcTemplate.update("INSERT INTO publicaciones (titulo) VALUES (?)", "Publicación " + i);
+        }
+        PublicacionSecuencia secuencia = new PublicacionSecuencia(jdbcTemplate, entityManagerFactory());
+
+        secuencia.migrar();
+        secuencia.migrar();
+        secuencia.alinear();
+
+        long[] ids = secuencia.reservar(Publicacion.BLOQUE_IDS + 1);
+        assertThat(ids[0]).isGreaterThan(120);
+        assertThat(ids).doesNotHaveDuplicates();
+        // Hibernate sigue pudiendo insertar con el id que toma de la secuencia
+        jdbcTemplate.update("INSERT INTO publicaciones (id, titulo) VALUES (?, ?)", ids[ids.length - 1], "Nueva");
+    }
+
+    private static EntityManagerFactory entityManagerFactory() {
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class);
+        JdbcServices jdbcServices = mock(JdbcServices.class);
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getJdbcServices()).thenReturn(jdbcServices);
+        when(jdbcServices.getDialect()).thenReturn(new H2Dialect());
+        return entityManagerFactory;
+    }
+}
@@ -0,0 +1,124 @@
+package com.taller.publicaciones.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taller.publicaciones.model.Estado;
+import com.taller.publicaciones.model.Publicacion;
+import com.taller.publicaciones.model.PublicacionUpdateDTO;
+import com.taller.publicaciones.repository.PublicacionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class PublicadosFeedTest {
+
+    @Autowired
+    private PublicacionService publicacionService;
+
+    @Autowired
+    private PublicadosFeed publicadosFeed;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void followsSaveUpdateAndDelete() throws Exception {
+        Publicacion publicacion = publicacionService.save(publicacion());
+        Long id = publicacion.getId();
+        PublicadosFeed.Snapshot conPublicacion = awaitSnapshot(ids -> ids.contains(id));
+
+        // Mismo JSON que la entidad leída desde la base
+        JsonNode enFeed = null;
+        for (JsonNode node : objectMapper.readTree(conPublicacion.json())) {
+            if (node.get("id").asLong() == id) {
+                enFeed = node;
+            }
+        }
+        JsonNode desdeBase = transactionTemplate.execute(status ->
+                objectMapper.valueToTree(publicacionService.findById(id).orElseThrow()));
+        assertThat(enFeed.toString()).isEqualTo(desdeBase.toString());
+
+        PublicacionUpdateDTO cambios = new PublicacionUpdateDTO();
+        cambios.setEstado(new Estado(Estado.Tipo.BORRADOR.getId(), null));
+        publicacionService.update(id, cambios);
+        PublicadosFeed.Snapshot sinPublicacion = awaitSnapshot(ids -> !ids.contains(id));
+        assertThat(sinPublicacion.etag()).isNotEqualTo(conPublicacion.etag());
+
+        cambios.setEstado(new Estado(Estado.Tipo.PUBLICADO.getId(), null));
+        cambios.setTitulo("Bicicleta plegable");
+        publicacionService.update(id, cambios);
+        awaitSnapshot(ids -> ids.contains(id));
+        assertThat(new String(publicadosFeed.snapshot().json())).contains("Bicicleta plegable");
+
+        publicacionService.deleteById(id);
+        awaitSnapshot(ids -> !ids.contains(id));
+    }
+
+    @Test
+    void retriesARefreshThatFailedInsteadOfDroppingIt() throws Exception {
+        PublicacionRepository repository = mock(PublicacionRepository.class);
+        PublicadosFeed feed = new PublicadosFeed(repository, objectMapper, mock(PlatformTransactionManager.class), 10);
+        try {
+            when(repository.streamByEstado(anyInt())).thenReturn(Stream.empty());
+            feed.load();
+            feed.awaitPending();
+
+            Publicacion publicacion = publicacion();
+            publicacion.setId(5L);
+            // Una caída pasajera de la base: el primer intento falla
+            when(repository.findAllWithEstadoByIdIn(anyCollection()))
+                    .thenThrow(new DataAccessResourceFailureException("Connection reset"))
+                    .thenReturn(List.of(publicacion));
+            feed.refresh(List.of(5L));
+
+            for (int i = 0; i < 100 && feed.snapshot().size() == 0; i++) {
+                Thread.sleep(20);
+            }
+            assertThat(ids(feed.snapshot())).containsExactly(5L);
+        } finally {
+            feed.shutdown();
+        }
+    }
+
+    private PublicadosFeed.Snapshot awaitSnapshot(Predicate<List<Long>> condition) throws Exception {
+        publicadosFeed.awaitPending();
+        PublicadosFeed.Snapshot snapshot = publicadosFeed.snapshot();
+        assertThat(snapshot).isNotNull();
+        assertThat(condition.test(ids(snapshot))).isTrue();
+        return snapshot;
+    }
+
+    private List<Long> ids(PublicadosFeed.Snapshot snapshot) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        objectMapper.readTree(snapshot.json()).forEach(node -> ids.add(node.get("id").asLong()));
+        return ids;
+    }
+
+    private static Publicacion publicacion() {
+        Publicacion publicacion = new Publicacion();
+        publicacion.setTitulo("Bicicleta");
+        publicacion.setDescripcion("Aro 20");
+        publicacion.setPrecio(60000);
+        publicacion.setIdAutor(4L);
+        publicacion.setEstado(new Estado(Estado.Tipo.PUBLICADO.getId(), null));
+        return publicacion;
+    }
+}
@@ -0,0 +1,79 @@
+package com.taller.publicaciones.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParteDeArchivoTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void streamsOnlyItsSliceInSmallChunksAndCanBeReadAgain() throws Exception {
+        byte[] contenido = new byte[1_000_000];
+        new Random(7).nextBytes(contenido);
+        Path archivo = Files.write(tempDir.resolve("foto.jpg"), contenido);
+        ParteDeArchivo parte = new ParteDeArchivo(archivo, 300_000, 500_000);
+
+        assertThat(parte.contentLength()).contains(500_000L);
+        Lector primera = new Lector();
+        parte.subscribe(primera);
+        byte[] esperado = Arrays.copyOfRange(contenido, 300_000, 800_000);
+        assertThat(primera.fin.get(5, TimeUnit.SECONDS)).isEqualTo(esperado);
+        // Nunca más de un trozo en memoria por vez
+        assertThat(primera.mayorTrozo.get()).isLessThanOrEqualTo(64 * 1024);
+
+        // Como en un reintento del SDK
+        Lector segunda = new Lector();
+        parte.subscribe(segunda);
+        assertThat(segunda.fin.get(5, TimeUnit.SECONDS)).isEqualTo(esperado);
+    }
+
+    // Pide de a un trozo, como un cliente HTTP con poco buffer
+    private static class Lector implements Subscriber<ByteBuffer> {
+
+        final CompletableFuture<byte[]> fin = new CompletableFuture<>();
+        final AtomicInteger mayorTrozo = new AtomicInteger();
+        private final ByteArrayOutputStream leido = new ByteArrayOutputStream();
+        private Subscription subscription;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(ByteBuffer trozo) {
+            mayorTrozo.accumulateAndGet(trozo.remaining(), Math::max);
+            byte[] bytes = new byte[trozo.remaining()];
+            trozo.get(bytes);
+            leido.writeBytes(bytes);
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            fin.completeExceptionally(error);
+        }
+
+        @Override
+        public void onComplete() {
+            fin.complete(leido.toByteArray());
+        }
+    }
+}